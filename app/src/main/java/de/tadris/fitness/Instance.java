@@ -20,18 +20,22 @@
 package de.tadris.fitness;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 
 import androidx.annotation.NonNull;
 import androidx.room.Room;
+import androidx.room.RoomDatabase;
 import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import de.tadris.fitness.data.AppDatabase;
+import de.tadris.fitness.data.SampleTable;
 import de.tadris.fitness.data.UserPreferences;
-import de.tadris.fitness.recording.LocationListener;
+import de.tadris.fitness.data.WorkoutRepository;
+import de.tadris.fitness.data.WorkoutTotalTable;
+import de.tadris.fitness.recording.LocationDispatcher;
+import de.tadris.fitness.recording.PressureBuffer;
 import de.tadris.fitness.util.FitoTrackThemes;
 import de.tadris.fitness.util.unit.UnitUtils;
 
@@ -49,12 +53,13 @@ public class Instance {
     }
 
     public final AppDatabase db;
-    public final List<LocationListener.LocationChangeListener> locationChangeListeners = new ArrayList<>();
+    public final WorkoutRepository workoutRepository;
+    public final LocationDispatcher locationDispatcher = new LocationDispatcher();
     public final UserPreferences userPreferences;
     public final FitoTrackThemes themes;
 
     private boolean pressureAvailable= false;
-    public float lastPressure= 0;
+    public final PressureBuffer pressureBuffer= new PressureBuffer();
 
     private Instance(Context context) {
         userPreferences= new UserPreferences(context);
@@ -100,17 +105,133 @@ public class Instance {
 
                             database.execSQL("ALTER table workout add COLUMN edited INTEGER not null default 0");
 
+                            database.setTransactionSuccessful();
+                        } finally {
+                            database.endTransaction();
+                        }
+                    }
+                }, new Migration(3, 4) {
+                    @Override
+                    public void migrate(@NonNull SupportSQLiteDatabase database) {
+                        try {
+                            database.beginTransaction();
+
+                            database.execSQL("ALTER table workout add COLUMN inProgress INTEGER not null default 0");
+
+                            database.setTransactionSuccessful();
+                        } finally {
+                            database.endTransaction();
+                        }
+                    }
+                }, new Migration(4, 5) {
+                    @Override
+                    public void migrate(@NonNull SupportSQLiteDatabase database) {
+                        try {
+                            database.beginTransaction();
+
+                            // Existing workouts have one segment
+                            database.execSQL("ALTER table workout_sample add COLUMN segment INTEGER not null default 0");
+
+                            database.setTransactionSuccessful();
+                        } finally {
+                            database.endTransaction();
+                        }
+                    }
+                }, new Migration(5, 6) {
+                    @Override
+                    public void migrate(@NonNull SupportSQLiteDatabase database) {
+                        try {
+                            database.beginTransaction();
+
+                            database.execSQL("ALTER TABLE workout_sample RENAME TO workout_sample2;");
+                            database.execSQL(SampleTable.getCreateStatement(SampleTable.NAME));
+
+                            // The ids of the samples of a workout are consecutive, the first one gets the index 0
+                            database.execSQL("CREATE TEMP TABLE first_sample AS SELECT workout_id, MIN(id) AS first_id FROM workout_sample2 GROUP BY workout_id");
+                            database.execSQL("INSERT INTO workout_sample (" + SampleTable.COLUMNS + ") " +
+                                    "SELECT s.workout_id, s.id - f.first_id, absoluteTime, relativeTime, lat, lon, elevation, speed, segment " +
+                                    "FROM workout_sample2 s JOIN first_sample f ON s.workout_id = f.workout_id");
+
+                            database.execSQL("DROP TABLE first_sample");
+                            database.execSQL("DROP TABLE workout_sample2");
+
+                            database.setTransactionSuccessful();
+                        } finally {
+                            database.endTransaction();
+                        }
+                    }
+                }, new Migration(6, 7) {
+                    @Override
+                    public void migrate(@NonNull SupportSQLiteDatabase database) {
+                        try {
+                            database.beginTransaction();
+
+                            database.execSQL("CREATE TABLE workout_track (" +
+                                    "workout_id INTEGER NOT NULL PRIMARY KEY," +
+                                    "samples BLOB," +
+                                    "FOREIGN KEY (workout_id) REFERENCES workout(id) ON DELETE CASCADE)");
+
+                            database.setTransactionSuccessful();
+                        } finally {
+                            database.endTransaction();
+                        }
+                    }
+                }, new Migration(7, 8) {
+                    @Override
+                    public void migrate(@NonNull SupportSQLiteDatabase database) {
+                        try {
+                            database.beginTransaction();
+
+                            database.execSQL(WorkoutTotalTable.getCreateStatement());
+                            execSQL(database, WorkoutTotalTable.getCreateTriggerStatements());
+                            // Totals of the existing workouts
+                            execSQL(database, WorkoutTotalTable.getRebuildStatements());
+
+                            database.setTransactionSuccessful();
+                        } finally {
+                            database.endTransaction();
+                        }
+                    }
+                }, new Migration(8, 9) {
+                    @Override
+                    public void migrate(@NonNull SupportSQLiteDatabase database) {
+                        try {
+                            database.beginTransaction();
+
+                            database.execSQL("ALTER TABLE workout ADD COLUMN timeZoneOffset INTEGER");
+                            database.execSQL(WorkoutTotalTable.getFillTimeZoneOffsetStatement());
+                            // The triggers and totals use the offset instead of the current time zone
+                            execSQL(database, WorkoutTotalTable.getDropTriggerStatements());
+                            execSQL(database, WorkoutTotalTable.getCreateTriggerStatements());
+                            execSQL(database, WorkoutTotalTable.getRebuildStatements());
+
                             database.setTransactionSuccessful();
                         } finally {
                             database.endTransaction();
                         }
                     }
                 })
-                .allowMainThreadQueries()
+                .addCallback(new RoomDatabase.Callback() {
+                    @Override
+                    public void onCreate(@NonNull SupportSQLiteDatabase database) {
+                        // Replaces the sample table Room created, it's empty
+                        database.execSQL("DROP TABLE " + SampleTable.NAME);
+                        database.execSQL(SampleTable.getCreateStatement(SampleTable.NAME));
+                        // Room can't declare triggers
+                        execSQL(database, WorkoutTotalTable.getCreateTriggerStatements());
+                    }
+                })
                 .build();
+        workoutRepository= new WorkoutRepository(db, new Handler(Looper.getMainLooper())::post);
         UnitUtils.setUnit(context);
     }
 
+    private static void execSQL(SupportSQLiteDatabase database, String[] statements) {
+        for (String statement : statements) {
+            database.execSQL(statement);
+        }
+    }
+
     public boolean isPressureAvailable() {
         return pressureAvailable;
     }
@@ -36,6 +36,7 @@ import java.text.SimpleDateFormat;
 import java.util.Calendar;
 
 import de.tadris.fitness.R;
+import de.tadris.fitness.data.Workout;
 import de.tadris.fitness.data.WorkoutBuilder;
 import de.tadris.fitness.data.WorkoutType;
 import de.tadris.fitness.dialog.DatePickerFragment;
@@ -128,7 +129,11 @@ public class EnterWorkoutActivity extends InformationActivity implements SelectW
             Toast.makeText(this, R.string.errorEnterValidDuration, Toast.LENGTH_LONG).show();
             return;
         }
-        WorkoutActivity.setSelectedWorkout(workoutBuilder.insertWorkout(this));
+        workoutBuilder.insertWorkout(this, this::showWorkout, e -> showDatabaseError(e, R.string.errorSaveWorkoutFailed));
+    }
+
+    private void showWorkout(Workout workout) {
+        WorkoutActivity.setSelectedWorkout(workout);
         startActivity(new Intent(this, ShowWorkoutActivity.class));
         finish();
     }
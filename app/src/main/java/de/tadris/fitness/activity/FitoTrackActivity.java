@@ -55,6 +55,15 @@ public abstract class FitoTrackActivity extends Activity {
                 .create().show();
     }
 
+    /**
+     * Shows the failure of a database request, unless the activity was closed in the meantime
+     */
+    void showDatabaseError(Exception e, @StringRes int message) {
+        if (!isFinishing() && !isDestroyed()) {
+            showErrorDialog(e, R.string.error, message);
+        }
+    }
+
     protected void requestStoragePermissions() {
         if (!hasStoragePermission()) {
             ActivityCompat.requestPermissions(this, new String[]{Manifest.permission.READ_EXTERNAL_STORAGE, Manifest.permission.WRITE_EXTERNAL_STORAGE}, 10);
@@ -19,6 +19,7 @@
 
 package de.tadris.fitness.activity;
 
+import android.content.Intent;
 import android.graphics.Typeface;
 import android.util.TypedValue;
 import android.view.View;
@@ -42,10 +43,21 @@ public abstract class InformationActivity extends FitoTrackActivity {
         textView.setTypeface(Typeface.DEFAULT_BOLD);
         textView.setAllCaps(true);
         textView.setPadding(0, 20, 0, 0);
+        textView.setOnLongClickListener(v -> {
+            onTitleLongClick();
+            return true;
+        });
 
         root.addView(textView);
     }
 
+    /**
+     * Opens the hidden recording metrics screen
+     */
+    protected void onTitleLongClick() {
+        startActivity(new Intent(this, RecordingMetricsActivity.class));
+    }
+
     protected TextView addText(String text, boolean themeColor) {
         TextView textView = createTextView(text, themeColor);
         root.addView(textView);
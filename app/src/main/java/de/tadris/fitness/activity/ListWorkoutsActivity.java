@@ -33,9 +33,14 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.github.clans.fab.FloatingActionMenu;
 
+import java.util.Collections;
+import java.util.List;
+
 import de.tadris.fitness.Instance;
 import de.tadris.fitness.R;
 import de.tadris.fitness.data.Workout;
+import de.tadris.fitness.data.WorkoutListDataSource;
+import de.tadris.fitness.data.WorkoutListItem;
 import de.tadris.fitness.data.WorkoutType;
 import de.tadris.fitness.util.DialogUtils;
 import de.tadris.fitness.view.WorkoutAdapter;
@@ -43,10 +48,12 @@ import de.tadris.fitness.view.WorkoutAdapter;
 public class ListWorkoutsActivity extends FitoTrackActivity implements WorkoutAdapter.WorkoutAdapterListener {
 
     private RecyclerView listView;
-    private RecyclerView.Adapter adapter;
+    private WorkoutAdapter adapter;
     private RecyclerView.LayoutManager layoutManager;
     private FloatingActionMenu menu;
-    private Workout[] workouts;
+    private WorkoutListDataSource dataSource;
+    private List<WorkoutListItem> workouts= Collections.emptyList();
+    private boolean rebindOnResume= false;
 
 
     @Override
@@ -60,10 +67,14 @@ public class ListWorkoutsActivity extends FitoTrackActivity implements WorkoutAd
         layoutManager= new LinearLayoutManager(this);
         listView.setLayoutManager(layoutManager);
 
+        dataSource= Instance.getInstance(this).workoutRepository.createWorkoutListDataSource(this::onWorkoutsLoaded);
+        adapter= new WorkoutAdapter(dataSource, this);
+        listView.setAdapter(adapter);
+
         menu= findViewById(R.id.workoutListMenu);
         menu.setOnMenuButtonLongClickListener(v -> {
-            if(workouts.length > 0){
-                startRecording(workouts[0].getWorkoutType());
+            if(workouts.size() > 0){
+                startRecording(workouts.get(0).getWorkoutType());
                 return true;
             }else{
                 return false;
@@ -77,7 +88,8 @@ public class ListWorkoutsActivity extends FitoTrackActivity implements WorkoutAd
 
         checkFirstStart();
 
-        refresh();
+        // The list is updated when the workouts change
+        dataSource.start();
     }
 
     private void checkFirstStart(){
@@ -110,35 +122,44 @@ public class ListWorkoutsActivity extends FitoTrackActivity implements WorkoutAd
     public void onResume() {
         super.onResume();
 
-        refresh();
+        if(rebindOnResume){
+            // The unit system might have changed, the items are still the same
+            rebindOnResume= false;
+            adapter.notifyDataSetChanged();
+        }
     }
 
     @Override
-    public void onItemClick(int pos, Workout workout) {
-        WorkoutActivity.setSelectedWorkout(workout);
-        startActivity(new Intent(this, ShowWorkoutActivity.class));
+    protected void onDestroy() {
+        dataSource.close();
+        super.onDestroy();
     }
 
-    @Override
-    public void onItemLongClick(int pos, Workout workout) {
-        DialogUtils.showDeleteWorkoutDialog(this, () -> {
-            Instance.getInstance(ListWorkoutsActivity.this).db.workoutDao().deleteWorkout(workout);
-            refresh();
-        });
+    private void onWorkoutsLoaded(List<WorkoutListItem> workouts){
+        this.workouts= workouts;
+        adapter.submitList(workouts);
     }
 
-    private void refresh() {
-        loadData();
-        refreshAdapter();
+    @Override
+    public void onItemClick(int pos, WorkoutListItem workout) {
+        Instance.getInstance(this).workoutRepository.getWorkout(workout.id, this::showWorkout,
+                e -> showDatabaseError(e, R.string.errorLoadWorkoutFailed));
     }
 
-    private void loadData(){
-        workouts= Instance.getInstance(this).db.workoutDao().getWorkouts();
+    private void showWorkout(Workout workout){
+        if(workout == null || isDestroyed()){
+            // The workout was deleted in the meantime or the list was closed
+            return;
+        }
+        WorkoutActivity.setSelectedWorkout(workout);
+        startActivity(new Intent(this, ShowWorkoutActivity.class));
     }
 
-    private void refreshAdapter(){
-        adapter= new WorkoutAdapter(workouts, this);
-        listView.setAdapter(adapter);
+    @Override
+    public void onItemLongClick(int pos, WorkoutListItem workout) {
+        // The list is updated by the data source
+        DialogUtils.showDeleteWorkoutDialog(this, () -> Instance.getInstance(ListWorkoutsActivity.this).workoutRepository.deleteWorkout(workout.id,
+                null, e -> showDatabaseError(e, R.string.errorDeleteWorkoutFailed)));
     }
 
     @Override
@@ -153,6 +174,7 @@ public class ListWorkoutsActivity extends FitoTrackActivity implements WorkoutAd
         int id = item.getItemId();
 
         if (id == R.id.actionOpenSettings) {
+            rebindOnResume= true;
             startActivity(new Intent(this, SettingsActivity.class));
             return true;
         }
@@ -38,40 +38,43 @@ import android.view.ViewGroup;
 import android.view.WindowManager;
 import android.widget.EditText;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import androidx.core.app.ActivityCompat;
 
-import org.mapsforge.core.graphics.Paint;
-import org.mapsforge.core.graphics.Style;
 import org.mapsforge.core.model.LatLong;
 import org.mapsforge.map.android.graphics.AndroidGraphicFactory;
 import org.mapsforge.map.android.view.MapView;
 import org.mapsforge.map.layer.download.TileDownloadLayer;
-import org.mapsforge.map.layer.overlay.Polyline;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.Future;
 
 import de.tadris.fitness.Instance;
 import de.tadris.fitness.R;
 import de.tadris.fitness.data.WorkoutType;
+import de.tadris.fitness.map.LiveTrackLayer;
 import de.tadris.fitness.map.MapManager;
+import de.tadris.fitness.recording.LocationDispatcher;
 import de.tadris.fitness.recording.LocationListener;
 import de.tadris.fitness.recording.PressureService;
+import de.tadris.fitness.recording.RecordingScheduler;
+import de.tadris.fitness.recording.RecordingSnapshot;
 import de.tadris.fitness.recording.WorkoutRecorder;
 import de.tadris.fitness.recording.announcement.AnnouncementGPSStatus;
 import de.tadris.fitness.recording.announcement.VoiceAnnouncements;
 import de.tadris.fitness.util.unit.UnitUtils;
 
-public class RecordWorkoutActivity extends FitoTrackActivity implements LocationListener.LocationChangeListener, WorkoutRecorder.WorkoutRecorderListener, VoiceAnnouncements.VoiceAnnouncementCallback {
+public class RecordWorkoutActivity extends FitoTrackActivity implements LocationListener.LocationChangeListener, WorkoutRecorder.WorkoutRecorderListener, WorkoutRecorder.SaveListener, VoiceAnnouncements.VoiceAnnouncementCallback {
 
     public static WorkoutType ACTIVITY = WorkoutType.OTHER;
 
+    private static final long UPDATE_INTERVAL = 1000;
+    private static final long BACKGROUND_ANNOUNCEMENT_INTERVAL = 5000;
+
     private MapView mapView;
     private TileDownloadLayer downloadLayer;
     private WorkoutRecorder recorder;
-    private Polyline polyline;
-    private final List<LatLong> latLongList = new ArrayList<>();
+    private LiveTrackLayer trackLayer;
     private final InfoViewHolder[] infoViews = new InfoViewHolder[4];
     private TextView timeView;
     private TextView gpsStatusView;
@@ -84,6 +87,8 @@ public class RecordWorkoutActivity extends FitoTrackActivity implements Location
     private Intent locationListener;
     private Intent pressureService;
     private boolean saved= false;
+    private boolean started= false;
+    private Future<Boolean> recoveryRequest;
 
     private VoiceAnnouncements voiceAnnouncements;
 
@@ -106,7 +111,6 @@ public class RecordWorkoutActivity extends FitoTrackActivity implements Location
         checkPermissions();
 
         recorder= new WorkoutRecorder(this, ACTIVITY, this);
-        recorder.start();
 
         voiceAnnouncements = new VoiceAnnouncements(this, this);
 
@@ -119,13 +123,36 @@ public class RecordWorkoutActivity extends FitoTrackActivity implements Location
 
         updateDescription();
 
-        startUpdater();
         acquireWakelock();
 
-        Instance.getInstance(this).locationChangeListeners.add(this);
+        // The map only needs the newest location, so the GPS callback doesn't wait for rendering
+        Instance.getInstance(this).locationDispatcher.addListener(this, LocationDispatcher.DeliveryPolicy.LATEST_ONLY);
 
         startListener();
 
+        recoverUnfinishedWorkout();
+    }
+
+    /**
+     * Saves the workout of an unfinished recording in the background and starts the recording afterwards,
+     * so its journal isn't replaced before it was read. The recovery runs after the writes that are still
+     * pending, e.g. the save of the previous recording, so that recording isn't recovered as well.
+     */
+    private void recoverUnfinishedWorkout(){
+        Context context= getApplicationContext();
+        recoveryRequest= Instance.getInstance(this).workoutRepository.submitWrite(() -> WorkoutRecorder.recoverUnfinishedWorkout(context), recovered -> {
+            if(recovered){
+                Toast.makeText(this, R.string.workoutRecovered, Toast.LENGTH_LONG).show();
+            }
+            startRecording();
+        }, e -> startRecording());
+    }
+
+    private void startRecording(){
+        recorder.start();
+        started= true;
+        setSchedulerInBackground(!isResumed);
+        startUpdater();
     }
 
     private void acquireWakelock(){
@@ -158,56 +185,44 @@ public class RecordWorkoutActivity extends FitoTrackActivity implements Location
     private void setupMap(){
         this.mapView= new MapView(this);
         downloadLayer = MapManager.setupMap(mapView);
-    }
-
-    private void updateLine(){
-        if(polyline != null){
-            mapView.getLayerManager().getLayers().remove(polyline);
-        }
-        Paint p= AndroidGraphicFactory.INSTANCE.createPaint();
-        p.setColor(getThemePrimaryColor());
-        p.setStrokeWidth(20);
-        p.setStyle(Style.STROKE);
-        polyline= new Polyline(p, AndroidGraphicFactory.INSTANCE);
-        polyline.setPoints(latLongList);
-        mapView.addLayer(polyline);
+        trackLayer= new LiveTrackLayer(getThemePrimaryColor(), 20);
+        mapView.addLayer(trackLayer);
     }
 
     private void startUpdater(){
-        new Thread(() -> {
-            try{
-                while (recorder.isActive()){
-                    Thread.sleep(1000);
-                    mHandler.post(this::updateDescription);
-                }
-            }catch (InterruptedException e){
-                // Restore the interrupt status to ensure the caller is aware of the interruption.
-                Thread.currentThread().interrupt();
-                e.printStackTrace();
-            }
-        }).start();
+        RecordingScheduler scheduler= recorder.getScheduler();
+        // The views don't need to be updated while they are not visible
+        scheduler.schedule("UpdateDescription", UPDATE_INTERVAL, 0, () -> mHandler.post(this::updateDescription));
+        // Announcements are checked in the background as well, together with the watchdog of the recorder
+        scheduler.schedule("VoiceAnnouncements", UPDATE_INTERVAL, BACKGROUND_ANNOUNCEMENT_INTERVAL, () -> mHandler.post(() -> voiceAnnouncements.check(recorder)));
     }
 
-
     private void updateDescription() {
         long duration = recorder.getDuration();
         int distanceInMeters = recorder.getDistanceInMeters();
         final String distanceCaption = getString(R.string.workoutDistance);
         final String distance = UnitUtils.getDistance(distanceInMeters);
         final String avgSpeed = UnitUtils.getSpeed(Math.min(100d, recorder.getAvgSpeed()));
+        final RecordingSnapshot snapshot = recorder.getSnapshot();
         if (isResumed) {
             timeView.setText(UnitUtils.getHourMinuteSecondTime(duration));
             infoViews[0].setText(distanceCaption, distance);
             infoViews[1].setText(getString(R.string.workoutBurnedEnergy), recorder.getCalories() + " kcal");
-            infoViews[2].setText(getString(R.string.workoutAvgSpeedShort), avgSpeed);
+            if ((ACTIVITY == WorkoutType.RUNNING || ACTIVITY == WorkoutType.HIKING) && snapshot.getCurrentPace() > 0) {
+                // Runners and hikers are rather interested in their current pace
+                infoViews[2].setText(getString(R.string.workoutPace), UnitUtils.getPace(snapshot.getCurrentPace()));
+            } else {
+                infoViews[2].setText(getString(R.string.workoutAvgSpeedShort), avgSpeed);
+            }
             infoViews[3].setText(getString(R.string.workoutPauseDuration), UnitUtils.getHourMinuteSecondTime(recorder.getPauseDuration()));
         }
-
-        voiceAnnouncements.check(recorder);
-
     }
 
     private void stop(){
+        if(!started){
+            finish();
+            return;
+        }
         recorder.stop();
         if(recorder.getSampleCount() > 3){
             showEnterDescriptionDialog();
@@ -216,15 +231,15 @@ public class RecordWorkoutActivity extends FitoTrackActivity implements Location
         }
     }
 
-    private void saveAndClose(){
-        save();
-        finish();
-    }
-
+    /**
+     * Saves the recording in the background, the activity is closed when it's saved
+     */
     private void save(){
+        saved= true;
         if(recorder.getSampleCount() > 3){
-            recorder.save();
-            saved= true;
+            recorder.save(this);
+        }else{
+            recorder.discard(this);
         }
     }
 
@@ -240,8 +255,8 @@ public class RecordWorkoutActivity extends FitoTrackActivity implements Location
         new AlertDialog.Builder(this).setTitle(R.string.enterComment).setPositiveButton(R.string.okay, (dialog, which) -> {
             dialog.dismiss();
             recorder.setComment(editText.getText().toString());
-            saveAndClose();
-        }).setView(editText).setOnCancelListener(dialog -> saveAndClose()).create().show();
+            save();
+        }).setView(editText).setOnCancelListener(dialog -> save()).create().show();
     }
 
     private void showAreYouSureToStopDialog(){
@@ -315,14 +330,16 @@ public class RecordWorkoutActivity extends FitoTrackActivity implements Location
     public void onLocationChange(Location location) {
         LatLong latLong= LocationListener.locationToLatLong(location);
         mapView.getModel().mapViewPosition.animateTo(latLong);
-        latLongList.add(latLong);
-        updateLine();
+        trackLayer.addPoint(latLong);
     }
 
     @Override
     protected void onDestroy() {
-        recorder.stop();
-        saveIfNotSaved(); // Important to save
+        recoveryRequest.cancel(false);
+        if(started){
+            recorder.stop();
+            saveIfNotSaved(); // Important to save
+        }
 
         // Clear map
         mapView.destroyAll();
@@ -335,7 +352,7 @@ public class RecordWorkoutActivity extends FitoTrackActivity implements Location
         if(wakeLock.isHeld()){
             wakeLock.release();
         }
-        Instance.getInstance(this).locationChangeListeners.remove(this);
+        Instance.getInstance(this).locationDispatcher.removeListener(this);
         stopListener();
     }
 
@@ -344,6 +361,7 @@ public class RecordWorkoutActivity extends FitoTrackActivity implements Location
         super.onPause();
         downloadLayer.onPause();
         isResumed= false;
+        setSchedulerInBackground(true);
     }
 
     public void onResume(){
@@ -351,6 +369,14 @@ public class RecordWorkoutActivity extends FitoTrackActivity implements Location
         enableLockScreenVisibility();
         downloadLayer.onResume();
         isResumed= true;
+        setSchedulerInBackground(false);
+    }
+
+    private void setSchedulerInBackground(boolean inBackground){
+        RecordingScheduler scheduler= recorder.getScheduler();
+        if(scheduler != null){
+            scheduler.setInBackground(inBackground);
+        }
     }
 
     private void enableLockScreenVisibility() {
@@ -427,6 +453,29 @@ public class RecordWorkoutActivity extends FitoTrackActivity implements Location
 
     @Override
     public void onAutoStop() {
-        finish();
+        mHandler.post(this::saveIfNotSaved);
+    }
+
+    @Override
+    public void onSaved() {
+        mHandler.post(() -> {
+            if(!isDestroyed()){
+                finish();
+            }
+        });
+    }
+
+    @Override
+    public void onSaveFailed(Exception e) {
+        mHandler.post(() -> {
+            if(!isDestroyed()){
+                new AlertDialog.Builder(this)
+                        .setTitle(R.string.error)
+                        .setMessage(getString(R.string.errorSaveRecordingFailed) + "\n\n" + e.getMessage())
+                        .setPositiveButton(R.string.okay, null)
+                        .setOnDismissListener(dialog -> finish())
+                        .create().show();
+            }
+        });
     }
 }
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.activity;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.widget.Toast;
+
+import java.io.IOException;
+import java.util.Map;
+
+import de.tadris.fitness.R;
+import de.tadris.fitness.recording.Histogram;
+import de.tadris.fitness.recording.RecordingMetrics;
+
+/**
+ * Hidden debug screen with the metrics of the running or last recording.
+ * It's opened with a long click on a title of an {@link InformationActivity}.
+ */
+public class RecordingMetricsActivity extends InformationActivity {
+
+    private final RecordingMetrics metrics = RecordingMetrics.getInstance();
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_recording_metrics);
+        setTitle(R.string.recordingMetrics);
+        if (getActionBar() != null) {
+            getActionBar().setDisplayHomeAsUpEnabled(true);
+        }
+
+        initRoot();
+        showMetrics();
+    }
+
+    private void showMetrics() {
+        root.removeAllViews();
+
+        addTitle(getString(R.string.metricsFixes));
+        for (Map.Entry<String, Long> entry : metrics.getFixesByProvider().entrySet()) {
+            addKeyValueLine("Received (" + entry.getKey() + ")", String.valueOf(entry.getValue()));
+        }
+        addKeyValueLine("Queue overflows", String.valueOf(metrics.getQueueOverflows()));
+        addKeyValueLine("Ignored while not running", String.valueOf(metrics.getIgnoredFixes()));
+        for (Map.Entry<String, Long> entry : metrics.getRejectedFixes().entrySet()) {
+            addKeyValueLine("Rejected (" + entry.getKey() + ")", String.valueOf(entry.getValue()));
+        }
+        addKeyValueLine("Samples appended", String.valueOf(metrics.getAppendedSamples()));
+
+        addTitle(getString(R.string.metricsLatency));
+        addHistogram(metrics.getDispatchLatency());
+
+        addTitle(getString(R.string.metricsDatabase));
+        addHistogram(metrics.getBatchInsertTime());
+
+        addTitle(getString(R.string.metricsAutoPause));
+        addKeyValueLine("Pauses", String.valueOf(metrics.getAutoPauses()));
+        addKeyValueLine("Resumes", String.valueOf(metrics.getAutoResumes()));
+
+        addTitle(getString(R.string.metricsSaving));
+        for (Map.Entry<String, Long> entry : metrics.getSavePhases().entrySet()) {
+            addKeyValueLine(entry.getKey(), entry.getValue() + " ms");
+        }
+
+        addTitle(getString(R.string.metricsScheduler));
+        addText(metrics.getSchedulerTasks().replace("; ", "\n"), false);
+    }
+
+    private void addHistogram(Histogram histogram) {
+        addKeyValueLine("Count", String.valueOf(histogram.getCount()));
+        addKeyValueLine("Mean", Math.round(histogram.getMean()) + " ms");
+        addKeyValueLine("50 %", "<= " + histogram.getPercentile(50) + " ms");
+        addKeyValueLine("95 %", "<= " + histogram.getPercentile(95) + " ms");
+        addKeyValueLine("Max", histogram.getMax() + " ms");
+    }
+
+    private void share(String text) {
+        Intent intent = new Intent(Intent.ACTION_SEND);
+        intent.setType("text/plain");
+        intent.putExtra(Intent.EXTRA_TEXT, text);
+        startActivity(Intent.createChooser(intent, getString(R.string.share)));
+    }
+
+    private void shareJson() {
+        try {
+            share(metrics.toJson());
+        } catch (IOException e) {
+            e.printStackTrace();
+            Toast.makeText(this, e.getMessage(), Toast.LENGTH_LONG).show();
+        }
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.recording_metrics_menu, menu);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        switch (item.getItemId()) {
+            case android.R.id.home:
+                finish();
+                return true;
+            case R.id.actionRefreshMetrics:
+                showMetrics();
+                return true;
+            case R.id.actionShareMetricsText:
+                share(metrics.toText());
+                return true;
+            case R.id.actionShareMetricsJson:
+                shareJson();
+                return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    @Override
+    protected void onTitleLongClick() {
+        showMetrics();
+    }
+
+    @Override
+    void initRoot() {
+        root = findViewById(R.id.recordingMetricsRoot);
+    }
+}
@@ -45,6 +45,7 @@ public class SettingsActivity extends FitoTrackSettingsActivity {
         bindPreferenceSummaryToValue(findPreference("unitSystem"));
         bindPreferenceSummaryToValue(findPreference("mapStyle"));
         bindPreferenceSummaryToValue(findPreference("themeSetting"));
+        bindPreferenceSummaryToValue(findPreference("autoPauseGracePeriod"));
         findPreference("themeSetting").setOnPreferenceChangeListener((preference, newValue) -> {
             sBindPreferenceSummaryToValueListener.onPreferenceChange(preference, newValue);
             Toast.makeText(SettingsActivity.this, R.string.hintRestart, Toast.LENGTH_LONG).show();
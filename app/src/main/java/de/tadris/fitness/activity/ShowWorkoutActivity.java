@@ -79,6 +79,11 @@ public class ShowWorkoutActivity extends WorkoutActivity implements DialogUtils.
 
         addKeyValue(getString(R.string.workoutDistance), UnitUtils.getDistance(workout.length), getString(R.string.workoutPace), UnitUtils.getPace(workout.avgPace));
 
+        loadSamples();
+    }
+
+    @Override
+    void onSamplesLoaded() {
         if (hasSamples()) {
             addTitle(getString(R.string.workoutRoute));
 
@@ -135,7 +140,7 @@ public class ShowWorkoutActivity extends WorkoutActivity implements DialogUtils.
 
     private void changeComment(String comment) {
         workout.comment = comment;
-        Instance.getInstance(this).db.workoutDao().updateWorkout(workout);
+        Instance.getInstance(this).workoutRepository.updateWorkout(workout, null, e -> showDatabaseError(e, R.string.errorSaveWorkoutFailed));
         updateCommentText();
     }
 
@@ -169,8 +174,9 @@ public class ShowWorkoutActivity extends WorkoutActivity implements DialogUtils.
     }
 
     public void deleteWorkout() {
-        Instance.getInstance(this).db.workoutDao().deleteWorkout(workout);
-        finish();
+        // The workout list is updated when the workout is deleted
+        Instance.getInstance(this).workoutRepository.deleteWorkout(workout.id, result -> finish(),
+                e -> showDatabaseError(e, R.string.errorDeleteWorkoutFailed));
     }
 
     private void showDeleteDialog() {
@@ -207,6 +213,10 @@ public class ShowWorkoutActivity extends WorkoutActivity implements DialogUtils.
     private OAuthConsumer oAuthConsumer = null;
 
     private void prepareUpload() {
+        if (samples == null) {
+            // Still loading
+            return;
+        }
         OAuthAuthentication authentication = new OAuthAuthentication(mHandler, this, new OAuthAuthentication.OAuthAuthenticationListener() {
             @Override
             public void authenticationFailed() {
@@ -37,6 +37,11 @@ public class ShowWorkoutMapActivity extends WorkoutActivity {
         initAfterContent();
 
         fullScreenItems = true;
+        loadSamples();
+    }
+
+    @Override
+    void onSamplesLoaded() {
         addMap();
 
         map.setClickable(true);
@@ -41,16 +41,20 @@ public class ShowWorkoutMapDiagramActivity extends WorkoutActivity {
         initAfterContent();
 
         fullScreenItems = true;
+        diagramsInteractive= true;
+        loadSamples();
+    }
+
+    @Override
+    void onSamplesLoaded() {
         addMap();
         map.setClickable(true);
 
-        diagramsInteractive= true;
         root= findViewById(R.id.showWorkoutDiagramParent);
         switch (DIAGRAM_TYPE){
             case DIAGRAM_TYPE_HEIGHT: addHeightDiagram(); break;
             case DIAGRAM_TYPE_SPEED:  addSpeedDiagram();  break;
         }
-
     }
 
 
@@ -28,6 +28,7 @@ import android.widget.LinearLayout;
 
 import com.github.mikephil.charting.charts.LineChart;
 import com.github.mikephil.charting.components.Description;
+import com.github.mikephil.charting.components.Legend;
 import com.github.mikephil.charting.data.Entry;
 import com.github.mikephil.charting.data.LineData;
 import com.github.mikephil.charting.data.LineDataSet;
@@ -47,6 +48,7 @@ import org.mapsforge.map.layer.overlay.FixedPixelCircle;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Future;
 
 import de.tadris.fitness.Instance;
 import de.tadris.fitness.R;
@@ -68,13 +70,13 @@ public abstract class WorkoutActivity extends InformationActivity {
     private TileDownloadLayer downloadLayer;
     private FixedPixelCircle highlightingCircle;
     final Handler mHandler = new Handler();
+    private Future<WorkoutSample[]> samplesRequest;
 
     LineChart speedDiagram;
     LineChart heightDiagram;
 
     void initBeforeContent() {
         workout= selectedWorkout;
-        samples= Arrays.asList(Instance.getInstance(this).db.workoutDao().getAllSamplesOfWorkout(workout.id));
         setTheme(Instance.getInstance(this).themes.getWorkoutTypeTheme(workout.getWorkoutType()));
     }
 
@@ -87,6 +89,21 @@ public abstract class WorkoutActivity extends InformationActivity {
         theme= getTheme();
     }
 
+    /**
+     * Loads the samples in the background, {@link #onSamplesLoaded()} is called when they are available
+     */
+    void loadSamples() {
+        samplesRequest= Instance.getInstance(this).workoutRepository.getSamples(workout.id, loadedSamples -> {
+            samples= Arrays.asList(loadedSamples);
+            onSamplesLoaded();
+        }, e -> showDatabaseError(e, R.string.errorLoadWorkoutFailed));
+    }
+
+    /**
+     * Adds the views that show the samples
+     */
+    abstract void onSamplesLoaded();
+
     private void addDiagram(SampleConverter converter) {
         root.addView(getDiagram(converter), new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, fullScreenItems ? ViewGroup.LayoutParams.MATCH_PARENT : getWindowManager().getDefaultDisplay().getWidth()*3/4));
     }
@@ -98,25 +115,26 @@ public abstract class WorkoutActivity extends InformationActivity {
 
         converter.onCreate();
 
+        // One data set per segment, so the line is interrupted at the pauses
+        LineData lineData = new LineData();
         List<Entry> entries = new ArrayList<>();
+        int lastSegment = 0;
         for (WorkoutSample sample : samples) {
+            if (sample.segment != lastSegment && !entries.isEmpty()) {
+                lineData.addDataSet(createDataSet(entries, lineData.getDataSetCount() == 0 ? converter.getName() : null));
+                entries = new ArrayList<>();
+            }
+            lastSegment = sample.segment;
             // turn your data into Entry objects
-            Entry e= new Entry((float)(sample.relativeTime) / 1000f / 60f, converter.getValue(sample));
+            // The sample is kept as data of the entry to find it when the entry is selected
+            Entry e= new Entry((float)(sample.relativeTime) / 1000f / 60f, converter.getValue(sample), sample);
             entries.add(e);
-            converter.sampleGetsEntry(sample, e);
         }
-
-        LineDataSet dataSet = new LineDataSet(entries, converter.getName()); // add entries to dataset
-        dataSet.setColor(getThemePrimaryColor());
-        dataSet.setValueTextColor(getThemePrimaryColor());
-        dataSet.setDrawCircles(false);
-        dataSet.setLineWidth(4);
-        dataSet.setMode(LineDataSet.Mode.HORIZONTAL_BEZIER);
+        lineData.addDataSet(createDataSet(entries, lineData.getDataSetCount() == 0 ? converter.getName() : null));
 
         Description description= new Description();
         description.setText(converter.getDescription());
 
-        LineData lineData = new LineData(dataSet);
         chart.setData(lineData);
         chart.setScaleXEnabled(diagramsInteractive);
         chart.setScaleYEnabled(false);
@@ -126,7 +144,7 @@ public abstract class WorkoutActivity extends InformationActivity {
                 @Override
                 public void onValueSelected(Entry e, Highlight h) {
                     onNothingSelected();
-                    onDiagramValueSelected(findSample(converter, e).toLatLong());
+                    onDiagramValueSelected(((WorkoutSample) e.getData()).toLatLong());
                 }
 
                 @Override
@@ -144,6 +162,22 @@ public abstract class WorkoutActivity extends InformationActivity {
         return chart;
     }
 
+    /**
+     * @param name name shown in the legend or null if the data set continues the previous one
+     */
+    private LineDataSet createDataSet(List<Entry> entries, String name) {
+        LineDataSet dataSet = new LineDataSet(entries, name);
+        dataSet.setColor(getThemePrimaryColor());
+        dataSet.setValueTextColor(getThemePrimaryColor());
+        dataSet.setDrawCircles(false);
+        dataSet.setLineWidth(4);
+        dataSet.setMode(LineDataSet.Mode.HORIZONTAL_BEZIER);
+        if (name == null) {
+            dataSet.setForm(Legend.LegendForm.NONE);
+        }
+        return dataSet;
+    }
+
     private void onDiagramValueSelected(LatLong latLong) {
         Paint p= AndroidGraphicFactory.INSTANCE.createPaint();
         p.setColor(0xff693cff);
@@ -158,22 +192,11 @@ public abstract class WorkoutActivity extends InformationActivity {
     interface SampleConverter{
         void onCreate();
         float getValue(WorkoutSample sample);
-        void sampleGetsEntry(WorkoutSample sample, Entry entry);
         String getName();
         String getDescription();
-        boolean compare(WorkoutSample sample, Entry entry);
         void afterAdd(LineChart chart);
     }
 
-    private WorkoutSample findSample(SampleConverter converter, Entry entry) {
-        for(WorkoutSample sample : samples){
-            if(converter.compare(sample, entry)){
-                return sample;
-            }
-        }
-        return null;
-    }
-
     void addHeightDiagram(){
         addDiagram(new SampleConverter() {
             @Override
@@ -184,11 +207,6 @@ public abstract class WorkoutActivity extends InformationActivity {
                 return (float) UnitUtils.CHOSEN_SYSTEM.getDistanceFromMeters(sample.elevation);
             }
 
-            @Override
-            public void sampleGetsEntry(WorkoutSample sample, Entry entry) {
-                sample.tmpHeightEntry= entry;
-            }
-
             @Override
             public String getName() {
                 return getString(R.string.height);
@@ -199,11 +217,6 @@ public abstract class WorkoutActivity extends InformationActivity {
                 return "min - " + UnitUtils.CHOSEN_SYSTEM.getShortDistanceUnit();
             }
 
-            @Override
-            public boolean compare(WorkoutSample sample, Entry entry) {
-                return sample.tmpHeightEntry.equalTo(entry);
-            }
-
             @Override
             public void afterAdd(LineChart chart) {
                 heightDiagram= chart;
@@ -223,11 +236,6 @@ public abstract class WorkoutActivity extends InformationActivity {
                 return (float)UnitUtils.CHOSEN_SYSTEM.getSpeedFromMeterPerSecond(sample.tmpRoundedSpeed);
             }
 
-            @Override
-            public void sampleGetsEntry(WorkoutSample sample, Entry entry) {
-                sample.tmpSpeedEntry= entry;
-            }
-
             @Override
             public String getName() {
                 return getString(R.string.workoutSpeed);
@@ -238,11 +246,6 @@ public abstract class WorkoutActivity extends InformationActivity {
                 return "min - " + UnitUtils.CHOSEN_SYSTEM.getSpeedUnit();
             }
 
-            @Override
-            public boolean compare(WorkoutSample sample, Entry entry) {
-                return sample.tmpSpeedEntry.equalTo(entry);
-            }
-
             @Override
             public void afterAdd(LineChart chart) {
                 speedDiagram= chart;
@@ -299,6 +302,9 @@ public abstract class WorkoutActivity extends InformationActivity {
 
     @Override
     protected void onDestroy() {
+        if (samplesRequest != null) {
+            samplesRequest.cancel(false);
+        }
         if (map != null) {
             map.destroyAll();
         }
@@ -22,7 +22,7 @@ package de.tadris.fitness.data;
 import androidx.room.Database;
 import androidx.room.RoomDatabase;
 
-@Database(version = 3, entities = {Workout.class, WorkoutSample.class})
+@Database(version = 9, entities = {Workout.class, WorkoutSample.class, WorkoutTrack.class, WorkoutTotal.class})
 public abstract class AppDatabase extends RoomDatabase {
     public abstract WorkoutDao workoutDao();
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.data;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over sample rows that are loaded in chunks, so only one chunk is in memory at a time.
+ * <p>
+ * A chunk starts after the key (workout id, index) of the last sample of the previous chunk. The key
+ * is the primary key of the {@link SampleTable}, so every chunk is a range scan and doesn't skip the
+ * rows that were already read like an offset would.
+ */
+public class SampleIterator implements Iterator<WorkoutSample> {
+
+    public static final int CHUNK_SIZE = 1000;
+
+    private final ChunkLoader loader;
+    private final int chunkSize;
+
+    private WorkoutSample[] chunk = new WorkoutSample[0];
+    private int position = 0;
+    private boolean lastChunk = false;
+    private long lastWorkoutId = Long.MIN_VALUE;
+    private int lastSeq = -1;
+
+    public SampleIterator(ChunkLoader loader) {
+        this(loader, CHUNK_SIZE);
+    }
+
+    SampleIterator(ChunkLoader loader, int chunkSize) {
+        this.loader = loader;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (position == chunk.length && !lastChunk) {
+            loadNextChunk();
+        }
+        return position < chunk.length;
+    }
+
+    @Override
+    public WorkoutSample next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        WorkoutSample sample = chunk[position++];
+        lastWorkoutId = sample.workoutId;
+        lastSeq = sample.seq;
+        return sample;
+    }
+
+    private void loadNextChunk() {
+        chunk = loader.load(lastWorkoutId, lastSeq, chunkSize);
+        position = 0;
+        // A chunk that isn't full is the end, so the end doesn't need an empty query
+        lastChunk = chunk.length < chunkSize;
+    }
+
+    public interface ChunkLoader {
+        /**
+         * @return at most count samples after the given key, ordered by workout id and index
+         */
+        WorkoutSample[] load(long workoutId, int seq, int count);
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.data;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Loads the samples of workouts regardless of whether they are stored as rows or as one {@link WorkoutTrack}
+ */
+public final class SampleStorage {
+
+    private static final String TAG = "SampleStorage";
+
+    private SampleStorage() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * The charts and the map of a workout read sample objects, so a decoded track is converted to them
+     *
+     * @throws IOException if the track of the workout cannot be decoded
+     */
+    public static WorkoutSample[] getSamples(AppDatabase db, long workoutId) throws IOException {
+        WorkoutDao dao = db.workoutDao();
+        WorkoutTrack track = dao.getTrack(workoutId);
+        if (track != null) {
+            try {
+                return TrackCodec.decode(track.samples).toSamples(workoutId);
+            } catch (IOException e) {
+                // The rows of the samples were deleted when the track was stored
+                Log.e(TAG, "Cannot decode the track of workout " + workoutId, e);
+                throw e;
+            }
+        }
+        return dao.getAllSamplesOfWorkout(workoutId);
+    }
+
+    /**
+     * Samples of the workout whose relative time is in the range, including both ends
+     *
+     * @throws IOException if the track of the workout cannot be decoded
+     */
+    public static WorkoutSample[] getSamplesInTimeRange(AppDatabase db, long workoutId, long fromTime, long toTime) throws IOException {
+        WorkoutDao dao = db.workoutDao();
+        WorkoutTrack track = dao.getTrack(workoutId);
+        if (track != null) {
+            try {
+                // The whole track has to be decoded anyway, but only the samples in the range are created
+                TrackData data = TrackCodec.decode(track.samples);
+                int from = 0;
+                while (from < data.count && data.relativeTimes[from] < fromTime) {
+                    from++;
+                }
+                int to = from;
+                while (to < data.count && data.relativeTimes[to] <= toTime) {
+                    to++;
+                }
+                return data.toSamples(workoutId, from, to);
+            } catch (IOException e) {
+                // The rows of the samples were deleted when the track was stored
+                Log.e(TAG, "Cannot decode the track of workout " + workoutId, e);
+                throw e;
+            }
+        }
+        return dao.getSamplesInTimeRange(workoutId, fromTime, toTime);
+    }
+
+    /**
+     * Samples of all finished workouts. They are loaded while the collection is iterated, the rows in
+     * chunks and the tracks one by one, so only a small part of them is in memory at a time.
+     */
+    public static Collection<WorkoutSample> getAllSamples(AppDatabase db) throws IOException {
+        WorkoutDao dao = db.workoutDao();
+        long[] trackWorkoutIds = dao.getTrackWorkoutIds();
+        int count = dao.getSampleCount();
+        for (long workoutId : trackWorkoutIds) {
+            count += TrackCodec.getCount(dao.getTrack(workoutId).samples);
+        }
+        int size = count;
+        return new AbstractCollection<WorkoutSample>() {
+            @Override
+            public Iterator<WorkoutSample> iterator() {
+                Iterator<WorkoutSample> rows = new SampleIterator(dao::getSamplesAfter);
+                Iterator<WorkoutSample> tracks = new TrackIterator(dao, trackWorkoutIds);
+                return new Iterator<WorkoutSample>() {
+                    @Override
+                    public boolean hasNext() {
+                        return rows.hasNext() || tracks.hasNext();
+                    }
+
+                    @Override
+                    public WorkoutSample next() {
+                        return rows.hasNext() ? rows.next() : tracks.next();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Replaces the sample rows of a workout with a {@link WorkoutTrack}
+     */
+    public static void compress(AppDatabase db, long workoutId) {
+        db.runInTransaction(() -> {
+            WorkoutDao dao = db.workoutDao();
+            WorkoutSample[] samples = dao.getAllSamplesOfWorkout(workoutId);
+            if (samples.length == 0) {
+                return;
+            }
+            WorkoutTrack track = new WorkoutTrack();
+            track.workoutId = workoutId;
+            track.samples = TrackCodec.encode(TrackData.fromSamples(samples));
+            dao.insertTrack(track);
+            dao.deleteSamplesOfWorkout(workoutId);
+        });
+    }
+
+    /**
+     * Decodes the tracks of the given workouts one after another
+     */
+    private static class TrackIterator implements Iterator<WorkoutSample> {
+
+        private final WorkoutDao dao;
+        private final long[] workoutIds;
+        private int nextWorkout = 0;
+        private WorkoutSample[] samples = new WorkoutSample[0];
+        private int position = 0;
+
+        TrackIterator(WorkoutDao dao, long[] workoutIds) {
+            this.dao = dao;
+            this.workoutIds = workoutIds;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (position == samples.length && nextWorkout < workoutIds.length) {
+                long workoutId = workoutIds[nextWorkout++];
+                try {
+                    samples = TrackCodec.decode(dao.getTrack(workoutId).samples).toSamples(workoutId);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Cannot decode the track of workout " + workoutId, e);
+                }
+                position = 0;
+            }
+            return position < samples.length;
+        }
+
+        @Override
+        public WorkoutSample next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return samples[position++];
+        }
+    }
+}
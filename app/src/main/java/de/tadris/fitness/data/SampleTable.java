@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.data;
+
+/**
+ * SQL of the table that stores the {@link WorkoutSample}s.
+ * <p>
+ * The table is clustered by its primary key (workout_id, seq), so the samples of a workout are stored
+ * next to each other in the order they were recorded and are loaded with a range scan of the key.
+ * Room can't declare WITHOUT ROWID tables, so the table Room creates is replaced with this one.
+ */
+public final class SampleTable {
+
+    public static final String NAME = "workout_sample";
+
+    /**
+     * All columns in the order of {@link #getCreateStatement(String)}
+     */
+    public static final String COLUMNS = "workout_id, seq, absoluteTime, relativeTime, lat, lon, elevation, speed, segment";
+
+    private SampleTable() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @return statement that creates the table with the given name, has to match the {@link WorkoutSample} entity
+     */
+    public static String getCreateStatement(String name) {
+        return "CREATE TABLE " + name + " (" +
+                "workout_id INTEGER NOT NULL," +
+                "seq INTEGER NOT NULL," +
+                "absoluteTime INTEGER NOT NULL," +
+                "relativeTime INTEGER NOT NULL," +
+                "lat REAL NOT NULL," +
+                "lon REAL NOT NULL," +
+                "elevation REAL NOT NULL," +
+                "speed REAL NOT NULL," +
+                "segment INTEGER NOT NULL," +
+                "PRIMARY KEY (workout_id, seq)," +
+                "FOREIGN KEY (workout_id) REFERENCES workout(id) ON DELETE CASCADE" +
+                ") WITHOUT ROWID";
+    }
+}
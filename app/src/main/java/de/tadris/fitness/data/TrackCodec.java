@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.data;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encodes the samples of a workout as one compact blob.
+ * <p>
+ * Coordinates are stored in fixed point with {@link #COORDINATE_SCALE} units per degree, the elevation
+ * in decimeters and the speed in centimeters per second. The values are written column by column,
+ * every value as the zigzag encoded difference to the previous sample in a varint. This makes most
+ * values one or two bytes long and repetitive, so the deflated blob is a fraction of the size of the rows.
+ * <p>
+ * Format: length of the inflated data as 4 byte big endian int, followed by the deflated data:
+ * version, number of samples and the columns absoluteTime, relativeTime, lat, lon, elevation, speed and segment.
+ */
+public final class TrackCodec {
+
+    private static final int VERSION = 1;
+
+    /**
+     * Maximum length of the version and the number of samples
+     */
+    private static final int HEADER_LENGTH = 20;
+
+    static final double COORDINATE_SCALE = 1e7;
+    static final double ELEVATION_SCALE = 10;
+    static final double SPEED_SCALE = 100;
+
+    private TrackCodec() {
+        throw new UnsupportedOperationException();
+    }
+
+    public static byte[] encode(TrackData data) {
+        Writer writer = new Writer(16 + data.count * 12);
+        writer.writeVarLong(VERSION);
+        writer.writeVarLong(data.count);
+        writer.writeDeltas(data.absoluteTimes, data.count);
+        writer.writeDeltas(data.relativeTimes, data.count);
+        writer.writeDeltas(data.lats, COORDINATE_SCALE, data.count);
+        writer.writeDeltas(data.lons, COORDINATE_SCALE, data.count);
+        writer.writeDeltas(data.elevations, ELEVATION_SCALE, data.count);
+        writer.writeDeltas(data.speeds, SPEED_SCALE, data.count);
+        writer.writeDeltas(data.segments, data.count);
+        return deflate(writer.bytes, writer.length);
+    }
+
+    public static TrackData decode(byte[] blob) throws IOException {
+        Reader reader = new Reader(inflate(blob, Integer.MAX_VALUE));
+        long count = readCount(reader);
+        if (count < 0 || count > reader.bytes.length) {
+            // Every sample needs at least one byte per column
+            throw new IOException("Invalid sample count " + count);
+        }
+        TrackData data = new TrackData((int) count);
+        reader.readDeltas(data.absoluteTimes);
+        reader.readDeltas(data.relativeTimes);
+        reader.readDeltas(data.lats, COORDINATE_SCALE);
+        reader.readDeltas(data.lons, COORDINATE_SCALE);
+        reader.readDeltas(data.elevations, ELEVATION_SCALE);
+        reader.readDeltas(data.speeds, SPEED_SCALE);
+        reader.readDeltas(data.segments);
+        return data;
+    }
+
+    /**
+     * Reads the number of samples without decoding the track, only the start of the data is inflated
+     */
+    public static int getCount(byte[] blob) throws IOException {
+        long count = readCount(new Reader(inflate(blob, HEADER_LENGTH)));
+        if (count < 0 || count > Integer.MAX_VALUE) {
+            throw new IOException("Invalid sample count " + count);
+        }
+        return (int) count;
+    }
+
+    private static long readCount(Reader reader) throws IOException {
+        int version = (int) reader.readVarLong();
+        if (version != VERSION) {
+            throw new IOException("Unsupported track version " + version);
+        }
+        return reader.readVarLong();
+    }
+
+    private static byte[] deflate(byte[] bytes, int length) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(bytes, 0, length);
+            deflater.finish();
+            byte[] output = new byte[4 + length / 2 + 64];
+            output[0] = (byte) (length >>> 24);
+            output[1] = (byte) (length >>> 16);
+            output[2] = (byte) (length >>> 8);
+            output[3] = (byte) length;
+            int size = 4;
+            while (!deflater.finished()) {
+                if (size == output.length) {
+                    output = Arrays.copyOf(output, output.length * 2);
+                }
+                size += deflater.deflate(output, size, output.length - size);
+            }
+            return Arrays.copyOf(output, size);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * @param limit maximum number of bytes that are inflated
+     */
+    private static byte[] inflate(byte[] blob, int limit) throws IOException {
+        if (blob.length < 4) {
+            throw new IOException("Track is too short");
+        }
+        int length = (blob[0] & 0xff) << 24 | (blob[1] & 0xff) << 16 | (blob[2] & 0xff) << 8 | (blob[3] & 0xff);
+        if (length < 0) {
+            throw new IOException("Invalid track length " + length);
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(blob, 4, blob.length - 4);
+            byte[] bytes = new byte[Math.min(length, limit)];
+            int size = 0;
+            while (size < bytes.length) {
+                int read = inflater.inflate(bytes, size, bytes.length - size);
+                if (read == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IOException("Track is truncated");
+                }
+                size += read;
+            }
+            return bytes;
+        } catch (DataFormatException e) {
+            throw new IOException("Track is corrupt", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static class Writer {
+
+        byte[] bytes;
+        int length;
+
+        Writer(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        void writeDeltas(long[] values, int count) {
+            long last = 0;
+            for (int i = 0; i < count; i++) {
+                writeSigned(values[i] - last);
+                last = values[i];
+            }
+        }
+
+        void writeDeltas(int[] values, int count) {
+            int last = 0;
+            for (int i = 0; i < count; i++) {
+                writeSigned(values[i] - last);
+                last = values[i];
+            }
+        }
+
+        /**
+         * The values are rounded to fixed point before the difference is calculated, so the rounding errors don't add up
+         */
+        void writeDeltas(double[] values, double scale, int count) {
+            long last = 0;
+            for (int i = 0; i < count; i++) {
+                long value = Math.round(values[i] * scale);
+                writeSigned(value - last);
+                last = value;
+            }
+        }
+
+        void writeSigned(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeVarLong(long value) {
+            if (length + 10 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + 10));
+            }
+            while ((value & ~0x7fL) != 0) {
+                bytes[length++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+    }
+
+    private static class Reader {
+
+        final byte[] bytes;
+        int position;
+
+        Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        void readDeltas(long[] values) throws IOException {
+            long value = 0;
+            for (int i = 0; i < values.length; i++) {
+                value += readSigned();
+                values[i] = value;
+            }
+        }
+
+        void readDeltas(int[] values) throws IOException {
+            int value = 0;
+            for (int i = 0; i < values.length; i++) {
+                value += (int) readSigned();
+                values[i] = value;
+            }
+        }
+
+        void readDeltas(double[] values, double scale) throws IOException {
+            long value = 0;
+            for (int i = 0; i < values.length; i++) {
+                value += readSigned();
+                values[i] = value / scale;
+            }
+        }
+
+        long readSigned() throws IOException {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position == bytes.length) {
+                    throw new IOException("Track is truncated");
+                }
+                byte b = bytes[position++];
+                value |= (long) (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Invalid varint");
+        }
+    }
+}
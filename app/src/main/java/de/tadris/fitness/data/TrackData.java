@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.data;
+
+/**
+ * Samples of a workout in one primitive array per value, as decoded by {@link TrackCodec}
+ */
+public class TrackData {
+
+    public final int count;
+    public final long[] absoluteTimes;
+    public final long[] relativeTimes;
+    public final double[] lats;
+    public final double[] lons;
+    public final double[] elevations;
+    public final double[] speeds;
+    public final int[] segments;
+
+    public TrackData(int count) {
+        this.count = count;
+        absoluteTimes = new long[count];
+        relativeTimes = new long[count];
+        lats = new double[count];
+        lons = new double[count];
+        elevations = new double[count];
+        speeds = new double[count];
+        segments = new int[count];
+    }
+
+    public static TrackData fromSamples(WorkoutSample[] samples) {
+        TrackData data = new TrackData(samples.length);
+        for (int i = 0; i < samples.length; i++) {
+            WorkoutSample sample = samples[i];
+            data.absoluteTimes[i] = sample.absoluteTime;
+            data.relativeTimes[i] = sample.relativeTime;
+            data.lats[i] = sample.lat;
+            data.lons[i] = sample.lon;
+            data.elevations[i] = sample.elevation;
+            data.speeds[i] = sample.speed;
+            data.segments[i] = sample.segment;
+        }
+        return data;
+    }
+
+    public WorkoutSample[] toSamples(long workoutId) {
+        return toSamples(workoutId, 0, count);
+    }
+
+    /**
+     * @param from index of the first sample
+     * @param to   exclusive index of the last sample
+     */
+    public WorkoutSample[] toSamples(long workoutId, int from, int to) {
+        WorkoutSample[] samples = new WorkoutSample[to - from];
+        for (int i = from; i < to; i++) {
+            WorkoutSample sample = new WorkoutSample();
+            sample.workoutId = workoutId;
+            sample.seq = i;
+            sample.absoluteTime = absoluteTimes[i];
+            sample.relativeTime = relativeTimes[i];
+            sample.lat = lats[i];
+            sample.lon = lons[i];
+            sample.elevation = elevations[i];
+            sample.speed = speeds[i];
+            sample.segment = segments[i];
+            samples[i - from] = sample;
+        }
+        return samples;
+    }
+}
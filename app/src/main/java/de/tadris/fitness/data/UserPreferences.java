@@ -43,6 +43,20 @@ public class UserPreferences {
         return preferences.getInt("spokenUpdateDistancePeriod", 0);
     }
 
+    /**
+     * @return time in seconds the user has to be slow until the recording is paused automatically
+     */
+    public int getAutoPauseGracePeriod(){
+        return Integer.parseInt(preferences.getString("autoPauseGracePeriod", "5"));
+    }
+
+    /**
+     * @return whether the samples of new workouts are stored as one compressed track
+     */
+    public boolean isSampleCompressionEnabled(){
+        return preferences.getBoolean("compressSamples", false);
+    }
+
     public String getMapStyle(){
         return preferences.getString("mapStyle", "osm.mapnik");
     }
@@ -29,6 +29,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.TimeZone;
 
 @Entity(tableName = "workout")
 @JsonIgnoreProperties(ignoreUnknown = true)
@@ -40,6 +41,12 @@ public class Workout{
     public long start;
     public long end;
 
+    /**
+     * Offset of the local time at the start to UTC in milliseconds. The {@link WorkoutTotal}s count the workout
+     * in this local time, so it stays in its week when the time zone of the device changes.
+     */
+    public Long timeZoneOffset;
+
     public long duration;
 
     public long pauseDuration;
@@ -78,6 +85,13 @@ public class Workout{
 
     public boolean edited;
 
+    /**
+     * True while the workout is being recorded. Samples are written during the recording,
+     * the other values are set when it is finished.
+     */
+    @JsonIgnore
+    public boolean inProgress;
+
     public String toString(){
         if(comment.length() > 2){
             return comment;
@@ -91,6 +105,40 @@ public class Workout{
         return SimpleDateFormat.getDateTimeInstance().format(new Date(start));
     }
 
+    /**
+     * Sets the start and the offset of the current time zone at the start
+     */
+    @JsonIgnore
+    public void setStartInLocalTime(long start) {
+        this.start = start;
+        this.timeZoneOffset = (long) TimeZone.getDefault().getOffset(start);
+    }
+
+    /**
+     * @return a workout with the same values, it can be written on another thread while this one is changed
+     */
+    public Workout copy() {
+        Workout workout = new Workout();
+        workout.id = id;
+        workout.start = start;
+        workout.end = end;
+        workout.timeZoneOffset = timeZoneOffset;
+        workout.duration = duration;
+        workout.pauseDuration = pauseDuration;
+        workout.comment = comment;
+        workout.length = length;
+        workout.avgSpeed = avgSpeed;
+        workout.topSpeed = topSpeed;
+        workout.avgPace = avgPace;
+        workout.workoutTypeId = workoutTypeId;
+        workout.ascent = ascent;
+        workout.descent = descent;
+        workout.calorie = calorie;
+        workout.edited = edited;
+        workout.inProgress = inProgress;
+        return workout;
+    }
+
     @JsonIgnore
     public WorkoutType getWorkoutType() {
         return WorkoutType.getTypeById(workoutTypeId);
@@ -49,7 +49,7 @@ public class WorkoutBuilder {
         Workout workout = new Workout();
 
         // Calculate values
-        workout.start = start.getTimeInMillis();
+        workout.setStartInLocalTime(start.getTimeInMillis());
         workout.duration = duration;
         workout.end = workout.start + workout.duration;
 
@@ -74,10 +74,14 @@ public class WorkoutBuilder {
         return workout;
     }
 
-    public Workout insertWorkout(Context context) {
+    /**
+     * Creates the workout and inserts it in the background
+     *
+     * @param callback called with the workout when it was inserted
+     */
+    public void insertWorkout(Context context, WorkoutRepository.Callback<Workout> callback, WorkoutRepository.ErrorCallback errorCallback) {
         Workout workout = create(context);
-        Instance.getInstance(context).db.workoutDao().insertWorkout(workout);
-        return workout;
+        Instance.getInstance(context).workoutRepository.insertWorkout(workout, result -> callback.onResult(workout), errorCallback);
     }
 
     public WorkoutType getWorkoutType() {
@@ -22,20 +22,63 @@ package de.tadris.fitness.data;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
 import androidx.room.Update;
 
 @Dao
 public interface WorkoutDao {
 
-    @Query("SELECT * FROM workout_sample WHERE workout_id = :workout_id")
+    @Query("SELECT * FROM workout_sample WHERE workout_id = :workout_id ORDER BY seq")
     WorkoutSample[] getAllSamplesOfWorkout(long workout_id);
 
-    @Query("SELECT * FROM workout ORDER BY start DESC")
+    @Query("SELECT * FROM workout WHERE inProgress = 0 ORDER BY start DESC")
     Workout[] getWorkouts();
 
-    @Query("SELECT * FROM workout_sample")
-    WorkoutSample[] getSamples();
+    @Query("SELECT * FROM workout WHERE id = :id")
+    Workout getWorkoutById(long id);
+
+    /**
+     * @return the newest workouts for the workout list
+     */
+    @Query("SELECT id, start, duration, length, comment, workoutType FROM workout WHERE inProgress = 0 " +
+            "ORDER BY start DESC, id DESC LIMIT :count")
+    WorkoutListItem[] getWorkoutListItems(int count);
+
+    /**
+     * @return the workouts for the workout list that are older than the given one
+     */
+    @Query("SELECT id, start, duration, length, comment, workoutType FROM workout WHERE inProgress = 0 " +
+            "AND (start < :start OR (start = :start AND id < :id)) ORDER BY start DESC, id DESC LIMIT :count")
+    WorkoutListItem[] getWorkoutListItemsBefore(long start, long id, int count);
+
+    @Query("DELETE FROM workout WHERE id = :id")
+    void deleteWorkoutById(long id);
+
+    /**
+     * Chunk of the samples of all finished workouts, see {@link SampleIterator}.
+     * The few workouts in progress are excluded, so the range of the primary key is scanned instead of every workout.
+     *
+     * @return at most count samples after the key (workoutId, seq)
+     */
+    @Query("SELECT * FROM workout_sample WHERE workout_id >= :workoutId AND (workout_id > :workoutId OR seq > :seq) " +
+            "AND workout_id NOT IN (SELECT id FROM workout WHERE inProgress = 1) ORDER BY workout_id, seq LIMIT :count")
+    WorkoutSample[] getSamplesAfter(long workoutId, int seq, int count);
+
+    @Query("SELECT COUNT(*) FROM workout_sample WHERE workout_id NOT IN (SELECT id FROM workout WHERE inProgress = 1)")
+    int getSampleCount();
+
+    /**
+     * @return at most count samples of the workout, starting with the given index
+     */
+    @Query("SELECT * FROM workout_sample WHERE workout_id = :workout_id AND seq >= :fromSeq ORDER BY seq LIMIT :count")
+    WorkoutSample[] getSamplesOfWorkout(long workout_id, int fromSeq, int count);
+
+    /**
+     * @return samples of the workout whose relative time is in the range, including both ends
+     */
+    @Query("SELECT * FROM workout_sample WHERE workout_id = :workout_id AND relativeTime BETWEEN :fromTime AND :toTime ORDER BY seq")
+    WorkoutSample[] getSamplesInTimeRange(long workout_id, long fromTime, long toTime);
 
     @Insert
     void insertWorkoutAndSamples(Workout workout, WorkoutSample[] samples);
@@ -52,5 +95,39 @@ public interface WorkoutDao {
     @Insert
     void insertSample(WorkoutSample sample);
 
+    @Insert
+    void insertSamples(WorkoutSample[] samples);
+
+    @Query("DELETE FROM workout_sample WHERE workout_id = :workout_id")
+    void deleteSamplesOfWorkout(long workout_id);
+
+    @Query("UPDATE workout_sample SET elevation = elevation + :offset WHERE workout_id = :workout_id")
+    void addElevationOffset(long workout_id, double offset);
+
+    @Query("SELECT * FROM workout_track WHERE workout_id = :workout_id")
+    WorkoutTrack getTrack(long workout_id);
+
+    @Query("SELECT workout_id FROM workout_track WHERE workout_id IN (SELECT id FROM workout WHERE inProgress = 0) ORDER BY workout_id")
+    long[] getTrackWorkoutIds();
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertTrack(WorkoutTrack track);
+
+    /**
+     * Deletes workouts whose recording was interrupted. Their samples are deleted by the foreign key.
+     */
+    @Query("DELETE FROM workout WHERE inProgress = 1")
+    void deleteWorkoutsInProgress();
+
+    /**
+     * @param periodType one of the period types of {@link WorkoutTotalTable}
+     * @return totals of all workout types, newest period first
+     */
+    @Query("SELECT * FROM workout_total WHERE periodType = :periodType ORDER BY period DESC, workoutType")
+    WorkoutTotal[] getTotals(int periodType);
+
+    @Query("SELECT * FROM workout_total WHERE periodType = :periodType AND workoutType = :workoutTypeId ORDER BY period DESC")
+    WorkoutTotal[] getTotals(int periodType, String workoutTypeId);
+
 
 }
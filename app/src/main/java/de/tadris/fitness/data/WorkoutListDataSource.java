@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.data;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Loads the workout list page by page in the background.
+ * <p>
+ * Only the columns of {@link WorkoutListItem} are read. A page is loaded when the list comes close to
+ * the end of the loaded items. When the workout table changes, the loaded range is read again, so the
+ * list can be updated with a diff instead of being reset. Every update is a new list, the lists are
+ * passed to the {@link Listener} on the notify executor.
+ */
+public class WorkoutListDataSource {
+
+    static final int PAGE_SIZE = 50;
+
+    /**
+     * The next page is loaded if the list shows one of the last items
+     */
+    static final int PREFETCH_DISTANCE = PAGE_SIZE / 2;
+
+    private final AppDatabase db;
+    private final Executor executor;
+    private final Executor notifyExecutor;
+    private final Listener listener;
+    private final InvalidationTracker.Observer observer = new InvalidationTracker.Observer("workout") {
+        @Override
+        public void onInvalidated(@NonNull Set<String> tables) {
+            refresh();
+        }
+    };
+
+    // Only changed on the executor
+    private List<WorkoutListItem> items = Collections.emptyList();
+    private boolean endReached = false;
+
+    private volatile int loadedCount = 0;
+    private volatile boolean loading = false;
+    private volatile boolean closed = false;
+
+    /**
+     * @param executor has to run the tasks one after another, see {@link WorkoutRepository#createWorkoutListDataSource(Listener)}
+     */
+    WorkoutListDataSource(AppDatabase db, Executor executor, Executor notifyExecutor, Listener listener) {
+        this.db = db;
+        this.executor = executor;
+        this.notifyExecutor = notifyExecutor;
+        this.listener = listener;
+    }
+
+    /**
+     * Loads the first page and starts observing the workout table
+     */
+    public void start() {
+        db.getInvalidationTracker().addObserver(observer);
+        refresh();
+    }
+
+    public void close() {
+        db.getInvalidationTracker().removeObserver(observer);
+        closed = true;
+    }
+
+    /**
+     * Loads the next page if the item at the given position is close to the end of the loaded items.
+     * Called when the item is shown.
+     */
+    public void loadAround(int position) {
+        if (loading || position < loadedCount - PREFETCH_DISTANCE || closed) {
+            return;
+        }
+        loading = true;
+        executor.execute(this::loadNextPage);
+    }
+
+    /**
+     * Reads all loaded items again
+     */
+    public void refresh() {
+        if (!closed) {
+            executor.execute(this::reload);
+        }
+    }
+
+    private void loadNextPage() {
+        if (endReached) {
+            loading = false;
+            return;
+        }
+        WorkoutListItem[] page;
+        if (items.isEmpty()) {
+            page = db.workoutDao().getWorkoutListItems(PAGE_SIZE);
+        } else {
+            WorkoutListItem last = items.get(items.size() - 1);
+            page = db.workoutDao().getWorkoutListItemsBefore(last.start, last.id, PAGE_SIZE);
+        }
+        endReached = page.length < PAGE_SIZE;
+        List<WorkoutListItem> newItems = new ArrayList<>(items.size() + page.length);
+        newItems.addAll(items);
+        newItems.addAll(Arrays.asList(page));
+        publish(newItems);
+        loading = false;
+    }
+
+    private void reload() {
+        int count = Math.max(items.size(), PAGE_SIZE);
+        WorkoutListItem[] loaded = db.workoutDao().getWorkoutListItems(count);
+        endReached = loaded.length < count;
+        publish(Arrays.asList(loaded));
+    }
+
+    private void publish(List<WorkoutListItem> newItems) {
+        items = Collections.unmodifiableList(newItems);
+        loadedCount = items.size();
+        List<WorkoutListItem> published = items;
+        notifyExecutor.execute(() -> {
+            if (!closed) {
+                listener.onItemsLoaded(published);
+            }
+        });
+    }
+
+    public interface Listener {
+        /**
+         * @param items all items that are loaded, newest first
+         */
+        void onItemsLoaded(List<WorkoutListItem> items);
+    }
+}
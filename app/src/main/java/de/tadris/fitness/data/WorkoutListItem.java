@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.data;
+
+import androidx.room.ColumnInfo;
+
+/**
+ * Columns of a {@link Workout} that are shown in the workout list
+ */
+public class WorkoutListItem {
+
+    public long id;
+
+    public long start;
+
+    public long duration;
+
+    /**
+     * Length of workout in meters
+     */
+    public int length;
+
+    public String comment;
+
+    @ColumnInfo(name = "workoutType")
+    public String workoutTypeId;
+
+    public WorkoutType getWorkoutType() {
+        return WorkoutType.getTypeById(workoutTypeId);
+    }
+
+    /**
+     * @return whether the item shows the same values as the other one
+     */
+    public boolean hasSameContents(WorkoutListItem other) {
+        return start == other.start
+                && duration == other.duration
+                && length == other.length
+                && (comment != null ? comment.equals(other.comment) : other.comment == null)
+                && (workoutTypeId != null ? workoutTypeId.equals(other.workoutTypeId) : other.workoutTypeId == null);
+    }
+}
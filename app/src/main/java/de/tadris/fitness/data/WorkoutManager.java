@@ -36,15 +36,4 @@ public class WorkoutManager {
         }
     }
 
-    public static void calculateInclination(List<WorkoutSample> samples){
-        samples.get(0).tmpInclination= 0;
-        for(int i= 1; i < samples.size(); i++){
-            WorkoutSample sample= samples.get(i);
-            WorkoutSample lastSample= samples.get(i);
-            double elevationDifference= sample.elevation - sample.elevation;
-            double distance= sample.toLatLong().sphericalDistance(lastSample.toLatLong());
-            sample.tmpInclination= (float)(elevationDifference*100/distance);
-        }
-    }
-
 }
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.data;
+
+import android.util.Log;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Accesses the workouts in the database without blocking the caller.
+ * <p>
+ * All queries run on a pool of {@link #THREAD_COUNT} threads. Writes are executed one after another in
+ * the order they were requested, reads may run in parallel to them. Results are passed to the
+ * {@link Callback} and failures to the {@link ErrorCallback} on the result executor, which is the main
+ * thread in the app. The returned futures can be used to cancel a request, the callbacks aren't called then.
+ */
+public class WorkoutRepository {
+
+    private static final String TAG = "WorkoutRepository";
+
+    static final int THREAD_COUNT = 2;
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final AppDatabase db;
+    private final Executor resultExecutor;
+    private final ThreadPoolExecutor executor;
+    private final Executor writeExecutor;
+
+    public WorkoutRepository(AppDatabase db, Executor resultExecutor) {
+        this.db = db;
+        this.resultExecutor = resultExecutor;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(THREAD_COUNT, THREAD_COUNT, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> new Thread(runnable, "Database-" + threadCount.incrementAndGet()));
+        this.executor.allowCoreThreadTimeOut(true);
+        this.writeExecutor = new SerialExecutor(executor);
+    }
+
+    public Future<Workout> getWorkout(long id, Callback<Workout> callback, ErrorCallback errorCallback) {
+        return submit(executor, () -> db.workoutDao().getWorkoutById(id), callback, errorCallback);
+    }
+
+    public Future<WorkoutSample[]> getSamples(long workoutId, Callback<WorkoutSample[]> callback, ErrorCallback errorCallback) {
+        return submit(executor, () -> SampleStorage.getSamples(db, workoutId), callback, errorCallback);
+    }
+
+    /**
+     * Loads the samples of the workout whose relative time is in the range, for example the visible part of a diagram
+     */
+    public Future<WorkoutSample[]> getSamplesInTimeRange(long workoutId, long fromTime, long toTime, Callback<WorkoutSample[]> callback, ErrorCallback errorCallback) {
+        return submit(executor, () -> SampleStorage.getSamplesInTimeRange(db, workoutId, fromTime, toTime), callback, errorCallback);
+    }
+
+    /**
+     * @param periodType one of the period types of {@link WorkoutTotalTable}
+     */
+    public Future<WorkoutTotal[]> getTotals(int periodType, Callback<WorkoutTotal[]> callback, ErrorCallback errorCallback) {
+        return submit(executor, () -> db.workoutDao().getTotals(periodType), callback, errorCallback);
+    }
+
+    /**
+     * @param callback called when the workout was inserted, can be null
+     */
+    public Future<Void> insertWorkout(Workout workout, Callback<Void> callback, ErrorCallback errorCallback) {
+        return write(() -> db.workoutDao().insertWorkout(workout), callback, errorCallback);
+    }
+
+    /**
+     * @param callback called when the workout was updated, can be null
+     */
+    public Future<Void> updateWorkout(Workout workout, Callback<Void> callback, ErrorCallback errorCallback) {
+        return write(() -> db.workoutDao().updateWorkout(workout), callback, errorCallback);
+    }
+
+    /**
+     * Deletes the workout and its samples
+     *
+     * @param callback called when the workout was deleted, can be null
+     */
+    public Future<Void> deleteWorkout(long id, Callback<Void> callback, ErrorCallback errorCallback) {
+        return write(() -> db.workoutDao().deleteWorkoutById(id), callback, errorCallback);
+    }
+
+    /**
+     * Runs a task that accesses the database on the pool of the repository
+     *
+     * @param callback      called with the result of the task, can be null
+     * @param errorCallback called if the task failed, can be null if the failure is only logged
+     */
+    public <T> Future<T> submit(Callable<T> task, Callback<T> callback, ErrorCallback errorCallback) {
+        return submit(executor, task, callback, errorCallback);
+    }
+
+    /**
+     * Runs a task that writes to the database after the writes that were requested before
+     *
+     * @param callback      called with the result of the task, can be null
+     * @param errorCallback called if the task failed, can be null if the failure is only logged
+     */
+    public <T> Future<T> submitWrite(Callable<T> task, Callback<T> callback, ErrorCallback errorCallback) {
+        return submit(writeExecutor, task, callback, errorCallback);
+    }
+
+    /**
+     * Executor for writes that have to be ordered with the writes of the repository, for example the
+     * samples of a running recording. The tasks are run on the pool, failures aren't reported.
+     */
+    public Executor getWriteExecutor() {
+        return writeExecutor;
+    }
+
+    /**
+     * Creates a data source that loads the workout list on the pool of the repository
+     */
+    public WorkoutListDataSource createWorkoutListDataSource(WorkoutListDataSource.Listener listener) {
+        return new WorkoutListDataSource(db, new SerialExecutor(executor), resultExecutor, listener);
+    }
+
+    private Future<Void> write(Runnable write, Callback<Void> callback, ErrorCallback errorCallback) {
+        return submit(writeExecutor, () -> {
+            write.run();
+            return null;
+        }, callback, errorCallback);
+    }
+
+    private <T> Future<T> submit(Executor executor, Callable<T> task, Callback<T> callback, ErrorCallback errorCallback) {
+        FutureTask<T> future = new FutureTask<T>(task) {
+            // The result might already be posted when the future is cancelled
+            private volatile boolean discarded = false;
+
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                discarded = true;
+                return super.cancel(mayInterruptIfRunning);
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    return;
+                }
+                try {
+                    T result = get();
+                    if (callback != null) {
+                        resultExecutor.execute(() -> {
+                            if (!discarded) {
+                                callback.onResult(result);
+                            }
+                        });
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    onError(e.getCause());
+                }
+            }
+
+            private void onError(Throwable cause) {
+                Log.e(TAG, "Database task failed", cause);
+                if (errorCallback != null) {
+                    Exception error = cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+                    resultExecutor.execute(() -> {
+                        if (!discarded) {
+                            errorCallback.onError(error);
+                        }
+                    });
+                }
+            }
+        };
+        executor.execute(future);
+        return future;
+    }
+
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    public interface ErrorCallback {
+        void onError(Exception error);
+    }
+}
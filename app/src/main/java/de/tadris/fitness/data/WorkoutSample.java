@@ -23,17 +23,19 @@ import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.ForeignKey;
 import androidx.room.Ignore;
-import androidx.room.PrimaryKey;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-import com.github.mikephil.charting.data.Entry;
 
 import org.mapsforge.core.model.LatLong;
 
 import static androidx.room.ForeignKey.CASCADE;
 
-@Entity(tableName = "workout_sample",
+/**
+ * A position of a workout. The table is created by {@link SampleTable}.
+ */
+@Entity(tableName = SampleTable.NAME,
+        primaryKeys = {"workout_id", "seq"},
         foreignKeys = @ForeignKey(
                 entity = Workout.class,
                 parentColumns = "id",
@@ -42,12 +44,14 @@ import static androidx.room.ForeignKey.CASCADE;
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class WorkoutSample{
 
-    @PrimaryKey
-    public long id;
-
     @ColumnInfo(name = "workout_id")
     public long workoutId;
 
+    /**
+     * Index of the sample in the workout
+     */
+    public int seq;
+
     public long absoluteTime;
 
     public long relativeTime;
@@ -60,30 +64,15 @@ public class WorkoutSample{
 
     public double speed;
 
-    @JsonIgnore
-    @Ignore
-    public Entry tmpHeightEntry;
-
-    @JsonIgnore
-    @Ignore
-    public Entry tmpSpeedEntry;
+    /**
+     * Index of the track segment, a new segment starts after every pause
+     */
+    public int segment;
 
     @JsonIgnore
     @Ignore
     public double tmpRoundedSpeed;
 
-    @JsonIgnore
-    @Ignore
-    public double tmpElevation;
-
-    @JsonIgnore
-    @Ignore
-    public float tmpPressure;
-
-    @JsonIgnore
-    @Ignore
-    public float tmpInclination;
-
     public LatLong toLatLong(){
         return new LatLong(lat, lon);
     }
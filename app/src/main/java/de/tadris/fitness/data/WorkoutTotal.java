@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.data;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+
+/**
+ * Sums of the finished workouts of one type in a week, month or year, see {@link WorkoutTotalTable}
+ */
+@Entity(tableName = WorkoutTotalTable.NAME, primaryKeys = {"periodType", "period", "workoutType"})
+public class WorkoutTotal {
+
+    /**
+     * One of {@link WorkoutTotalTable#PERIOD_WEEK}, {@link WorkoutTotalTable#PERIOD_MONTH} and {@link WorkoutTotalTable#PERIOD_YEAR}
+     */
+    public int periodType;
+
+    /**
+     * First day of the period as yyyy-MM-dd
+     */
+    @NonNull
+    public String period = "";
+
+    @NonNull
+    @ColumnInfo(name = "workoutType")
+    public String workoutTypeId = "";
+
+    public int count;
+
+    public long duration;
+
+    /**
+     * Length in meters
+     */
+    public long length;
+
+    public long calorie;
+
+    public double ascent;
+
+    public double descent;
+
+    public WorkoutType getWorkoutType() {
+        return WorkoutType.getTypeById(workoutTypeId);
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.data;
+
+/**
+ * SQL of the table that stores the {@link WorkoutTotal}s.
+ * <p>
+ * The totals are maintained by triggers on the workout table, so every insert, update and delete of a
+ * finished workout changes the totals in the same transaction, regardless of which code writes the workout.
+ * A period is identified by the date of its first day in local time, weeks start on Monday.
+ * The local time is the one at the start of the workout stored in {@link Workout#timeZoneOffset}, not the current
+ * time zone of the device, otherwise a workout could be subtracted from another period than it was added to.
+ * Workouts that are still recorded are not counted.
+ */
+public final class WorkoutTotalTable {
+
+    public static final String NAME = "workout_total";
+
+    public static final int PERIOD_WEEK = 0;
+    public static final int PERIOD_MONTH = 1;
+    public static final int PERIOD_YEAR = 2;
+
+    private static final int[] PERIODS = {PERIOD_WEEK, PERIOD_MONTH, PERIOD_YEAR};
+
+    private static final String COLUMNS = "periodType, period, workoutType, count, duration, length, calorie, ascent, descent";
+
+    private static final String[] TRIGGERS = {"workout_total_insert", "workout_total_delete", "workout_total_update_old", "workout_total_update_new"};
+
+    private WorkoutTotalTable() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @return statement that creates the table, has to match the {@link WorkoutTotal} entity
+     */
+    public static String getCreateStatement() {
+        return "CREATE TABLE " + NAME + " (" +
+                "periodType INTEGER NOT NULL," +
+                "period TEXT NOT NULL," +
+                "workoutType TEXT NOT NULL," +
+                "count INTEGER NOT NULL," +
+                "duration INTEGER NOT NULL," +
+                "length INTEGER NOT NULL," +
+                "calorie INTEGER NOT NULL," +
+                "ascent REAL NOT NULL," +
+                "descent REAL NOT NULL," +
+                "PRIMARY KEY (periodType, period, workoutType))";
+    }
+
+    /**
+     * @return statement that sets the offset of the workouts without one to the offset of the current time zone
+     */
+    public static String getFillTimeZoneOffsetStatement() {
+        return "UPDATE workout SET timeZoneOffset = " +
+                "(strftime('%s', start / 1000, 'unixepoch', 'localtime') - start / 1000) * 1000 " +
+                "WHERE timeZoneOffset IS NULL";
+    }
+
+    public static String[] getCreateTriggerStatements() {
+        return new String[]{
+                "CREATE TRIGGER " + TRIGGERS[0] + " AFTER INSERT ON workout WHEN NEW.inProgress = 0 BEGIN " + getAddStatements("NEW") + "END",
+                "CREATE TRIGGER " + TRIGGERS[1] + " AFTER DELETE ON workout WHEN OLD.inProgress = 0 BEGIN " + getSubtractStatements("OLD") + "END",
+                "CREATE TRIGGER " + TRIGGERS[2] + " AFTER UPDATE ON workout WHEN OLD.inProgress = 0 BEGIN " + getSubtractStatements("OLD") + "END",
+                "CREATE TRIGGER " + TRIGGERS[3] + " AFTER UPDATE ON workout WHEN NEW.inProgress = 0 BEGIN " + getAddStatements("NEW") + "END"
+        };
+    }
+
+    public static String[] getDropTriggerStatements() {
+        String[] statements = new String[TRIGGERS.length];
+        for (int i = 0; i < TRIGGERS.length; i++) {
+            statements[i] = "DROP TRIGGER IF EXISTS " + TRIGGERS[i];
+        }
+        return statements;
+    }
+
+    /**
+     * @return statements that compute all totals from the workout table
+     */
+    public static String[] getRebuildStatements() {
+        String[] statements = new String[PERIODS.length + 1];
+        statements[0] = "DELETE FROM " + NAME;
+        for (int i = 0; i < PERIODS.length; i++) {
+            statements[i + 1] = "INSERT INTO " + NAME + " (" + COLUMNS + ") " +
+                    "SELECT " + PERIODS[i] + ", " + getPeriod(PERIODS[i], "start", "timeZoneOffset") + ", " + getWorkoutType("workoutType") + ", " +
+                    "COUNT(*), SUM(duration), SUM(length), SUM(calorie), SUM(ascent), SUM(descent) " +
+                    "FROM workout WHERE inProgress = 0 GROUP BY 2, 3";
+        }
+        return statements;
+    }
+
+    /**
+     * @param start          column with the start of the workout in milliseconds
+     * @param timeZoneOffset column with the offset of the local time at the start in milliseconds
+     * @return expression of the date of the first day of the period that contains the start
+     */
+    static String getPeriod(int periodType, String start, String timeZoneOffset) {
+        // Workouts without an offset are counted in UTC
+        String localTime = "date((" + start + " + IFNULL(" + timeZoneOffset + ", 0)) / 1000, 'unixepoch', ";
+        switch (periodType) {
+            case PERIOD_WEEK:
+                // The next Sunday, unless it is a Sunday, and back to Monday
+                return localTime + "'weekday 0', '-6 days')";
+            case PERIOD_MONTH:
+                return localTime + "'start of month')";
+            case PERIOD_YEAR:
+                return localTime + "'start of year')";
+            default:
+                throw new IllegalArgumentException("Unknown period type " + periodType);
+        }
+    }
+
+    private static String getWorkoutType(String column) {
+        // Like WorkoutType.getTypeById
+        return "IFNULL(" + column + ", '" + WorkoutType.OTHER.id + "')";
+    }
+
+    private static String getKey(int periodType, String row) {
+        return "periodType = " + periodType + " AND period = " + getPeriod(periodType, row + ".start", row + ".timeZoneOffset") +
+                " AND workoutType = " + getWorkoutType(row + ".workoutType");
+    }
+
+    private static String getAddStatements(String row) {
+        StringBuilder builder = new StringBuilder();
+        for (int periodType : PERIODS) {
+            builder.append("INSERT OR IGNORE INTO ").append(NAME).append(" (").append(COLUMNS).append(") VALUES (")
+                    .append(periodType).append(", ").append(getPeriod(periodType, row + ".start", row + ".timeZoneOffset")).append(", ")
+                    .append(getWorkoutType(row + ".workoutType")).append(", 0, 0, 0, 0, 0, 0); ");
+            builder.append(getUpdateStatement(periodType, row, '+'));
+        }
+        return builder.toString();
+    }
+
+    private static String getSubtractStatements(String row) {
+        StringBuilder builder = new StringBuilder();
+        for (int periodType : PERIODS) {
+            builder.append(getUpdateStatement(periodType, row, '-'));
+            builder.append("DELETE FROM ").append(NAME).append(" WHERE ").append(getKey(periodType, row)).append(" AND count = 0; ");
+        }
+        return builder.toString();
+    }
+
+    private static String getUpdateStatement(int periodType, String row, char operator) {
+        return "UPDATE " + NAME + " SET " +
+                "count = count " + operator + " 1, " +
+                "duration = duration " + operator + " " + row + ".duration, " +
+                "length = length " + operator + " " + row + ".length, " +
+                "calorie = calorie " + operator + " " + row + ".calorie, " +
+                "ascent = ascent " + operator + " " + row + ".ascent, " +
+                "descent = descent " + operator + " " + row + ".descent " +
+                "WHERE " + getKey(periodType, row) + "; ";
+    }
+}
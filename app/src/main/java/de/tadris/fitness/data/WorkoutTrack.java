@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.data;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.PrimaryKey;
+
+import static androidx.room.ForeignKey.CASCADE;
+
+/**
+ * All samples of a workout encoded by {@link TrackCodec}. Workouts that have a track don't have rows in the sample table.
+ */
+@Entity(tableName = "workout_track",
+        foreignKeys = @ForeignKey(
+                entity = Workout.class,
+                parentColumns = "id",
+                childColumns = "workout_id",
+                onDelete = CASCADE))
+public class WorkoutTrack {
+
+    @PrimaryKey
+    @ColumnInfo(name = "workout_id")
+    public long workoutId;
+
+    public byte[] samples;
+}
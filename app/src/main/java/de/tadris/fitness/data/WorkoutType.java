@@ -26,23 +26,29 @@ import de.tadris.fitness.R;
 
 public enum WorkoutType {
 
-    RUNNING("running", R.string.workoutTypeRunning, 7, true, R.style.Running, R.style.RunningDark),
-    HIKING("hiking", R.string.workoutTypeHiking, 7, true, R.style.Hiking, R.style.HikingDark),
-    CYCLING("cycling", R.string.workoutTypeCycling, 12, true, R.style.Bicycling, R.style.BicyclingDark),
-    OTHER("other", R.string.workoutTypeOther, 7, true, R.style.AppTheme, R.style.AppThemeDark);
+    RUNNING("running", R.string.workoutTypeRunning, 7, 12, 0.8f, 1.5f, true, R.style.Running, R.style.RunningDark),
+    HIKING("hiking", R.string.workoutTypeHiking, 7, 8, 0.3f, 0.6f, true, R.style.Hiking, R.style.HikingDark),
+    CYCLING("cycling", R.string.workoutTypeCycling, 12, 25, 1f, 2f, true, R.style.Bicycling, R.style.BicyclingDark),
+    OTHER("other", R.string.workoutTypeOther, 7, 70, 0.3f, 0.6f, true, R.style.AppTheme, R.style.AppThemeDark);
 
     public String id;
     @StringRes
     public int title;
     public int minDistance; // Minimum distance between samples
+    public double maxSpeed; // Maximum plausible speed in m/s, faster movements are GPS errors
+    public float autoPauseSpeed; // The recording is paused automatically below this speed in m/s
+    public float autoResumeSpeed; // A paused recording is resumed from this speed in m/s
     public boolean hasGPS;
     @StyleRes
     public int lightTheme, darkTheme;
 
-    WorkoutType(String id, int title, int minDistance, boolean hasGPS, int lightTheme, int darkTheme) {
+    WorkoutType(String id, int title, int minDistance, double maxSpeed, float autoPauseSpeed, float autoResumeSpeed, boolean hasGPS, int lightTheme, int darkTheme) {
         this.id = id;
         this.title = title;
         this.minDistance = minDistance;
+        this.maxSpeed = maxSpeed;
+        this.autoPauseSpeed = autoPauseSpeed;
+        this.autoResumeSpeed = autoResumeSpeed;
         this.hasGPS = hasGPS;
         this.lightTheme = lightTheme;
         this.darkTheme = darkTheme;
@@ -21,28 +21,29 @@ package de.tadris.fitness.export;
 
 import android.content.Context;
 
-import com.fasterxml.jackson.dataformat.xml.XmlMapper;
-
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.io.OutputStream;
+import java.util.Collection;
 
 import de.tadris.fitness.Instance;
 import de.tadris.fitness.R;
 import de.tadris.fitness.data.AppDatabase;
+import de.tadris.fitness.data.SampleStorage;
+import de.tadris.fitness.data.Workout;
+import de.tadris.fitness.data.WorkoutSample;
 import de.tadris.fitness.util.unit.UnitUtils;
 
 public class BackupController {
 
-    private static final int VERSION = 1;
-
     private final Context context;
     private final File output;
     private final ExportStatusListener listener;
     private AppDatabase database;
 
-    private FitoTrackDataContainer dataContainer;
+    private Workout[] workouts;
+    private Collection<WorkoutSample> samples;
 
     public BackupController(Context context, File output, ExportStatusListener listener) {
         this.context = context;
@@ -65,27 +66,21 @@ public class BackupController {
     private void init(){
         database= Instance.getInstance(context).db;
         UnitUtils.setUnit(context); // Ensure unit system is correct
-        newContainer();
-    }
-
-    private void newContainer(){
-        dataContainer= new FitoTrackDataContainer();
-        dataContainer.setVersion(VERSION);
-        dataContainer.setWorkouts(new ArrayList<>());
-        dataContainer.setSamples(new ArrayList<>());
     }
 
     private void saveWorkoutsToContainer(){
-        dataContainer.getWorkouts().addAll(Arrays.asList(database.workoutDao().getWorkouts()));
+        workouts= database.workoutDao().getWorkouts();
     }
 
-    private void saveSamplesToContainer(){
-        dataContainer.getSamples().addAll(Arrays.asList(database.workoutDao().getSamples()));
+    private void saveSamplesToContainer() throws IOException {
+        // The samples are loaded while they are written
+        samples= SampleStorage.getAllSamples(database);
     }
 
     private void writeContainerToOutputFile() throws IOException {
-        XmlMapper mapper= new XmlMapper();
-        mapper.writeValue(output, dataContainer);
+        try (OutputStream outputStream= new FileOutputStream(output)) {
+            BackupSerializer.write(BackupSerializer.createContainer(workouts, samples), outputStream);
+        }
     }
 
     public interface ExportStatusListener{
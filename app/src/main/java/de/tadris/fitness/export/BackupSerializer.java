@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.export;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+
+import de.tadris.fitness.data.Workout;
+import de.tadris.fitness.data.WorkoutSample;
+
+/**
+ * Converts the data of a backup from and to XML
+ */
+public class BackupSerializer {
+
+    /**
+     * Version of the written backups. Version 2 stores the index and segment of the samples instead of
+     * their id and the time zone offset of the workouts.
+     */
+    static final int VERSION = 2;
+
+    /**
+     * Oldest version that can still be restored
+     */
+    static final int OLDEST_VERSION = 1;
+
+    private BackupSerializer() {
+        throw new UnsupportedOperationException();
+    }
+
+    public static FitoTrackDataContainer createContainer(Workout[] workouts, WorkoutSample[] samples) {
+        return createContainer(workouts, Arrays.asList(samples));
+    }
+
+    /**
+     * @param samples written in the order of their iterator
+     */
+    public static FitoTrackDataContainer createContainer(Workout[] workouts, Collection<WorkoutSample> samples) {
+        FitoTrackDataContainer container = new FitoTrackDataContainer();
+        container.setVersion(VERSION);
+        container.setWorkouts(Arrays.asList(workouts));
+        container.setSamples(samples);
+        return container;
+    }
+
+    public static void write(FitoTrackDataContainer container, OutputStream output) throws IOException {
+        XmlMapper mapper = new XmlMapper();
+        mapper.writeValue(output, container);
+    }
+
+    public static FitoTrackDataContainer read(InputStream input) throws IOException {
+        XmlMapper mapper = new XmlMapper();
+        mapper.configure(JsonParser.Feature.IGNORE_UNDEFINED, true);
+        return mapper.readValue(input, FitoTrackDataContainer.class);
+    }
+}
@@ -22,6 +22,7 @@ package de.tadris.fitness.export;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlRootElement;
 
+import java.util.Collection;
 import java.util.List;
 
 import de.tadris.fitness.data.Workout;
@@ -29,15 +30,18 @@ import de.tadris.fitness.data.WorkoutSample;
 
 @JacksonXmlRootElement(localName = "fito-track")
 @JsonIgnoreProperties(ignoreUnknown = true)
-class FitoTrackDataContainer {
+public class FitoTrackDataContainer {
 
     private int version;
     private List<Workout> workouts;
-    private List<WorkoutSample> samples;
+    /**
+     * Serialized with its iterator, so the samples of a backup can be loaded while they are written
+     */
+    private Collection<WorkoutSample> samples;
 
     public FitoTrackDataContainer(){}
 
-    public FitoTrackDataContainer(int version, List<Workout> workouts, List<WorkoutSample> samples) {
+    public FitoTrackDataContainer(int version, List<Workout> workouts, Collection<WorkoutSample> samples) {
         this.version = version;
         this.workouts = workouts;
         this.samples = samples;
@@ -59,11 +63,11 @@ class FitoTrackDataContainer {
         this.workouts = workouts;
     }
 
-    public List<WorkoutSample> getSamples() {
+    public Collection<WorkoutSample> getSamples() {
         return samples;
     }
 
-    public void setSamples(List<WorkoutSample> samples) {
+    public void setSamples(Collection<WorkoutSample> samples) {
         this.samples = samples;
     }
 
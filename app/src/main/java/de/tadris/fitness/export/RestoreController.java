@@ -22,16 +22,20 @@ package de.tadris.fitness.export;
 import android.content.Context;
 import android.net.Uri;
 
-import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
 
 import de.tadris.fitness.Instance;
 import de.tadris.fitness.R;
 import de.tadris.fitness.data.AppDatabase;
+import de.tadris.fitness.data.SampleStorage;
 import de.tadris.fitness.data.Workout;
 import de.tadris.fitness.data.WorkoutSample;
+import de.tadris.fitness.data.WorkoutTotalTable;
 
 public class RestoreController {
 
@@ -57,22 +61,31 @@ public class RestoreController {
     }
 
     private void loadDataFromFile() throws IOException {
-        XmlMapper xmlMapper = new XmlMapper();
-        xmlMapper.configure(JsonParser.Feature.IGNORE_UNDEFINED, true);
-        dataContainer = xmlMapper.readValue(context.getContentResolver().openInputStream(input), FitoTrackDataContainer.class);
+        try (InputStream inputStream = context.getContentResolver().openInputStream(input)) {
+            dataContainer = BackupSerializer.read(inputStream);
+        }
     }
 
     private void checkVersion() throws UnsupportedVersionException {
-        if (dataContainer.getVersion() != 1) {
+        // Backups of newer versions may contain data that would be lost
+        if (dataContainer.getVersion() < BackupSerializer.OLDEST_VERSION || dataContainer.getVersion() > BackupSerializer.VERSION) {
             throw new UnsupportedVersionException("Version Code" + dataContainer.getVersion() + " is unsupported!");
         }
     }
 
     private void restoreDatabase(){
         database.runInTransaction(() -> {
+            // The totals are computed once for all workouts instead of being updated for each of them,
+            // the triggers are dropped before the reset so that it doesn't subtract the deleted workouts
+            execSQL(WorkoutTotalTable.getDropTriggerStatements());
             resetDatabase();
             restoreWorkouts();
+            // Backups of older versions don't contain the time zone offset of the workouts
+            execSQL(new String[]{WorkoutTotalTable.getFillTimeZoneOffsetStatement()});
+            execSQL(WorkoutTotalTable.getRebuildStatements());
+            execSQL(WorkoutTotalTable.getCreateTriggerStatements());
             restoreSamples();
+            compressSamples();
         });
     }
 
@@ -92,12 +105,32 @@ public class RestoreController {
     private void restoreSamples(){
         listener.onStatusChanged(80, context.getString(R.string.locationData));
         if (dataContainer.getSamples() != null) {
+            // Backups of older versions don't contain the index of the samples, they are in the order of recording
+            Map<Long, Integer> sampleCounts = new HashMap<>();
             for (WorkoutSample sample : dataContainer.getSamples()) {
+                Integer count = sampleCounts.get(sample.workoutId);
+                sample.seq = count != null ? count : 0;
+                sampleCounts.put(sample.workoutId, sample.seq + 1);
                 database.workoutDao().insertSample(sample);
             }
         }
     }
 
+    private void compressSamples(){
+        if (Instance.getInstance(context).userPreferences.isSampleCompressionEnabled() && dataContainer.getWorkouts() != null) {
+            for (Workout workout : dataContainer.getWorkouts()) {
+                SampleStorage.compress(database, workout.id);
+            }
+        }
+    }
+
+    private void execSQL(String[] statements){
+        SupportSQLiteDatabase db= database.getOpenHelper().getWritableDatabase();
+        for (String statement : statements) {
+            db.execSQL(statement);
+        }
+    }
+
     public interface ImportStatusListener{
         void onStatusChanged(int progress, String action);
     }
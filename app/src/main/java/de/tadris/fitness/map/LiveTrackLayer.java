@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.map;
+
+import org.mapsforge.core.graphics.Canvas;
+import org.mapsforge.core.graphics.Paint;
+import org.mapsforge.core.graphics.Path;
+import org.mapsforge.core.graphics.Style;
+import org.mapsforge.core.model.BoundingBox;
+import org.mapsforge.core.model.LatLong;
+import org.mapsforge.core.model.Point;
+import org.mapsforge.core.util.MercatorProjection;
+import org.mapsforge.map.android.graphics.AndroidGraphicFactory;
+import org.mapsforge.map.layer.Layer;
+
+import java.util.Arrays;
+
+/**
+ * Track of a running recording. Points are appended without touching the existing ones.
+ * <p>
+ * The pixel coordinates of the points are cached for the zoom level that was drawn last, they are kept in
+ * double precision because they exceed the precision of a float at high zoom levels. A new point is only
+ * projected once and only causes a redraw if the new segment is inside the area that was drawn last.
+ * Segments outside of the drawn area are skipped.
+ */
+public class LiveTrackLayer extends Layer {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Paint paint;
+    private final float strokeWidth;
+    private final Path path = AndroidGraphicFactory.INSTANCE.createPath();
+
+    private double[] lats = new double[INITIAL_CAPACITY];
+    private double[] lons = new double[INITIAL_CAPACITY];
+    private int count = 0;
+
+    // Pixel coordinates of the first cachedCount points for cachedMapSize
+    private double[] pixelX = new double[INITIAL_CAPACITY];
+    private double[] pixelY = new double[INITIAL_CAPACITY];
+    private int cachedCount = 0;
+    private long cachedMapSize = -1;
+
+    // Area that was drawn last in pixel coordinates
+    private double drawnLeft, drawnTop, drawnRight, drawnBottom;
+    private boolean drawn = false;
+
+    public LiveTrackLayer(int color, float strokeWidth) {
+        paint = AndroidGraphicFactory.INSTANCE.createPaint();
+        paint.setColor(color);
+        paint.setStrokeWidth(strokeWidth);
+        this.strokeWidth = strokeWidth;
+        paint.setStyle(Style.STROKE);
+    }
+
+    public void addPoint(LatLong latLong) {
+        boolean redraw;
+        synchronized (this) {
+            ensureCapacity(count + 1);
+            lats[count] = latLong.latitude;
+            lons[count] = latLong.longitude;
+            count++;
+            redraw = isNewSegmentVisible();
+        }
+        if (redraw) {
+            requestRedraw();
+        }
+    }
+
+    public synchronized int getPointCount() {
+        return count;
+    }
+
+    public synchronized void clear() {
+        count = 0;
+        cachedCount = 0;
+        requestRedraw();
+    }
+
+    private boolean isNewSegmentVisible() {
+        if (!drawn || count < 2) {
+            return true;
+        }
+        updateCache(cachedMapSize);
+        int last = count - 1;
+        return Math.max(pixelX[last - 1], pixelX[last]) + strokeWidth >= drawnLeft
+                && Math.min(pixelX[last - 1], pixelX[last]) - strokeWidth <= drawnRight
+                && Math.max(pixelY[last - 1], pixelY[last]) + strokeWidth >= drawnTop
+                && Math.min(pixelY[last - 1], pixelY[last]) - strokeWidth <= drawnBottom;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > lats.length) {
+            int newCapacity = Math.max(capacity, lats.length * 2);
+            lats = Arrays.copyOf(lats, newCapacity);
+            lons = Arrays.copyOf(lons, newCapacity);
+            pixelX = Arrays.copyOf(pixelX, newCapacity);
+            pixelY = Arrays.copyOf(pixelY, newCapacity);
+        }
+    }
+
+    /**
+     * Projects the points that aren't cached yet. All points are projected again if the map size changed.
+     */
+    private void updateCache(long mapSize) {
+        if (mapSize != cachedMapSize) {
+            cachedMapSize = mapSize;
+            cachedCount = 0;
+        }
+        for (int i = cachedCount; i < count; i++) {
+            pixelX[i] = MercatorProjection.longitudeToPixelX(lons[i], mapSize);
+            pixelY[i] = MercatorProjection.latitudeToPixelY(lats[i], mapSize);
+        }
+        cachedCount = count;
+    }
+
+    @Override
+    public synchronized void draw(BoundingBox boundingBox, byte zoomLevel, Canvas canvas, Point topLeftPoint) {
+        drawnLeft = topLeftPoint.x;
+        drawnTop = topLeftPoint.y;
+        drawnRight = topLeftPoint.x + canvas.getWidth();
+        drawnBottom = topLeftPoint.y + canvas.getHeight();
+        drawn = true;
+        if (count < 2) {
+            return;
+        }
+        updateCache(MercatorProjection.getMapSize(zoomLevel, displayModel.getTileSize()));
+
+        double left = drawnLeft - strokeWidth;
+        double top = drawnTop - strokeWidth;
+        double right = drawnRight + strokeWidth;
+        double bottom = drawnBottom + strokeWidth;
+        path.clear();
+        boolean connected = false;
+        for (int i = 1; i < count; i++) {
+            double x1 = pixelX[i - 1], y1 = pixelY[i - 1], x2 = pixelX[i], y2 = pixelY[i];
+            if (Math.max(x1, x2) < left || Math.min(x1, x2) > right || Math.max(y1, y2) < top || Math.min(y1, y2) > bottom) {
+                // Not visible, the next visible segment starts a new sub path
+                connected = false;
+                continue;
+            }
+            if (!connected) {
+                path.moveTo((float) (x1 - topLeftPoint.x), (float) (y1 - topLeftPoint.y));
+                connected = true;
+            }
+            path.lineTo((float) (x2 - topLeftPoint.x), (float) (y2 - topLeftPoint.y));
+        }
+        canvas.drawPath(path, paint);
+    }
+}
@@ -21,14 +21,20 @@ package de.tadris.fitness.map;
 
 import org.mapsforge.core.graphics.Paint;
 import org.mapsforge.core.graphics.Style;
+import org.mapsforge.core.model.LatLong;
 import org.mapsforge.map.android.graphics.AndroidGraphicFactory;
+import org.mapsforge.map.layer.GroupLayer;
 import org.mapsforge.map.layer.overlay.Polyline;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import de.tadris.fitness.data.WorkoutSample;
 
-public class WorkoutLayer extends Polyline {
+/**
+ * Track of a workout, every segment is drawn as its own line so the way covered during a pause isn't shown
+ */
+public class WorkoutLayer extends GroupLayer {
 
     private static Paint getDEFAULT_PAINT_STROKE(int color) {
         Paint paint= AndroidGraphicFactory.INSTANCE.createPaint();
@@ -38,21 +44,40 @@ public class WorkoutLayer extends Polyline {
         return paint;
     }
 
+    private final Paint paintStroke;
     private final List<WorkoutSample> samples;
+    private final List<LatLong> latLongs;
 
     public WorkoutLayer(List<WorkoutSample> samples, int color) {
         this(getDEFAULT_PAINT_STROKE(color), samples);
     }
 
     private WorkoutLayer(Paint paintStroke, List<WorkoutSample> samples) {
-        super(paintStroke, AndroidGraphicFactory.INSTANCE);
+        this.paintStroke = paintStroke;
         this.samples = samples;
+        this.latLongs = new ArrayList<>(samples.size());
         init();
     }
 
     private void init(){
+        Polyline segment= null;
+        int lastSegment= 0;
         for(WorkoutSample sample : samples){
-            addPoint(sample.toLatLong());
+            if(segment == null || sample.segment != lastSegment){
+                segment= new Polyline(paintStroke, AndroidGraphicFactory.INSTANCE);
+                layers.add(segment);
+                lastSegment= sample.segment;
+            }
+            LatLong latLong= sample.toLatLong();
+            segment.addPoint(latLong);
+            latLongs.add(latLong);
         }
     }
+
+    /**
+     * @return points of all segments
+     */
+    public List<LatLong> getLatLongs() {
+        return latLongs;
+    }
 }
@@ -117,8 +117,11 @@ public class OsmTraceUploader {
 
         List<GpsTrackpoint> trackpoints= new ArrayList<>();
 
+        WorkoutSample lastSample= null;
         for(WorkoutSample sample : samples){
             GpsTrackpoint trackpoint= new GpsTrackpoint(new GpsTraceLatLong(sample));
+            trackpoint.isFirstPointInTrackSegment= lastSample == null || sample.segment != lastSample.segment;
+            lastSample= sample;
             trackpoint.time= new Date(sample.absoluteTime);
             trackpoint.elevation= (float)sample.elevation;
             trackpoints.add(trackpoint);
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.recording;
+
+import de.tadris.fitness.data.WorkoutType;
+
+/**
+ * Detects from the speed of each fix when the user stops and moves again.
+ * <p>
+ * The user stops when all fixes during the grace period are slower than the pause speed of the workout type.
+ * The pause then starts at the first of these fixes, not when it's detected. The user moves again at the
+ * first fix that reaches the resume speed, which is higher than the pause speed, so a speed around the
+ * threshold doesn't pause and resume the recording all the time.
+ * <p>
+ * Only used on the recorder thread.
+ */
+class AutoPauseDetector {
+
+    enum Event {
+        NONE, PAUSE, RESUME
+    }
+
+    private final float pauseSpeed;
+    private final float resumeSpeed;
+    private final long gracePeriod;
+
+    private boolean paused;
+
+    /**
+     * Time of the first fix of the slow fixes in a row, -1 if the last fix wasn't slow
+     */
+    private long slowSince = -1;
+
+    private long boundaryTime;
+
+    /**
+     * @param gracePeriod time in milliseconds the user has to be slow until the recording is paused
+     */
+    AutoPauseDetector(WorkoutType workoutType, long gracePeriod) {
+        this(workoutType.autoPauseSpeed, workoutType.autoResumeSpeed, gracePeriod);
+    }
+
+    AutoPauseDetector(float pauseSpeed, float resumeSpeed, long gracePeriod) {
+        if (resumeSpeed < pauseSpeed) {
+            throw new IllegalArgumentException("The resume speed has to be at least the pause speed");
+        }
+        this.pauseSpeed = pauseSpeed;
+        this.resumeSpeed = resumeSpeed;
+        this.gracePeriod = gracePeriod;
+    }
+
+    /**
+     * @param time  time of the fix
+     * @param speed speed of the fix in m/s
+     * @return the event the fix causes, its time is {@link #getBoundaryTime()}
+     */
+    Event onFix(long time, float speed) {
+        if (paused) {
+            if (speed >= resumeSpeed) {
+                paused = false;
+                boundaryTime = time;
+                return Event.RESUME;
+            }
+            return Event.NONE;
+        }
+        if (speed >= pauseSpeed) {
+            slowSince = -1;
+            return Event.NONE;
+        }
+        if (slowSince < 0) {
+            slowSince = time;
+        }
+        if (time - slowSince >= gracePeriod) {
+            paused = true;
+            boundaryTime = slowSince;
+            slowSince = -1;
+            return Event.PAUSE;
+        }
+        return Event.NONE;
+    }
+
+    /**
+     * @return time at which the recording was paused or resumed by the last event
+     */
+    long getBoundaryTime() {
+        return boundaryTime;
+    }
+
+    boolean isPaused() {
+        return paused;
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.recording;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands the GPS fixes from the location callback over to the thread that records them.
+ * <p>
+ * The queue is a ring buffer for exactly one producer and one consumer, so publishing a fix
+ * doesn't need a lock: the producer only writes {@link #tail}, the consumer only writes {@link #head}.
+ * The fixes are stored in primitive arrays that are allocated once. If the consumer falls
+ * behind by more than the capacity, new fixes are dropped and counted.
+ * <p>
+ * The consumer thread sleeps until the producer publishes a fix.
+ */
+class FixQueue {
+
+    interface FixConsumer {
+        /**
+         * @param accuracy accuracy in meters or 0 if unknown
+         * @param pressure pressure in hPa or -1 if there is no barometer
+         */
+        void onFix(long time, double lat, double lon, double altitude, float speed, float accuracy, float pressure);
+    }
+
+    private final int mask;
+    private final long[] times;
+    private final double[] lats;
+    private final double[] lons;
+    private final double[] altitudes;
+    private final float[] speeds;
+    private final float[] accuracies;
+    private final float[] pressures;
+
+    /**
+     * Index of the next fix the consumer reads
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * Index of the next fix the producer writes
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    private volatile long droppedCount;
+
+    private final FixConsumer consumer;
+    private volatile Thread consumerThread;
+    private volatile boolean stopped;
+
+    /**
+     * @param capacity capacity of the queue, has to be a power of two
+     */
+    FixQueue(int capacity, FixConsumer consumer) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity has to be a power of two: " + capacity);
+        }
+        this.mask = capacity - 1;
+        this.times = new long[capacity];
+        this.lats = new double[capacity];
+        this.lons = new double[capacity];
+        this.altitudes = new double[capacity];
+        this.speeds = new float[capacity];
+        this.accuracies = new float[capacity];
+        this.pressures = new float[capacity];
+        this.consumer = consumer;
+    }
+
+    /**
+     * Publishes a fix, may only be called from one thread at a time.
+     *
+     * @return false if the queue is full and the fix was dropped
+     */
+    boolean publish(long time, double lat, double lon, double altitude, float speed, float accuracy, float pressure) {
+        long t = tail.get();
+        if (t - head.get() > mask) {
+            droppedCount++;
+            return false;
+        }
+        int slot = (int) (t & mask);
+        times[slot] = time;
+        lats[slot] = lat;
+        lons[slot] = lon;
+        altitudes[slot] = altitude;
+        speeds[slot] = speed;
+        accuracies[slot] = accuracy;
+        pressures[slot] = pressure;
+        // Ordered write, the consumer sees the values of the slot before the new tail
+        tail.lazySet(t + 1);
+        Thread thread = consumerThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+        return true;
+    }
+
+    /**
+     * Passes all published fixes to the consumer. May only be called from one thread at a time.
+     *
+     * @return number of fixes
+     */
+    int drain() {
+        long h = head.get();
+        long t = tail.get();
+        for (long i = h; i < t; i++) {
+            int slot = (int) (i & mask);
+            consumer.onFix(times[slot], lats[slot], lons[slot], altitudes[slot], speeds[slot], accuracies[slot], pressures[slot]);
+            // Frees the slot for the producer
+            head.lazySet(i + 1);
+        }
+        return (int) (t - h);
+    }
+
+    /**
+     * Starts a thread that drains the queue whenever fixes are published
+     */
+    void start(String threadName) {
+        stopped = false;
+        consumerThread = new Thread(() -> {
+            while (!stopped) {
+                drain();
+                LockSupport.park(this);
+            }
+            drain();
+        }, threadName);
+        consumerThread.start();
+    }
+
+    /**
+     * Stops the consumer thread after it passed the remaining fixes to the consumer and waits for it
+     */
+    void stop() {
+        Thread thread = consumerThread;
+        if (thread == null) {
+            return;
+        }
+        stopped = true;
+        LockSupport.unpark(thread);
+        if (thread != Thread.currentThread()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        consumerThread = null;
+    }
+
+    int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return number of fixes that were dropped because the queue was full
+     */
+    long getDroppedCount() {
+        return droppedCount;
+    }
+}
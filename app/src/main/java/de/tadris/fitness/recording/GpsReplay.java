@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.recording;
+
+import android.location.Location;
+import android.location.LocationManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import de.tadris.fitness.data.AppDatabase;
+import de.tadris.fitness.data.SampleStorage;
+import de.tadris.fitness.data.WorkoutSample;
+import de.tadris.fitness.util.gpx.GpxReader;
+
+/**
+ * Replays the fixes of a recorded workout or a GPX file, e.g. to measure the recorder on long workouts.
+ * <p>
+ * The fixes are replayed at real time, faster by a factor or as fast as possible. The replay is also the
+ * {@link RecordingClock} of the replayed recording: its time is the time of the replayed track, so the
+ * durations and pauses of the recording are the same as in the original workout.
+ * <p>
+ * Like the GPS, the replay only delivers fixes in the interval that was requested last, see
+ * {@link LocationDispatcher#requestInterval(long)}. Without a request, all fixes are delivered.
+ */
+public class GpsReplay implements RecordingClock, LocationDispatcher.IntervalListener {
+
+    /**
+     * Speed factor to replay the fixes without waiting between them
+     */
+    public static final double AS_FAST_AS_POSSIBLE = 0;
+
+    /**
+     * The accuracy isn't stored, so every fix gets this accuracy in meters
+     */
+    static final float ACCURACY = 5;
+
+    /**
+     * The clock is this much before the first fix when the replay starts, so the recording can start before it
+     */
+    static final long LEAD_TIME = 1000;
+
+    interface Timer {
+        /**
+         * @return monotonic time in milliseconds
+         */
+        long getTime();
+
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    private static final Timer SYSTEM_TIMER = new Timer() {
+        @Override
+        public long getTime() {
+            return System.nanoTime() / 1000000;
+        }
+
+        @Override
+        public void sleep(long millis) throws InterruptedException {
+            Thread.sleep(millis);
+        }
+    };
+
+    private final SampleBuffer fixes;
+    private final double speed;
+    private final Timer timer;
+    private volatile long time;
+    private volatile int replayedCount = 0;
+    private volatile int deliveredCount = 0;
+    private volatile long interval = 0;
+
+    public static GpsReplay fromWorkout(AppDatabase db, long workoutId, double speed) throws IOException {
+        return fromSamples(SampleStorage.getSamples(db, workoutId), speed);
+    }
+
+    public static GpsReplay fromGpx(InputStream input, double speed) throws IOException {
+        return fromSamples(GpxReader.readSamples(input), speed);
+    }
+
+    public static GpsReplay fromSamples(WorkoutSample[] samples, double speed) {
+        return new GpsReplay(toBuffer(samples), speed, SYSTEM_TIMER);
+    }
+
+    static SampleBuffer toBuffer(WorkoutSample[] samples) {
+        SampleBuffer buffer = new SampleBuffer(Math.max(1, samples.length));
+        for (WorkoutSample sample : samples) {
+            buffer.add(sample.absoluteTime, sample.relativeTime, sample.lat, sample.lon, sample.elevation, (float) sample.speed, -1, sample.segment);
+        }
+        return buffer;
+    }
+
+    /**
+     * @param speed speed factor, 1 for real time or {@link #AS_FAST_AS_POSSIBLE}
+     */
+    GpsReplay(SampleBuffer fixes, double speed, Timer timer) {
+        if (fixes.getCount() == 0) {
+            throw new IllegalArgumentException("Nothing to replay");
+        }
+        if (speed < 0) {
+            throw new IllegalArgumentException("Invalid speed " + speed);
+        }
+        this.fixes = fixes;
+        this.speed = speed;
+        this.timer = timer;
+        this.time = getStartTime() - LEAD_TIME;
+    }
+
+    /**
+     * Passes all fixes to the consumer on the calling thread. Blocks until all fixes are replayed.
+     */
+    public void replay(FixQueue.FixConsumer consumer) throws InterruptedException {
+        long realStart = timer.getTime();
+        long start = getStartTime();
+        long lastDelivered = 0;
+        for (int i = 0; i < fixes.getCount(); i++) {
+            long fixTime = fixes.getAbsoluteTime(i);
+            if (speed != AS_FAST_AS_POSSIBLE) {
+                long due = realStart + (long) ((fixTime - start) / speed);
+                long wait = due - timer.getTime();
+                if (wait > 0) {
+                    timer.sleep(wait);
+                }
+            }
+            time = fixTime;
+            replayedCount = i + 1;
+            if (deliveredCount > 0 && fixTime - lastDelivered < interval) {
+                continue;
+            }
+            lastDelivered = fixTime;
+            deliveredCount++;
+            consumer.onFix(fixTime, fixes.getLat(i), fixes.getLon(i), fixes.getElevation(i), fixes.getSpeed(i), ACCURACY, fixes.getPressure(i));
+        }
+    }
+
+    /**
+     * Passes all fixes as locations to the listener, like the {@link LocationListener} service does.
+     * Blocks until all fixes are replayed.
+     */
+    public void replay(LocationListener.LocationChangeListener listener) throws InterruptedException {
+        replay((time, lat, lon, altitude, speed, accuracy, pressure) -> listener.onLocationChange(toLocation(time, lat, lon, altitude, speed, accuracy)));
+    }
+
+    private static Location toLocation(long time, double lat, double lon, double altitude, float speed, float accuracy) {
+        Location location = new Location(LocationManager.GPS_PROVIDER);
+        location.setTime(time);
+        location.setLatitude(lat);
+        location.setLongitude(lon);
+        location.setAltitude(altitude);
+        location.setSpeed(speed);
+        location.setAccuracy(accuracy);
+        return location;
+    }
+
+    /**
+     * Only fixes that are at least the interval after the last delivered fix are delivered from now on
+     */
+    @Override
+    public void onIntervalChanged(long interval) {
+        this.interval = interval;
+    }
+
+    /**
+     * @return time of the fix that was replayed last
+     */
+    @Override
+    public long currentTimeMillis() {
+        return time;
+    }
+
+    public int getFixCount() {
+        return fixes.getCount();
+    }
+
+    /**
+     * @return number of fixes that were replayed, including the ones that weren't delivered because of the interval
+     */
+    public int getReplayedCount() {
+        return replayedCount;
+    }
+
+    /**
+     * @return number of fixes that were passed to the consumer
+     */
+    public int getDeliveredCount() {
+        return deliveredCount;
+    }
+
+    public long getStartTime() {
+        return fixes.getAbsoluteTime(0);
+    }
+
+    public long getEndTime() {
+        return fixes.getAbsoluteTime(fixes.getCount() - 1);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.recording;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts values in buckets with fixed upper bounds. Values above the last bound are counted in an extra bucket.
+ */
+public class Histogram {
+
+    private final long[] bounds;
+    private final long[] counts;
+    private long count;
+    private long sum;
+    private long max;
+
+    /**
+     * @param bounds inclusive upper bounds of the buckets in ascending order
+     */
+    public Histogram(long... bounds) {
+        if (bounds.length == 0) {
+            throw new IllegalArgumentException("At least one bound is needed");
+        }
+        for (int i = 1; i < bounds.length; i++) {
+            if (bounds[i] <= bounds[i - 1]) {
+                throw new IllegalArgumentException("Bounds have to be ascending");
+            }
+        }
+        this.bounds = bounds.clone();
+        this.counts = new long[bounds.length + 1];
+    }
+
+    public synchronized void record(long value) {
+        int bucket = Arrays.binarySearch(bounds, value);
+        if (bucket < 0) {
+            bucket = -bucket - 1;
+        }
+        counts[bucket]++;
+        if (count == 0 || value > max) {
+            max = value;
+        }
+        count++;
+        sum += value;
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getMax() {
+        return max;
+    }
+
+    public synchronized double getMean() {
+        return count > 0 ? (double) sum / count : 0;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return upper bound of the bucket that contains the percentile, {@link #getMax()} for the last bucket
+     */
+    public synchronized long getPercentile(double percentile) {
+        long rank = (long) Math.ceil(percentile / 100 * count);
+        long seen = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) {
+                return Math.min(bounds[i], max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @return number of values per bucket, the keys are the upper bounds like "&lt;=50" and "&gt;1000"
+     */
+    public synchronized Map<String, Long> getBuckets() {
+        Map<String, Long> buckets = new LinkedHashMap<>();
+        for (int i = 0; i < bounds.length; i++) {
+            buckets.put("<=" + bounds[i], counts[i]);
+        }
+        buckets.put(">" + bounds[bounds.length - 1], counts[bounds.length]);
+        return buckets;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "count=" + count + ", mean=" + Math.round(getMean()) + ", p50=" + getPercentile(50)
+                + ", p95=" + getPercentile(95) + ", max=" + max;
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.recording;
+
+/**
+ * Live values of a running recording that depend on the recent samples: the current pace,
+ * the pace of the last kilometer and the splits.
+ * <p>
+ * The windows are queues of the relative time and the total distance of the samples. Both grow
+ * monotonically, so a new sample is appended at the end and the samples that fell out of the
+ * window are removed from the front. Every sample is added and removed once, so adding a sample
+ * costs O(1) amortized, independent of the length of the recording.
+ * <p>
+ * Only the recorder thread may add samples. The values are published in the {@link RecordingSnapshot}.
+ */
+class LiveMetrics {
+
+    /**
+     * Time over which the current pace is calculated
+     */
+    static final long CURRENT_PACE_WINDOW = 30 * 1000;
+
+    /**
+     * Distance in meters over which the rolling pace is calculated
+     */
+    static final double ROLLING_PACE_DISTANCE = 1000;
+
+    private final double splitDistance;
+    private final Window timeWindow = new Window();
+    private final Window distanceWindow = new Window();
+
+    /**
+     * Durations of the splits, only appended. When the array grows, snapshots keep the old one.
+     */
+    private long[] splits = new long[16];
+    private int splitCount;
+    private long lastSplitTime;
+
+    private boolean hasSample;
+    private long lastTime;
+    private double lastDistance;
+
+    /**
+     * @param splitDistance distance of a split in meters, e.g. one kilometer or one mile
+     */
+    LiveMetrics(double splitDistance) {
+        this.splitDistance = splitDistance;
+    }
+
+    /**
+     * @param time     relative time of the sample, without the pauses
+     * @param distance distance of the recording until the sample in meters
+     */
+    void add(long time, double distance) {
+        if (hasSample) {
+            addSplits(time, distance);
+        } else {
+            lastSplitTime = time;
+        }
+        hasSample = true;
+        lastTime = time;
+        lastDistance = distance;
+
+        timeWindow.add(time, distance);
+        // The first sample stays before the window, so the start of the window can be interpolated
+        while (timeWindow.size() > 1 && timeWindow.getTime(1) <= time - CURRENT_PACE_WINDOW) {
+            timeWindow.removeFirst();
+        }
+        distanceWindow.add(time, distance);
+        while (distanceWindow.size() > 1 && distanceWindow.getDistance(1) <= distance - ROLLING_PACE_DISTANCE) {
+            distanceWindow.removeFirst();
+        }
+    }
+
+    private void addSplits(long time, double distance) {
+        while (distance >= (splitCount + 1) * splitDistance) {
+            double splitEnd = (splitCount + 1) * splitDistance;
+            double fraction = (splitEnd - lastDistance) / (distance - lastDistance);
+            long splitTime = lastTime + Math.round(fraction * (time - lastTime));
+            if (splitCount == splits.length) {
+                long[] grown = new long[splits.length * 2];
+                System.arraycopy(splits, 0, grown, 0, splitCount);
+                splits = grown;
+            }
+            splits[splitCount++] = splitTime - lastSplitTime;
+            lastSplitTime = splitTime;
+        }
+    }
+
+    /**
+     * @return pace in min/km over the last {@link #CURRENT_PACE_WINDOW}, 0 if unknown
+     */
+    double getCurrentPace() {
+        if (timeWindow.size() < 2) {
+            return 0;
+        }
+        long start = Math.max(timeWindow.getTime(0), lastTime - CURRENT_PACE_WINDOW);
+        return getPace(lastTime - start, lastDistance - timeWindow.getDistanceAt(start));
+    }
+
+    /**
+     * @return pace in min/km over the last {@link #ROLLING_PACE_DISTANCE}, or over the whole recording if it's shorter. 0 if unknown.
+     */
+    double getRollingPace() {
+        if (distanceWindow.size() < 2) {
+            return 0;
+        }
+        double start = Math.max(distanceWindow.getDistance(0), lastDistance - ROLLING_PACE_DISTANCE);
+        return getPace(lastTime - distanceWindow.getTimeAt(start), lastDistance - start);
+    }
+
+    long[] getSplits() {
+        return splits;
+    }
+
+    int getSplitCount() {
+        return splitCount;
+    }
+
+    /**
+     * @return pace in min/km like {@link de.tadris.fitness.data.Workout#avgPace}, 0 if the distance is 0
+     */
+    static double getPace(long time, double distance) {
+        if (distance <= 0) {
+            return 0;
+        }
+        return ((double) time / 1000 / 60) / (distance / 1000);
+    }
+
+    /**
+     * Queue of samples in a growable ring buffer
+     */
+    private static class Window {
+
+        private long[] times = new long[64];
+        private double[] distances = new double[64];
+        private int head;
+        private int size;
+
+        void add(long time, double distance) {
+            if (size == times.length) {
+                grow();
+            }
+            int index = (head + size) & (times.length - 1);
+            times[index] = time;
+            distances[index] = distance;
+            size++;
+        }
+
+        private void grow() {
+            long[] newTimes = new long[times.length * 2];
+            double[] newDistances = new double[times.length * 2];
+            for (int i = 0; i < size; i++) {
+                newTimes[i] = getTime(i);
+                newDistances[i] = getDistance(i);
+            }
+            times = newTimes;
+            distances = newDistances;
+            head = 0;
+        }
+
+        void removeFirst() {
+            head = (head + 1) & (times.length - 1);
+            size--;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long getTime(int i) {
+            return times[(head + i) & (times.length - 1)];
+        }
+
+        double getDistance(int i) {
+            return distances[(head + i) & (times.length - 1)];
+        }
+
+        /**
+         * Interpolates the distance between the first two samples. The time has to be between them.
+         */
+        double getDistanceAt(long time) {
+            long t0 = getTime(0);
+            long t1 = getTime(1);
+            if (time <= t0 || t1 == t0) {
+                return getDistance(0);
+            }
+            return getDistance(0) + (getDistance(1) - getDistance(0)) * (time - t0) / (t1 - t0);
+        }
+
+        /**
+         * Interpolates the time between the first two samples. The distance has to be between them.
+         */
+        long getTimeAt(double distance) {
+            double d0 = getDistance(0);
+            double d1 = getDistance(1);
+            if (distance <= d0 || d1 == d0) {
+                return getTime(0);
+            }
+            return getTime(0) + Math.round((getTime(1) - getTime(0)) * (distance - d0) / (d1 - d0));
+        }
+    }
+}
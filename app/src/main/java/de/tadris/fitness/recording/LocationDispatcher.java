@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.recording;
+
+import android.location.Location;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Passes the locations of the {@link LocationListener} service to the registered listeners.
+ * <p>
+ * The locations are received on an own {@link HandlerThread}, so the GPS callback never waits for the main thread.
+ * Listeners can be added and removed from any thread, the dispatching uses a snapshot of the listeners.
+ */
+public class LocationDispatcher {
+
+    private static final String TAG = "LocationDispatcher";
+
+    public enum DeliveryPolicy {
+        /**
+         * The listener is called on the dispatcher thread for every location. It mustn't block.
+         */
+        SYNCHRONOUS,
+        /**
+         * The listener is called on the main thread. If the main thread is busy, only the newest location is delivered.
+         */
+        LATEST_ONLY
+    }
+
+    /**
+     * Interval of the GPS updates until a recording requests another one
+     */
+    public static final long DEFAULT_INTERVAL = 1000;
+
+    public interface IntervalListener {
+        void onIntervalChanged(long interval);
+    }
+
+    private final List<Registration> registrations = new CopyOnWriteArrayList<>();
+    private Handler mainHandler;
+    private HandlerThread thread;
+    private long interval = DEFAULT_INTERVAL;
+    private IntervalListener intervalListener;
+
+    /**
+     * Starts the dispatcher thread if it's not running
+     *
+     * @return looper on which the locations have to be received
+     */
+    public synchronized Looper start() {
+        if (thread == null) {
+            thread = new HandlerThread(TAG);
+            thread.start();
+        }
+        return thread.getLooper();
+    }
+
+    /**
+     * Stops the dispatcher thread after the pending locations were dispatched
+     */
+    public synchronized void stop() {
+        if (thread != null) {
+            thread.quitSafely();
+            thread = null;
+        }
+    }
+
+    /**
+     * Sets the listener that requests the GPS updates, e.g. the {@link LocationListener} service
+     */
+    public synchronized void setIntervalListener(IntervalListener listener) {
+        this.intervalListener = listener;
+    }
+
+    public synchronized long getInterval() {
+        return interval;
+    }
+
+    /**
+     * Requests GPS updates in another interval. Can be called from any thread.
+     */
+    public synchronized void requestInterval(long interval) {
+        if (this.interval == interval) {
+            return;
+        }
+        this.interval = interval;
+        if (intervalListener != null) {
+            intervalListener.onIntervalChanged(interval);
+        }
+    }
+
+    public void addListener(LocationListener.LocationChangeListener listener, DeliveryPolicy policy) {
+        registrations.add(new Registration(listener, policy));
+    }
+
+    public void removeListener(LocationListener.LocationChangeListener listener) {
+        for (Registration registration : registrations) {
+            if (registration.listener == listener) {
+                registration.removed = true;
+                registrations.remove(registration);
+            }
+        }
+    }
+
+    /**
+     * Called on the dispatcher thread for every new location
+     */
+    void dispatch(Location location) {
+        for (Registration registration : registrations) {
+            registration.deliver(location);
+        }
+    }
+
+    private synchronized Handler getMainHandler() {
+        if (mainHandler == null) {
+            mainHandler = new Handler(Looper.getMainLooper());
+        }
+        return mainHandler;
+    }
+
+    private class Registration implements Runnable {
+
+        final LocationListener.LocationChangeListener listener;
+        final DeliveryPolicy policy;
+        final AtomicReference<Location> pending = new AtomicReference<>();
+        volatile boolean removed = false;
+
+        Registration(LocationListener.LocationChangeListener listener, DeliveryPolicy policy) {
+            this.listener = listener;
+            this.policy = policy;
+        }
+
+        void deliver(Location location) {
+            switch (policy) {
+                case SYNCHRONOUS:
+                    listener.onLocationChange(location);
+                    break;
+                case LATEST_ONLY:
+                    // Only post if the previous location was already delivered, otherwise it's replaced
+                    if (pending.getAndSet(location) == null) {
+                        getMainHandler().post(this);
+                    }
+                    break;
+            }
+        }
+
+        @Override
+        public void run() {
+            Location location = pending.getAndSet(null);
+            if (location != null && !removed) {
+                listener.onLocationChange(location);
+            }
+        }
+    }
+}
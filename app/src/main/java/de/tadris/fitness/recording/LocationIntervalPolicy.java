@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.recording;
+
+import de.tadris.fitness.data.WorkoutType;
+
+/**
+ * Decides in which interval the GPS updates are requested during a recording.
+ * <p>
+ * The {@link SampleCleaner} drops every fix that is closer than the minimum distance of the workout type
+ * to the last sample. When the user is slow, most of the fixes at the shortest interval are dropped, so a
+ * longer interval is requested that still delivers a fix at the time the next sample would be taken.
+ * The samples are therefore taken as often as with updates every second. While the recording is paused,
+ * fixes are only needed to detect that the user moves again.
+ * <p>
+ * A shorter interval is requested as soon as a fix is faster, a longer one only after the user was slower
+ * for {@link #RELAX_DELAY}. The intervals are shorter than the time after which the recorder considers the
+ * GPS signal as lost.
+ */
+class LocationIntervalPolicy {
+
+    static final long MIN_INTERVAL = 1000;
+
+    /**
+     * Longest interval while the recording is running, e.g. while standing
+     */
+    static final long MAX_INTERVAL = 5000;
+
+    static final long PAUSED_INTERVAL = 5000;
+
+    /**
+     * Time the user has to be slower until a longer interval is requested
+     */
+    static final long RELAX_DELAY = 10000;
+
+    private final WorkoutType workoutType;
+    private long interval = MIN_INTERVAL;
+    private boolean paused;
+
+    /**
+     * Time of the first fix since which a longer interval would be sufficient, -1 if there is none
+     */
+    private long relaxSince = -1;
+
+    /**
+     * Shortest interval that was needed since {@link #relaxSince}
+     */
+    private long relaxInterval;
+
+    LocationIntervalPolicy(WorkoutType workoutType) {
+        this.workoutType = workoutType;
+    }
+
+    synchronized long getInterval() {
+        return interval;
+    }
+
+    /**
+     * @param time  time of the fix
+     * @param speed speed of the fix in m/s
+     * @return true if the interval changed
+     */
+    synchronized boolean onFix(long time, float speed) {
+        if (paused) {
+            return false;
+        }
+        long needed = getIntervalForSpeed(speed);
+        if (needed <= interval) {
+            relaxSince = -1;
+            return setInterval(needed);
+        }
+        if (relaxSince < 0) {
+            relaxSince = time;
+            relaxInterval = needed;
+        } else {
+            relaxInterval = Math.min(relaxInterval, needed);
+        }
+        if (time - relaxSince >= RELAX_DELAY) {
+            relaxSince = -1;
+            return setInterval(relaxInterval);
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the interval changed
+     */
+    synchronized boolean onPause() {
+        paused = true;
+        relaxSince = -1;
+        return setInterval(PAUSED_INTERVAL);
+    }
+
+    /**
+     * @return true if the interval changed
+     */
+    synchronized boolean onResume() {
+        paused = false;
+        relaxSince = -1;
+        return setInterval(MIN_INTERVAL);
+    }
+
+    private boolean setInterval(long interval) {
+        if (this.interval == interval) {
+            return false;
+        }
+        this.interval = interval;
+        return true;
+    }
+
+    /**
+     * With updates every second, the next sample is taken at the first fix that is at least the minimum
+     * distance away. This returns the longest interval that delivers a fix at exactly this time.
+     */
+    long getIntervalForSpeed(float speed) {
+        if (speed <= 0) {
+            return MAX_INTERVAL;
+        }
+        long secondsPerSample = (long) Math.ceil(workoutType.minDistance / speed);
+        if (secondsPerSample <= 1) {
+            return MIN_INTERVAL;
+        }
+        for (long seconds = MAX_INTERVAL / 1000; seconds > 1; seconds--) {
+            if (secondsPerSample % seconds == 0) {
+                return seconds * 1000;
+            }
+        }
+        return MIN_INTERVAL;
+    }
+}
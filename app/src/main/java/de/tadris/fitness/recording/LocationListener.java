@@ -28,6 +28,7 @@ import android.location.Location;
 import android.location.LocationManager;
 import android.os.Bundle;
 import android.os.IBinder;
+import android.os.Looper;
 import android.util.Log;
 
 import org.mapsforge.core.model.LatLong;
@@ -48,7 +49,7 @@ public class LocationListener extends Service {
 
     private static final String TAG = "LocationListener";
     private LocationManager mLocationManager = null;
-    private static final int LOCATION_INTERVAL = 1000;
+    private Looper looper;
 
     private class LocationChangedListener implements android.location.LocationListener {
         final Location mLastLocation;
@@ -62,9 +63,7 @@ public class LocationListener extends Service {
         public void onLocationChanged(Location location) {
             Log.i(TAG, "onLocationChanged: " + location);
             mLastLocation.set(location);
-            for(LocationChangeListener listener : Instance.getInstance(getBaseContext()).locationChangeListeners){
-                listener.onLocationChange(location);
-            }
+            Instance.getInstance(getBaseContext()).locationDispatcher.dispatch(location);
         }
 
         @Override
@@ -113,8 +112,20 @@ public class LocationListener extends Service {
     public void onCreate() {
         Log.i(TAG, "onCreate");
         initializeLocationManager();
+        LocationDispatcher dispatcher = Instance.getInstance(getBaseContext()).locationDispatcher;
+        // The locations are received on the dispatcher thread, not on the main thread
+        looper = dispatcher.start();
+        dispatcher.setIntervalListener(this::requestLocationUpdates);
+        requestLocationUpdates(dispatcher.getInterval());
+    }
+
+    /**
+     * Requests the GPS updates, replaces a previous request
+     */
+    private void requestLocationUpdates(long interval) {
+        Log.i(TAG, "Request location updates every " + interval + " ms");
         try {
-            mLocationManager.requestLocationUpdates(LocationManager.GPS_PROVIDER, LOCATION_INTERVAL, 0, gpsListener);
+            mLocationManager.requestLocationUpdates(LocationManager.GPS_PROVIDER, interval, 0, gpsListener, looper);
         } catch (java.lang.SecurityException ex) {
             Log.i(TAG, "fail to request location update, ignore", ex);
         } catch (IllegalArgumentException ex) {
@@ -126,9 +137,12 @@ public class LocationListener extends Service {
     public void onDestroy() {
         Log.i(TAG, "onDestroy");
         super.onDestroy();
+        LocationDispatcher dispatcher = Instance.getInstance(getBaseContext()).locationDispatcher;
+        dispatcher.setIntervalListener(null);
         if (mLocationManager != null) {
             mLocationManager.removeUpdates(gpsListener);
         }
+        dispatcher.stop();
     }
 
     private void initializeLocationManager() {
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.recording;
+
+/**
+ * Keeps the latest barometer readings, so the pressure can be looked up at the time of a GPS fix.
+ * <p>
+ * The readings are low-pass filtered when they are added and stored in a ring buffer of
+ * {@link #CAPACITY} readings, which is longer than the maximum report latency of the batched sensor.
+ * The pressure at a time is interpolated between the readings before and after it. If the readings
+ * of the time weren't reported yet, the latest reading is used.
+ * <p>
+ * The times have to use the same time base for the readings and the lookups, e.g. the elapsed realtime.
+ */
+public class PressureBuffer {
+
+    static final int CAPACITY = 128;
+
+    /**
+     * Time constant of the low-pass filter in milliseconds
+     */
+    static final long TIME_CONSTANT = 1000;
+
+    private static final int MASK = CAPACITY - 1;
+
+    private final long[] times = new long[CAPACITY];
+    private final float[] pressures = new float[CAPACITY];
+
+    /**
+     * Logical index of the oldest reading
+     */
+    private long start;
+
+    /**
+     * Logical index after the newest reading
+     */
+    private long end;
+
+    /**
+     * @param time     time of the reading in milliseconds
+     * @param pressure raw pressure in hPa
+     */
+    public synchronized void add(long time, float pressure) {
+        if (end > start) {
+            int last = (int) ((end - 1) & MASK);
+            long dt = time - times[last];
+            if (dt <= 0) {
+                // Out of order or duplicate reading
+                return;
+            }
+            float alpha = (float) dt / (TIME_CONSTANT + dt);
+            pressure = pressures[last] + alpha * (pressure - pressures[last]);
+        }
+        int index = (int) (end & MASK);
+        times[index] = time;
+        pressures[index] = pressure;
+        end++;
+        if (end - start > CAPACITY) {
+            start++;
+        }
+    }
+
+    /**
+     * @return filtered pressure at the time in hPa or -1 if there are no readings
+     */
+    public synchronized float getPressure(long time) {
+        if (end == start) {
+            return -1;
+        }
+        if (time >= getTime(end - 1)) {
+            return getPressureAt(end - 1);
+        }
+        if (time <= getTime(start)) {
+            return getPressureAt(start);
+        }
+        // Finds the first reading after the time
+        long low = start + 1;
+        long high = end - 1;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (getTime(mid) <= time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        long t0 = getTime(low - 1);
+        long t1 = getTime(low);
+        float p0 = getPressureAt(low - 1);
+        float p1 = getPressureAt(low);
+        return p0 + (p1 - p0) * (time - t0) / (t1 - t0);
+    }
+
+    /**
+     * @return latest filtered pressure in hPa or -1 if there are no readings
+     */
+    public synchronized float getLatestPressure() {
+        return end == start ? -1 : getPressureAt(end - 1);
+    }
+
+    public synchronized void clear() {
+        start = end;
+    }
+
+    synchronized int getCount() {
+        return (int) (end - start);
+    }
+
+    private long getTime(long index) {
+        return times[(int) (index & MASK)];
+    }
+
+    private float getPressureAt(long index) {
+        return pressures[(int) (index & MASK)];
+    }
+}
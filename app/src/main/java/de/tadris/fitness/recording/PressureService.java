@@ -37,6 +37,17 @@ public class PressureService extends Service {
 
     private static final String TAG = "PressureService";
 
+    /**
+     * About the rate of {@link SensorManager#SENSOR_DELAY_NORMAL}
+     */
+    private static final int SAMPLING_PERIOD_US = 200 * 1000;
+
+    /**
+     * The sensor may batch the readings for this time, so the app isn't woken up for every reading.
+     * Has to be shorter than the time the {@link PressureBuffer} can hold.
+     */
+    private static final int MAX_REPORT_LATENCY_US = 2 * 1000 * 1000;
+
     private SensorManager sensorManager;
     private Instance instance;
     private Sensor pressureSensor;
@@ -46,7 +57,8 @@ public class PressureService extends Service {
 
         @Override
         public void onSensorChanged(SensorEvent event) {
-            instance.lastPressure= event.values[0];
+            // The timestamp is in the time base of the elapsed realtime, like the one of the GPS fixes
+            instance.pressureBuffer.add(event.timestamp / 1000000, event.values[0]);
         }
 
         @Override
@@ -66,7 +78,9 @@ public class PressureService extends Service {
 
         if (pressureSensor != null){
             instance.setPressureAvailable(true);
-            sensorManager.registerListener(pressureListener, pressureSensor, SensorManager.SENSOR_DELAY_NORMAL);
+            instance.pressureBuffer.clear();
+            Log.d(TAG, "Sensor FIFO size: " + pressureSensor.getFifoMaxEventCount());
+            sensorManager.registerListener(pressureListener, pressureSensor, SAMPLING_PERIOD_US, MAX_REPORT_LATENCY_US);
         } else {
             instance.setPressureAvailable(false);
         }
@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.recording;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and histograms of the recording pipeline, from the received fixes to the saved workout.
+ * The metrics are kept for the running recording or the one that was recorded last and are reset when a
+ * recording starts. They can be dumped as text or JSON.
+ */
+public class RecordingMetrics {
+
+    private static final RecordingMetrics instance = new RecordingMetrics();
+
+    public static RecordingMetrics getInstance() {
+        return instance;
+    }
+
+    public static final String PHASE_STATISTICS = "statistics";
+    public static final String PHASE_VALUES = "values";
+    public static final String PHASE_CALORIES = "calories";
+    public static final String PHASE_DATABASE = "database";
+
+    private final Map<String, Long> fixesByProvider = new TreeMap<>();
+    private final AtomicLong queueOverflows = new AtomicLong();
+    private final AtomicLong ignoredFixes = new AtomicLong();
+    private final AtomicLong[] rejectedFixes = new AtomicLong[SampleCleaner.Rule.values().length];
+    private final AtomicLong appendedSamples = new AtomicLong();
+    private final AtomicLong autoPauses = new AtomicLong();
+    private final AtomicLong autoResumes = new AtomicLong();
+
+    /**
+     * Milliseconds from the time of the fix until it was added as sample
+     */
+    private final Histogram dispatchLatency = new Histogram(10, 25, 50, 100, 250, 500, 1000, 2500, 5000);
+
+    /**
+     * Milliseconds to insert a batch of samples
+     */
+    private final Histogram batchInsertTime = new Histogram(1, 2, 5, 10, 25, 50, 100, 250, 1000);
+
+    /**
+     * Milliseconds of the phases of saving a workout
+     */
+    private final Map<String, Long> savePhases = new LinkedHashMap<>();
+
+    private RecordingScheduler scheduler;
+
+    RecordingMetrics() {
+        for (int i = 0; i < rejectedFixes.length; i++) {
+            rejectedFixes[i] = new AtomicLong();
+        }
+    }
+
+    synchronized void reset(RecordingScheduler scheduler) {
+        this.scheduler = scheduler;
+        fixesByProvider.clear();
+        queueOverflows.set(0);
+        ignoredFixes.set(0);
+        for (AtomicLong counter : rejectedFixes) {
+            counter.set(0);
+        }
+        appendedSamples.set(0);
+        autoPauses.set(0);
+        autoResumes.set(0);
+        dispatchLatency.reset();
+        batchInsertTime.reset();
+        savePhases.clear();
+    }
+
+    synchronized void onFixReceived(String provider) {
+        Long count = fixesByProvider.get(provider);
+        fixesByProvider.put(provider, count != null ? count + 1 : 1);
+    }
+
+    /**
+     * The fix couldn't be passed to the recorder thread because the queue was full
+     */
+    void onQueueOverflow() {
+        queueOverflows.incrementAndGet();
+    }
+
+    /**
+     * The fix was received while the recording was paused or before it began
+     */
+    void onFixIgnored() {
+        ignoredFixes.incrementAndGet();
+    }
+
+    void onFixRejected(SampleCleaner.Rule rule) {
+        rejectedFixes[rule.ordinal()].incrementAndGet();
+    }
+
+    void onSampleAppended(long latency) {
+        appendedSamples.incrementAndGet();
+        dispatchLatency.record(latency);
+    }
+
+    void onAutoPause() {
+        autoPauses.incrementAndGet();
+    }
+
+    void onAutoResume() {
+        autoResumes.incrementAndGet();
+    }
+
+    void onBatchInserted(long millis) {
+        batchInsertTime.record(millis);
+    }
+
+    synchronized void onSavePhase(String phase, long millis) {
+        savePhases.put(phase, millis);
+    }
+
+    public synchronized Map<String, Long> getFixesByProvider() {
+        return new TreeMap<>(fixesByProvider);
+    }
+
+    public long getQueueOverflows() {
+        return queueOverflows.get();
+    }
+
+    public long getIgnoredFixes() {
+        return ignoredFixes.get();
+    }
+
+    long getRejectedFixes(SampleCleaner.Rule rule) {
+        return rejectedFixes[rule.ordinal()].get();
+    }
+
+    /**
+     * @return number of rejected fixes by the lower case name of the rule that rejected them
+     */
+    public Map<String, Long> getRejectedFixes() {
+        Map<String, Long> rejected = new LinkedHashMap<>();
+        for (SampleCleaner.Rule rule : SampleCleaner.Rule.values()) {
+            rejected.put(rule.name().toLowerCase(Locale.ROOT), getRejectedFixes(rule));
+        }
+        return rejected;
+    }
+
+    public long getAppendedSamples() {
+        return appendedSamples.get();
+    }
+
+    public long getAutoPauses() {
+        return autoPauses.get();
+    }
+
+    public long getAutoResumes() {
+        return autoResumes.get();
+    }
+
+    public Histogram getDispatchLatency() {
+        return dispatchLatency;
+    }
+
+    public Histogram getBatchInsertTime() {
+        return batchInsertTime;
+    }
+
+    public synchronized Map<String, Long> getSavePhases() {
+        return new LinkedHashMap<>(savePhases);
+    }
+
+    /**
+     * @return tasks of the running recording or of the one that was recorded last
+     */
+    public synchronized String getSchedulerTasks() {
+        return scheduler != null ? scheduler.toString() : "";
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> fixes = new LinkedHashMap<>();
+        fixes.put("receivedByProvider", getFixesByProvider());
+        fixes.put("queueOverflows", getQueueOverflows());
+        fixes.put("ignored", getIgnoredFixes());
+        fixes.put("rejected", getRejectedFixes());
+        fixes.put("appended", getAppendedSamples());
+
+        Map<String, Object> autoPause = new LinkedHashMap<>();
+        autoPause.put("pauses", getAutoPauses());
+        autoPause.put("resumes", getAutoResumes());
+
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("fixes", fixes);
+        map.put("dispatchLatencyMs", toMap(dispatchLatency));
+        map.put("batchInsertMs", toMap(batchInsertTime));
+        map.put("autoPause", autoPause);
+        map.put("savePhasesMs", getSavePhases());
+        map.put("schedulerTasks", getSchedulerTasks());
+        return map;
+    }
+
+    private static Map<String, Object> toMap(Histogram histogram) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("count", histogram.getCount());
+        map.put("mean", histogram.getMean());
+        map.put("p50", histogram.getPercentile(50));
+        map.put("p95", histogram.getPercentile(95));
+        map.put("max", histogram.getMax());
+        map.put("buckets", histogram.getBuckets());
+        return map;
+    }
+
+    public String toJson() throws IOException {
+        return new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(toMap());
+    }
+
+    public String toText() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("Fixes received: ").append(getFixesByProvider()).append('\n');
+        builder.append("Queue overflows: ").append(getQueueOverflows()).append('\n');
+        builder.append("Ignored while not running: ").append(getIgnoredFixes()).append('\n');
+        for (Map.Entry<String, Long> entry : getRejectedFixes().entrySet()) {
+            builder.append("Rejected ").append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+        }
+        builder.append("Samples appended: ").append(getAppendedSamples()).append('\n');
+        builder.append("Dispatch latency (ms): ").append(dispatchLatency).append('\n');
+        builder.append("Batch insert (ms): ").append(batchInsertTime).append('\n');
+        builder.append("Auto pauses: ").append(getAutoPauses()).append(", resumes: ").append(getAutoResumes()).append('\n');
+        builder.append("Save phases (ms): ").append(getSavePhases()).append('\n');
+        builder.append("Scheduler tasks: ").append(getSchedulerTasks()).append('\n');
+        return builder.toString();
+    }
+}
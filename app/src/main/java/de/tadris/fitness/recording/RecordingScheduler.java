@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.recording;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the periodic tasks of a recording on one thread.
+ * <p>
+ * Every task has its own period. The runs are aligned to multiples of the period since the scheduler
+ * was created, so tasks whose periods are multiples of each other run in the same wakeup. Tasks that are
+ * due within {@link #COALESCE_WINDOW} are run together as well. If the thread couldn't run a task in time,
+ * the missed runs are skipped instead of being caught up.
+ * <p>
+ * While the app is in the background tasks run with their background period, a background period
+ * of 0 pauses the task until the app is in the foreground again.
+ */
+public class RecordingScheduler {
+
+    private static final String TAG = "RecordingScheduler";
+
+    static final long COALESCE_WINDOW = 100;
+
+    interface Clock {
+        /**
+         * @return monotonic time in milliseconds
+         */
+        long getTime();
+    }
+
+    private final ScheduledExecutorService executor;
+    private final Clock clock;
+    private final long origin;
+    private final List<Task> tasks = new ArrayList<>();
+    private boolean inBackground = false;
+    private boolean shutdown = false;
+    private ScheduledFuture<?> nextTick;
+    private long nextTickTime = -1;
+
+    public RecordingScheduler() {
+        this(Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, TAG)), () -> System.nanoTime() / 1000000);
+    }
+
+    /**
+     * @param executor executor that runs the ticks or null if {@link #tick()} is called manually
+     */
+    RecordingScheduler(ScheduledExecutorService executor, Clock clock) {
+        this.executor = executor;
+        this.clock = clock;
+        this.origin = clock.getTime();
+    }
+
+    /**
+     * Registers a periodic task. The first run is at the next multiple of the period.
+     *
+     * @param period           period in milliseconds while the app is in the foreground
+     * @param backgroundPeriod period in milliseconds while the app is in the background, 0 to pause the task
+     */
+    public synchronized Task schedule(String name, long period, long backgroundPeriod, Runnable runnable) {
+        if (period <= 0 || backgroundPeriod < 0) {
+            throw new IllegalArgumentException("Invalid period for task " + name);
+        }
+        Task task = new Task(name, period, backgroundPeriod, runnable);
+        task.nextRun = getNextRun(clock.getTime(), task.getPeriod(inBackground));
+        if (!shutdown) {
+            tasks.add(task);
+            reschedule();
+        }
+        return task;
+    }
+
+    /**
+     * Tasks that were paused in the background run immediately when the app is in the foreground again.
+     */
+    public synchronized void setInBackground(boolean inBackground) {
+        if (this.inBackground == inBackground) {
+            return;
+        }
+        this.inBackground = inBackground;
+        long now = clock.getTime();
+        for (Task task : tasks) {
+            if (inBackground) {
+                if (task.backgroundPeriod > task.period) {
+                    // Align to the longer period, so the task runs together with the others
+                    task.nextRun = getNextRun(now, task.backgroundPeriod);
+                }
+            } else if (task.backgroundPeriod == 0 && task.nextRun < now) {
+                task.skippedRuns += (now - task.nextRun) / task.period;
+                task.nextRun = now;
+            }
+        }
+        reschedule();
+    }
+
+    public synchronized boolean isInBackground() {
+        return inBackground;
+    }
+
+    /**
+     * Cancels all tasks. A task that is running is finished.
+     */
+    public synchronized void shutdown() {
+        shutdown = true;
+        // The tasks are kept for their statistics
+        for (Task task : tasks) {
+            task.cancelled = true;
+        }
+        if (nextTick != null) {
+            nextTick.cancel(false);
+            nextTick = null;
+        }
+        nextTickTime = -1;
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    public synchronized boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * Runs all tasks that are due and schedules the next tick.
+     */
+    void tick() {
+        long now = clock.getTime();
+        List<Task> due = new ArrayList<>();
+        synchronized (this) {
+            nextTick = null;
+            nextTickTime = -1;
+            for (Task task : tasks) {
+                if (task.getPeriod(inBackground) > 0 && task.nextRun <= now + COALESCE_WINDOW) {
+                    due.add(task);
+                }
+            }
+        }
+        for (Task task : due) {
+            if (!task.cancelled) {
+                task.run();
+            }
+        }
+        synchronized (this) {
+            for (Task task : due) {
+                long period = task.getPeriod(inBackground);
+                if (period == 0) {
+                    // Went to background while the task ran
+                    period = task.period;
+                }
+                if (now > task.nextRun) {
+                    task.skippedRuns += (now - task.nextRun) / period;
+                }
+                task.nextRun = getNextRun(Math.max(now, task.nextRun), period);
+            }
+            reschedule();
+        }
+    }
+
+    /**
+     * @return next multiple of the period after the given time
+     */
+    private long getNextRun(long time, long period) {
+        return origin + ((time - origin) / period + 1) * period;
+    }
+
+    private void reschedule() {
+        if (shutdown) {
+            return;
+        }
+        long next = Long.MAX_VALUE;
+        for (int i = tasks.size() - 1; i >= 0; i--) {
+            Task task = tasks.get(i);
+            if (task.cancelled) {
+                tasks.remove(i);
+            } else if (task.getPeriod(inBackground) > 0) {
+                next = Math.min(next, task.nextRun);
+            }
+        }
+        if (next == nextTickTime) {
+            return;
+        }
+        if (nextTick != null) {
+            nextTick.cancel(false);
+            nextTick = null;
+        }
+        if (next == Long.MAX_VALUE) {
+            // All tasks are paused
+            nextTickTime = -1;
+            return;
+        }
+        nextTickTime = next;
+        if (executor != null) {
+            nextTick = executor.schedule(this::tick, Math.max(0, next - clock.getTime()), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @return time of the next tick or -1 if no tick is scheduled
+     */
+    synchronized long getNextTickTime() {
+        return nextTickTime;
+    }
+
+    public synchronized List<Task> getTasks() {
+        return new ArrayList<>(tasks);
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Task task : tasks) {
+            if (builder.length() > 0) {
+                builder.append("; ");
+            }
+            builder.append(task);
+        }
+        return builder.toString();
+    }
+
+    public static class Task {
+
+        private final String name;
+        private final long period;
+        private final long backgroundPeriod;
+        private final Runnable runnable;
+        private volatile boolean cancelled = false;
+
+        // Guarded by the scheduler
+        private long nextRun;
+        private volatile long skippedRuns;
+
+        // Only changed on the scheduler thread
+        private volatile int runCount;
+        private volatile long totalRunTime;
+        private volatile long maxRunTime;
+
+        private Task(String name, long period, long backgroundPeriod, Runnable runnable) {
+            this.name = name;
+            this.period = period;
+            this.backgroundPeriod = backgroundPeriod;
+            this.runnable = runnable;
+        }
+
+        private long getPeriod(boolean inBackground) {
+            return inBackground ? backgroundPeriod : period;
+        }
+
+        private void run() {
+            long start = System.nanoTime();
+            try {
+                runnable.run();
+            } catch (RuntimeException e) {
+                // One failing run shouldn't stop the other tasks
+                e.printStackTrace();
+            }
+            long runTime = System.nanoTime() - start;
+            runCount++;
+            totalRunTime += runTime;
+            maxRunTime = Math.max(maxRunTime, runTime);
+        }
+
+        /**
+         * The task won't run anymore. A run that already started is finished.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getRunCount() {
+            return runCount;
+        }
+
+        /**
+         * @return number of runs that were missed or skipped while the task was paused
+         */
+        public long getSkippedRuns() {
+            return skippedRuns;
+        }
+
+        /**
+         * @return total time the task ran in nanoseconds
+         */
+        public long getTotalRunTime() {
+            return totalRunTime;
+        }
+
+        /**
+         * @return longest run in nanoseconds
+         */
+        public long getMaxRunTime() {
+            return maxRunTime;
+        }
+
+        @Override
+        public String toString() {
+            long average = runCount > 0 ? totalRunTime / runCount : 0;
+            return name + ": runs=" + runCount + ", skipped=" + skippedRuns + ", avg=" + average / 1000 + " us, max=" + maxRunTime / 1000 + " us";
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.recording;
+
+/**
+ * Immutable totals of a running recording. The recorder publishes a new snapshot after every
+ * fix, so readers like the UI, the announcements and the watchdog never have to wait for the
+ * recording thread and always see values that belong together.
+ */
+public class RecordingSnapshot {
+
+    static final RecordingSnapshot EMPTY = new RecordingSnapshot(0, 0, 0, 0, null);
+
+    private static final long[] NO_SPLITS = new long[0];
+
+    private final int sampleCount;
+    private final double distance;
+    private final long lastFixTime;
+    private final double ascent;
+    private final double currentPace;
+    private final double rollingPace;
+
+    /**
+     * Splits array of the live metrics, it is only appended, so the first {@link #splitCount} values don't change
+     */
+    private final long[] splits;
+    private final int splitCount;
+
+    /**
+     * @param liveMetrics live metrics of the recording or null if there are none
+     */
+    RecordingSnapshot(int sampleCount, double distance, long lastFixTime, double ascent, LiveMetrics liveMetrics) {
+        this.sampleCount = sampleCount;
+        this.distance = distance;
+        this.lastFixTime = lastFixTime;
+        this.ascent = ascent;
+        if (liveMetrics != null) {
+            this.currentPace = liveMetrics.getCurrentPace();
+            this.rollingPace = liveMetrics.getRollingPace();
+            this.splits = liveMetrics.getSplits();
+            this.splitCount = liveMetrics.getSplitCount();
+        } else {
+            this.currentPace = 0;
+            this.rollingPace = 0;
+            this.splits = NO_SPLITS;
+            this.splitCount = 0;
+        }
+    }
+
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * @return distance in meters
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    /**
+     * @return system time in milliseconds when the last fix that wasn't dropped arrived, 0 if there was none
+     */
+    public long getLastFixTime() {
+        return lastFixTime;
+    }
+
+    /**
+     * @return elevation gain so far in meters
+     */
+    public double getAscent() {
+        return ascent;
+    }
+
+    /**
+     * @return pace of the last 30 seconds in min/km, 0 if unknown
+     */
+    public double getCurrentPace() {
+        return currentPace;
+    }
+
+    /**
+     * @return pace of the last kilometer in min/km, 0 if unknown
+     */
+    public double getRollingPace() {
+        return rollingPace;
+    }
+
+    /**
+     * @return number of completed splits, a split is one kilometer or one mile depending on the unit system
+     */
+    public int getSplitCount() {
+        return splitCount;
+    }
+
+    /**
+     * @return duration of the split in milliseconds, without the pauses
+     */
+    public long getSplit(int index) {
+        if (index < 0 || index >= splitCount) {
+            throw new IndexOutOfBoundsException("Split " + index + " of " + splitCount);
+        }
+        return splits[index];
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording;
+
+import java.util.Arrays;
+
+import de.tadris.fitness.data.WorkoutSample;
+import de.tadris.fitness.util.DistanceUtils;
+
+/**
+ * Stores the samples of a recording in one primitive array per value instead of one object per sample.
+ * <p>
+ * Samples are addressed by their index in the recording. Samples that were written to the database
+ * can be discarded, the buffer then only keeps the samples from that index on.
+ * {@link WorkoutSample} objects are only created by {@link #toSample(int, long)} when the samples are stored.
+ */
+class SampleBuffer {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] absoluteTimes;
+    private long[] relativeTimes;
+    private double[] lats;
+    private double[] lons;
+    private double[] elevations;
+    private double[] smoothedElevations;
+    private float[] speeds;
+    private float[] pressures;
+    private int[] segments;
+
+    /**
+     * Index of the first sample that is still kept
+     */
+    private int first;
+
+    /**
+     * Number of samples that are kept
+     */
+    private int size;
+
+    SampleBuffer() {
+        this(INITIAL_CAPACITY);
+    }
+
+    SampleBuffer(int capacity) {
+        capacity = Math.max(capacity, 1);
+        absoluteTimes = new long[capacity];
+        relativeTimes = new long[capacity];
+        lats = new double[capacity];
+        lons = new double[capacity];
+        elevations = new double[capacity];
+        smoothedElevations = new double[capacity];
+        speeds = new float[capacity];
+        pressures = new float[capacity];
+        segments = new int[capacity];
+    }
+
+    /**
+     * Adds a sample to the first segment
+     *
+     * @param pressure pressure in hPa or -1 if there is no barometer
+     * @return index of the new sample
+     */
+    int add(long absoluteTime, long relativeTime, double lat, double lon, double elevation, float speed, float pressure) {
+        return add(absoluteTime, relativeTime, lat, lon, elevation, speed, pressure, 0);
+    }
+
+    /**
+     * @param pressure pressure in hPa or -1 if there is no barometer
+     * @param segment  index of the track segment, not smaller than the segment of the previous sample
+     * @return index of the new sample
+     */
+    int add(long absoluteTime, long relativeTime, double lat, double lon, double elevation, float speed, float pressure, int segment) {
+        if (size == absoluteTimes.length) {
+            grow();
+        }
+        absoluteTimes[size] = absoluteTime;
+        relativeTimes[size] = relativeTime;
+        lats[size] = lat;
+        lons[size] = lon;
+        elevations[size] = elevation;
+        smoothedElevations[size] = elevation;
+        speeds[size] = speed;
+        pressures[size] = pressure;
+        segments[size] = segment;
+        size++;
+        return first + size - 1;
+    }
+
+    private void grow() {
+        int capacity = absoluteTimes.length * 2;
+        absoluteTimes = Arrays.copyOf(absoluteTimes, capacity);
+        relativeTimes = Arrays.copyOf(relativeTimes, capacity);
+        lats = Arrays.copyOf(lats, capacity);
+        lons = Arrays.copyOf(lons, capacity);
+        elevations = Arrays.copyOf(elevations, capacity);
+        smoothedElevations = Arrays.copyOf(smoothedElevations, capacity);
+        speeds = Arrays.copyOf(speeds, capacity);
+        pressures = Arrays.copyOf(pressures, capacity);
+        segments = Arrays.copyOf(segments, capacity);
+    }
+
+    /**
+     * Discards all samples before the given index. The remaining samples are moved to the front,
+     * so the capacity of the buffer doesn't grow with the length of the recording.
+     */
+    void discardBefore(int index) {
+        int count = Math.min(index - first, size);
+        if (count <= 0) {
+            return;
+        }
+        int remaining = size - count;
+        System.arraycopy(absoluteTimes, count, absoluteTimes, 0, remaining);
+        System.arraycopy(relativeTimes, count, relativeTimes, 0, remaining);
+        System.arraycopy(lats, count, lats, 0, remaining);
+        System.arraycopy(lons, count, lons, 0, remaining);
+        System.arraycopy(elevations, count, elevations, 0, remaining);
+        System.arraycopy(smoothedElevations, count, smoothedElevations, 0, remaining);
+        System.arraycopy(speeds, count, speeds, 0, remaining);
+        System.arraycopy(pressures, count, pressures, 0, remaining);
+        System.arraycopy(segments, count, segments, 0, remaining);
+        first += count;
+        size = remaining;
+    }
+
+    /**
+     * Removes all samples, the next sample gets the index 0 again
+     */
+    void clear() {
+        first = 0;
+        size = 0;
+    }
+
+    /**
+     * @return number of samples that were added since the last {@link #clear()}, including discarded ones
+     */
+    int getCount() {
+        return first + size;
+    }
+
+    int getFirstIndex() {
+        return first;
+    }
+
+    private int position(int index) {
+        int position = index - first;
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Sample " + index + " is not in the buffer (" + first + " - " + (first + size - 1) + ")");
+        }
+        return position;
+    }
+
+    long getAbsoluteTime(int index) {
+        return absoluteTimes[position(index)];
+    }
+
+    long getRelativeTime(int index) {
+        return relativeTimes[position(index)];
+    }
+
+    double getLat(int index) {
+        return lats[position(index)];
+    }
+
+    double getLon(int index) {
+        return lons[position(index)];
+    }
+
+    /**
+     * @return elevation as it was received
+     */
+    double getElevation(int index) {
+        return elevations[position(index)];
+    }
+
+    double getSmoothedElevation(int index) {
+        return smoothedElevations[position(index)];
+    }
+
+    void setSmoothedElevation(int index, double elevation) {
+        smoothedElevations[position(index)] = elevation;
+    }
+
+    float getSpeed(int index) {
+        return speeds[position(index)];
+    }
+
+    /**
+     * @return pressure in hPa or -1 if there is no barometer
+     */
+    float getPressure(int index) {
+        return pressures[position(index)];
+    }
+
+    int getSegment(int index) {
+        return segments[position(index)];
+    }
+
+    /**
+     * @return distance between two samples in meters
+     */
+    double getDistance(int index1, int index2) {
+        return getDistance(index1, getLat(index2), getLon(index2));
+    }
+
+    /**
+     * @return distance between a sample and a position in meters
+     */
+    double getDistance(int index, double lat, double lon) {
+        return DistanceUtils.sphericalDistance(getLat(index), getLon(index), lat, lon);
+    }
+
+    /**
+     * Creates the entity that is stored in the database. The smoothed elevation is used as elevation.
+     */
+    WorkoutSample toSample(int index, long workoutId) {
+        int position = position(index);
+        WorkoutSample sample = new WorkoutSample();
+        sample.workoutId = workoutId;
+        sample.seq = index;
+        sample.absoluteTime = absoluteTimes[position];
+        sample.relativeTime = relativeTimes[position];
+        sample.lat = lats[position];
+        sample.lon = lons[position];
+        sample.elevation = smoothedElevations[position];
+        sample.speed = speeds[position];
+        sample.segment = segments[position];
+        return sample;
+    }
+}
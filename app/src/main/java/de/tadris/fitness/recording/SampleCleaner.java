@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.recording;
+
+import java.util.Locale;
+
+import de.tadris.fitness.data.WorkoutType;
+import de.tadris.fitness.util.DistanceUtils;
+
+/**
+ * Decides whether a GPS fix is added to the recording. Every fix is compared with the
+ * last accepted one, so the check costs O(1) and rejected fixes never reach the samples.
+ * <p>
+ * The number of dropped fixes is counted per {@link Rule}, so the limits can be tuned on real tracks.
+ */
+class SampleCleaner {
+
+    enum Rule {
+        /**
+         * The fix isn't newer than the last accepted one
+         */
+        DUPLICATE,
+        /**
+         * The fix is less accurate than {@link #MAX_ACCURACY}
+         */
+        ACCURACY,
+        /**
+         * Reaching the fix would require a speed that's not plausible for the workout type
+         */
+        SPIKE,
+        /**
+         * The fix is closer to the last accepted one than the minimum distance of the workout type,
+         * e.g. when standing still
+         */
+        JITTER
+    }
+
+    /**
+     * Fixes with a worse accuracy in meters are dropped
+     */
+    static final float MAX_ACCURACY = 40;
+
+    /**
+     * If more spikes are dropped in a row, the last accepted fix was probably wrong itself
+     * and the next fix is accepted anyway
+     */
+    static final int MAX_SPIKES_IN_ROW = 5;
+
+    private final WorkoutType workoutType;
+    private final int[] dropCounts = new int[Rule.values().length];
+
+    private boolean hasLastFix;
+    private long lastTime;
+    private double lastLat;
+    private double lastLon;
+    private float lastAccuracy;
+    private int spikesInRow;
+
+    SampleCleaner(WorkoutType workoutType) {
+        this.workoutType = workoutType;
+    }
+
+    /**
+     * @param accuracy accuracy in meters or 0 if unknown
+     * @return the rule the fix violates and is dropped for or null if the fix can be added
+     */
+    Rule check(long time, double lat, double lon, float accuracy) {
+        Rule rule = findViolatedRule(time, lat, lon, accuracy);
+        if (rule != null) {
+            dropCounts[rule.ordinal()]++;
+        }
+        return rule;
+    }
+
+    private Rule findViolatedRule(long time, double lat, double lon, float accuracy) {
+        if (hasLastFix && time <= lastTime) {
+            return Rule.DUPLICATE;
+        }
+        if (accuracy > MAX_ACCURACY) {
+            return Rule.ACCURACY;
+        }
+        if (!hasLastFix) {
+            return null;
+        }
+        double distance = DistanceUtils.sphericalDistance(lastLat, lastLon, lat, lon);
+        if (distance < workoutType.minDistance) {
+            return Rule.JITTER;
+        }
+        // Both fixes may be off by their accuracy
+        double minMovedDistance = distance - lastAccuracy - accuracy;
+        double speed = minMovedDistance / ((time - lastTime) / 1000d);
+        if (speed > workoutType.maxSpeed && spikesInRow < MAX_SPIKES_IN_ROW) {
+            spikesInRow++;
+            return Rule.SPIKE;
+        }
+        return null;
+    }
+
+    /**
+     * Has to be called when a fix that passed the check was added to the recording
+     */
+    void accept(long time, double lat, double lon, float accuracy) {
+        hasLastFix = true;
+        lastTime = time;
+        lastLat = lat;
+        lastLon = lon;
+        lastAccuracy = accuracy;
+        spikesInRow = 0;
+    }
+
+    /**
+     * Forgets the last accepted fix, e.g. when the samples are cleared. The drop counts are kept.
+     */
+    void reset() {
+        hasLastFix = false;
+        spikesInRow = 0;
+    }
+
+    int getDropCount(Rule rule) {
+        return dropCounts[rule.ordinal()];
+    }
+
+    int getTotalDropCount() {
+        int total = 0;
+        for (int count : dropCounts) {
+            total += count;
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Rule rule : Rule.values()) {
+            if (builder.length() > 0) {
+                builder.append(", ");
+            }
+            builder.append(rule.name().toLowerCase(Locale.ROOT)).append('=').append(getDropCount(rule));
+        }
+        return builder.toString();
+    }
+}
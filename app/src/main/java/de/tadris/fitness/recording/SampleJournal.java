@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording;
+
+import android.content.Context;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+import de.tadris.fitness.data.WorkoutType;
+
+/**
+ * Append-only file that contains the samples of the running recording.
+ * <p>
+ * Every accepted sample is written as a record of fixed size, so a recording that was
+ * interrupted (e.g. because the process was killed) can be read back and saved the next time.
+ * The file is deleted after the workout was saved.
+ * <p>
+ * The header contains the start of the workout and the workout type. The pause duration
+ * doesn't need to be stored because it's the difference between the absolute and the relative time.
+ */
+class SampleJournal implements Closeable {
+
+    private static final String FILE_NAME = "recording.journal";
+    private static final String FAILED_FILE_NAME = "recording.journal.failed";
+
+    private static final int MAGIC = 0x46544a31; // "FTJ1"
+    private static final int VERSION = 3;
+
+    private static final int HEADER_SIZE = 64;
+    private static final int MAX_TYPE_ID_LENGTH = HEADER_SIZE - 20;
+
+    /**
+     * absoluteTime, relativeTime, lat, lon, elevation, speed, pressure and segment
+     */
+    static final int RECORD_SIZE = 5 * 8 + 3 * 4;
+
+    static File getFile(Context context) {
+        return new File(context.getFilesDir(), FILE_NAME);
+    }
+
+    static void delete(Context context) {
+        delete(getFile(context));
+    }
+
+    static void delete(File file) {
+        if (file.exists() && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    /**
+     * Moves a journal that couldn't be recovered out of the way, so it isn't read again but can still be inspected.
+     * Replaces the journal that was moved before.
+     */
+    static void quarantine(Context context) {
+        quarantine(getFile(context), new File(context.getFilesDir(), FAILED_FILE_NAME));
+    }
+
+    static void quarantine(File file, File failedFile) {
+        if (!file.exists()) {
+            return;
+        }
+        if (failedFile.exists()) {
+            failedFile.delete();
+        }
+        if (!file.renameTo(failedFile) && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(Math.max(HEADER_SIZE, RECORD_SIZE));
+    private final WorkoutType workoutType;
+    private long position;
+
+    private SampleJournal(File file, WorkoutType workoutType) throws IOException {
+        this.channel = new RandomAccessFile(file, "rw").getChannel();
+        this.workoutType = workoutType;
+    }
+
+    /**
+     * Creates a new journal and overwrites an existing one.
+     */
+    static SampleJournal create(Context context, WorkoutType workoutType, long start) throws IOException {
+        return create(getFile(context), workoutType, start);
+    }
+
+    static SampleJournal create(File file, WorkoutType workoutType, long start) throws IOException {
+        SampleJournal journal = new SampleJournal(file, workoutType);
+        journal.reset(start);
+        return journal;
+    }
+
+    /**
+     * Removes all samples and writes a new header
+     */
+    void reset(long start) throws IOException {
+        byte[] typeId = workoutType.id.getBytes(StandardCharsets.UTF_8);
+        if (typeId.length > MAX_TYPE_ID_LENGTH) {
+            throw new IOException("Workout type id too long: " + workoutType.id);
+        }
+        channel.truncate(0);
+        buffer.clear();
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putLong(start);
+        buffer.putInt(typeId.length);
+        buffer.put(typeId);
+        while (buffer.position() < HEADER_SIZE) {
+            buffer.put((byte) 0);
+        }
+        buffer.flip();
+        write(0);
+        position = HEADER_SIZE;
+    }
+
+    void append(SampleBuffer samples, int index) throws IOException {
+        buffer.clear();
+        buffer.putLong(samples.getAbsoluteTime(index));
+        buffer.putLong(samples.getRelativeTime(index));
+        buffer.putDouble(samples.getLat(index));
+        buffer.putDouble(samples.getLon(index));
+        buffer.putDouble(samples.getElevation(index));
+        buffer.putFloat(samples.getSpeed(index));
+        buffer.putFloat(samples.getPressure(index));
+        buffer.putInt(samples.getSegment(index));
+        buffer.flip();
+        write(position);
+        position += RECORD_SIZE;
+    }
+
+    private void write(long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Reads a journal. An incomplete record at the end, written while the process was killed, is ignored.
+     */
+    static Contents read(File file) throws IOException {
+        try (FileChannel channel = new RandomAccessFile(file, "r").getChannel()) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Journal is too short");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a sample journal");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported journal version " + version);
+            }
+            Contents contents = new Contents();
+            contents.start = buffer.getLong();
+            byte[] typeId = new byte[Math.min(buffer.getInt(), MAX_TYPE_ID_LENGTH)];
+            buffer.get(typeId);
+            contents.workoutType = WorkoutType.getTypeById(new String(typeId, StandardCharsets.UTF_8));
+
+            buffer.position(HEADER_SIZE);
+            int count = buffer.remaining() / RECORD_SIZE;
+            contents.samples = new SampleBuffer(count);
+            for (int i = 0; i < count; i++) {
+                contents.samples.add(buffer.getLong(), buffer.getLong(), buffer.getDouble(), buffer.getDouble(),
+                        buffer.getDouble(), buffer.getFloat(), buffer.getFloat(), buffer.getInt());
+            }
+            return contents;
+        }
+    }
+
+    static class Contents {
+        long start;
+        WorkoutType workoutType;
+        SampleBuffer samples;
+    }
+}
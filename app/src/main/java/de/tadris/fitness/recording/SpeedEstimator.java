@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording;
+
+import de.tadris.fitness.util.DistanceUtils;
+
+/**
+ * Provides the speed of each fix for the auto pause and the location interval.
+ * <p>
+ * Not every location provider measures the speed. Fixes without speed get the speed from the distance
+ * and the time to the previous fix, so they don't look like the user is standing still.
+ * <p>
+ * Only used on the recorder thread.
+ */
+class SpeedEstimator {
+
+    /**
+     * Speed of a fix whose provider didn't measure the speed or whose speed couldn't be estimated
+     */
+    static final float UNKNOWN = -1;
+
+    private long lastTime = -1;
+    private double lastLat;
+    private double lastLon;
+
+    /**
+     * @param speed measured speed of the fix in m/s or {@link #UNKNOWN}
+     * @return speed of the fix in m/s, {@link #UNKNOWN} if it wasn't measured and there is no previous fix
+     */
+    float getSpeed(long time, double lat, double lon, float speed) {
+        float result = speed;
+        if (speed == UNKNOWN && lastTime >= 0 && time > lastTime) {
+            double distance = DistanceUtils.sphericalDistance(lastLat, lastLon, lat, lon);
+            result = (float) (distance * 1000 / (time - lastTime));
+        }
+        lastTime = time;
+        lastLat = lat;
+        lastLon = lon;
+        return result;
+    }
+}
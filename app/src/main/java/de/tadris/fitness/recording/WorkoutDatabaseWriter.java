@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording;
+
+import android.util.Log;
+
+import java.util.concurrent.Executor;
+
+import de.tadris.fitness.data.AppDatabase;
+import de.tadris.fitness.data.SampleStorage;
+import de.tadris.fitness.data.Workout;
+import de.tadris.fitness.data.WorkoutDao;
+import de.tadris.fitness.data.WorkoutSample;
+
+/**
+ * Writes the workout of a running recording to the database.
+ * <p>
+ * The workout is inserted as in progress when the recording starts. Samples are written in
+ * batches of {@link #BATCH_SIZE} samples or after {@link #BATCH_INTERVAL} at the latest, so the
+ * recorder doesn't have to keep them in memory. The {@link WorkoutSample} entities are created from
+ * the {@link SampleBuffer} when a batch is written, afterwards the samples are discarded from the buffer.
+ * The newest sample is always kept, because the recorder and the statistics need it for the next one.
+ * All database operations run on the executor in the order they were requested, none of them blocks the caller.
+ * If the sample compression is enabled, the rows are replaced by one track when the workout is finished.
+ */
+class WorkoutDatabaseWriter {
+
+    private static final String TAG = "WorkoutDatabaseWriter";
+
+    static final int BATCH_SIZE = 50;
+    static final long BATCH_INTERVAL = 30 * 1000;
+
+    private final Database database;
+    private final SampleBuffer buffer;
+    private final RecordingClock clock;
+    private final Executor executor;
+    private long workoutId;
+
+    /**
+     * Index of the first sample of the current batch
+     */
+    private int batchStart;
+
+    /**
+     * Exclusive index of the last sample of the current batch
+     */
+    private int batchEnd;
+    private long lastBatchTime;
+
+    /**
+     * First failure of a write while recording, the workout isn't saved then. Only used on the thread of the executor.
+     */
+    private RuntimeException failure;
+
+    /**
+     * @param executor executor that runs the database operations one after another
+     */
+    WorkoutDatabaseWriter(Database database, Executor executor, SampleBuffer buffer, RecordingClock clock) {
+        this.database = database;
+        this.executor = executor;
+        this.buffer = buffer;
+        this.clock = clock;
+    }
+
+    void insertWorkout(Workout workout) {
+        workout.inProgress = true;
+        workoutId = workout.id;
+        lastBatchTime = clock.currentTimeMillis();
+        // The recorder still changes the start of the workout while the insert waits for the executor
+        Workout snapshot = workout.copy();
+        write(() -> database.insertWorkout(snapshot));
+    }
+
+    /**
+     * Adds the sample with the given index to the current batch and writes the batch if it is full or old enough.
+     * Samples have to be added in order.
+     */
+    void addSample(int index) {
+        batchEnd = index + 1;
+        if (batchEnd - batchStart >= BATCH_SIZE || clock.currentTimeMillis() - lastBatchTime >= BATCH_INTERVAL) {
+            writeBatch();
+        }
+    }
+
+    private void writeBatch() {
+        lastBatchTime = clock.currentTimeMillis();
+        if (batchEnd == batchStart) {
+            return;
+        }
+        WorkoutSample[] samples = takeBatch();
+        write(() -> {
+            long start = System.nanoTime();
+            database.insertSamples(samples);
+            long duration = System.nanoTime() - start;
+            RecordingMetrics.getInstance().onBatchInserted(duration / 1000000);
+            Log.d(TAG, "Inserted " + samples.length + " samples in " + duration / 1000 + " us");
+        });
+    }
+
+    /**
+     * Runs a write of the running recording. A failure is kept and reported when the workout is finished.
+     */
+    private void write(Runnable runnable) {
+        executor.execute(() -> {
+            try {
+                runnable.run();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Cannot write the recording", e);
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        });
+    }
+
+    /**
+     * Creates the entities of the current batch and discards the samples from the buffer, except the newest one
+     */
+    private WorkoutSample[] takeBatch() {
+        WorkoutSample[] samples = new WorkoutSample[batchEnd - batchStart];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = buffer.toSample(batchStart + i, workoutId);
+        }
+        // Filters without delay smooth the newest sample immediately, so the batch can end with it
+        buffer.discardBefore(Math.min(batchEnd, buffer.getCount() - 1));
+        batchStart = batchEnd;
+        return samples;
+    }
+
+    /**
+     * Removes all samples of the workout that were written or are waiting to be written.
+     * The buffer has to be cleared as well.
+     */
+    void clearSamples(Workout workout) {
+        batchStart = 0;
+        batchEnd = 0;
+        write(() -> database.deleteSamplesOfWorkout(workout.id));
+    }
+
+    /**
+     * Writes the remaining samples, adds the elevation offset to all samples and updates the workout.
+     * The listener is called on the thread of the executor when everything is written. If a write of the
+     * recording failed, the workout isn't finished and the failure is passed to the listener.
+     *
+     * @param elevationOffset offset between the smoothed raw elevation and the height over sea level
+     */
+    void finish(Workout workout, double elevationOffset, WorkoutRecorder.SaveListener listener) {
+        workout.inProgress = false;
+        WorkoutSample[] samples = takeBatch();
+        execute(() -> {
+            if (failure != null) {
+                throw failure;
+            }
+            long start = System.nanoTime();
+            database.finishWorkout(workout, samples, elevationOffset);
+            RecordingMetrics.getInstance().onSavePhase(RecordingMetrics.PHASE_DATABASE, (System.nanoTime() - start) / 1000000);
+        }, listener);
+    }
+
+    /**
+     * Deletes the workout and its samples. The listener is called on the thread of the executor when they are deleted.
+     */
+    void delete(Workout workout, WorkoutRecorder.SaveListener listener) {
+        execute(() -> database.deleteWorkout(workout), listener);
+    }
+
+    private void execute(Runnable runnable, WorkoutRecorder.SaveListener listener) {
+        executor.execute(() -> {
+            try {
+                runnable.run();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Cannot write the workout", e);
+                listener.onSaveFailed(e);
+                return;
+            }
+            listener.onSaved();
+        });
+    }
+
+    /**
+     * Database operations of the writer, they are called on the thread of the executor
+     */
+    interface Database {
+
+        void insertWorkout(Workout workout);
+
+        void insertSamples(WorkoutSample[] samples);
+
+        void deleteSamplesOfWorkout(long workoutId);
+
+        /**
+         * Inserts the remaining samples, adds the elevation offset to all samples and updates the workout
+         */
+        void finishWorkout(Workout workout, WorkoutSample[] samples, double elevationOffset);
+
+        void deleteWorkout(Workout workout);
+    }
+
+    /**
+     * @param compressSamples whether the samples are stored as {@link de.tadris.fitness.data.WorkoutTrack} when the workout is finished
+     */
+    static Database createDatabase(AppDatabase db, boolean compressSamples) {
+        return new AppDatabaseAdapter(db, compressSamples);
+    }
+
+    private static class AppDatabaseAdapter implements Database {
+
+        private final AppDatabase db;
+        private final WorkoutDao dao;
+        private final boolean compressSamples;
+
+        AppDatabaseAdapter(AppDatabase db, boolean compressSamples) {
+            this.db = db;
+            this.dao = db.workoutDao();
+            this.compressSamples = compressSamples;
+        }
+
+        @Override
+        public void insertWorkout(Workout workout) {
+            dao.insertWorkout(workout);
+        }
+
+        @Override
+        public void insertSamples(WorkoutSample[] samples) {
+            dao.insertSamples(samples);
+        }
+
+        @Override
+        public void deleteSamplesOfWorkout(long workoutId) {
+            dao.deleteSamplesOfWorkout(workoutId);
+        }
+
+        @Override
+        public void finishWorkout(Workout workout, WorkoutSample[] samples, double elevationOffset) {
+            db.runInTransaction(() -> {
+                dao.insertSamples(samples);
+                dao.addElevationOffset(workout.id, elevationOffset);
+                dao.updateWorkout(workout);
+                if (compressSamples) {
+                    SampleStorage.compress(db, workout.id);
+                }
+            });
+        }
+
+        @Override
+        public void deleteWorkout(Workout workout) {
+            dao.deleteWorkout(workout);
+        }
+    }
+}
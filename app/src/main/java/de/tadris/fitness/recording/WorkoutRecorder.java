@@ -24,20 +24,22 @@ import android.graphics.Color;
 import android.location.Location;
 import android.util.Log;
 
-import org.mapsforge.core.model.LatLong;
-
-import java.util.ArrayList;
-import java.util.List;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executor;
 
 import de.tadris.fitness.Instance;
+import de.tadris.fitness.data.UserPreferences;
 import de.tadris.fitness.data.Workout;
-import de.tadris.fitness.data.WorkoutSample;
 import de.tadris.fitness.data.WorkoutType;
+import de.tadris.fitness.util.AltitudeCorrection;
 import de.tadris.fitness.util.CalorieCalculator;
+import de.tadris.fitness.util.GeoidGrid;
+import de.tadris.fitness.util.unit.UnitUtils;
 
 public class WorkoutRecorder implements LocationListener.LocationChangeListener {
 
-    private static final int PAUSE_TIME= 10000;
+    private static final long WATCHDOG_INTERVAL= 5000;
 
     /**
      * Time after which the workout is stopped and saved automatically because there is no activity anymore
@@ -45,25 +47,63 @@ public class WorkoutRecorder implements LocationListener.LocationChangeListener
     private static final int AUTO_STOP_TIMEOUT= 1000*60*60*20; // 20 minutes
 
     private final Context context;
+    private final Environment environment;
+    private final RecordingClock clock;
     private final Workout workout;
-    private RecordingState state;
-    private final List<WorkoutSample> samples= new ArrayList<>();
+    private volatile RecordingState state;
+    private final Object sampleLock= new Object();
+    private final SampleBuffer samples= new SampleBuffer();
+    private final WorkoutDatabaseWriter databaseWriter;
+    private final SampleCleaner cleaner;
+    private final LocationIntervalPolicy intervalPolicy;
+    private final AutoPauseDetector autoPauseDetector;
+    private final SpeedEstimator speedEstimator= new SpeedEstimator();
+    private final FixQueue fixQueue= new FixQueue(FIX_QUEUE_CAPACITY, this::onFix);
+    private final RecordingMetrics metrics= RecordingMetrics.getInstance();
+    private RecordingScheduler scheduler;
+    private volatile RecordingSnapshot snapshot= RecordingSnapshot.EMPTY;
+    private WorkoutStatistics statistics;
+    private LiveMetrics liveMetrics;
+    private SampleJournal journal;
+    private boolean finished= false;
     private long time= 0;
     private long pauseTime= 0;
     private long lastResume;
     private long lastPause= 0;
+    // Only changed on the recorder thread, other threads read them from the snapshot
     private long lastSampleTime= 0;
     private double distance= 0;
+    // Index of the track segment of the next sample, a new segment starts with the first sample after a pause
+    private int segment= 0;
+    private volatile boolean segmentEnded= false;
     private boolean hasBegun = false;
 
     private static final double SIGNAL_BAD_THRESHOLD= 20; // In meters
     private static final int SIGNAL_LOST_THRESHOLD= 10000; // In milliseconds
-    private Location lastFix= null;
+    private static final int FIX_QUEUE_CAPACITY= 64;
+    private volatile Location lastFix= null;
     private final WorkoutRecorderListener workoutRecorderListener;
     private GpsState gpsState= GpsState.SIGNAL_LOST;
 
     public WorkoutRecorder(Context context, WorkoutType workoutType, WorkoutRecorderListener workoutRecorderListener) {
+        this(context, workoutType, workoutRecorderListener, RecordingClock.SYSTEM);
+    }
+
+    /**
+     * @param clock clock used for the duration, the pauses and the timeouts of the recording
+     */
+    public WorkoutRecorder(Context context, WorkoutType workoutType, WorkoutRecorderListener workoutRecorderListener, RecordingClock clock) {
+        // The samples are written in order with the other writes of the app
+        this(context, workoutType, workoutRecorderListener, clock, Environment.of(context, Instance.getInstance(context).workoutRepository.getWriteExecutor()));
+    }
+
+    /**
+     * @param context only used for the pressure of the received locations, a replay without locations doesn't need it
+     */
+    WorkoutRecorder(Context context, WorkoutType workoutType, WorkoutRecorderListener workoutRecorderListener, RecordingClock clock, Environment environment) {
         this.context= context;
+        this.environment= environment;
+        this.clock= clock;
         this.state= RecordingState.IDLE;
         this.workoutRecorderListener = workoutRecorderListener;
 
@@ -74,14 +114,37 @@ public class WorkoutRecorder implements LocationListener.LocationChangeListener
         this.workout.comment= "";
 
         this.workout.setWorkoutType(workoutType);
+
+        this.databaseWriter= new WorkoutDatabaseWriter(environment.database, environment.databaseExecutor, samples, clock);
+        this.cleaner= new SampleCleaner(workoutType);
+        this.intervalPolicy= new LocationIntervalPolicy(workoutType);
+        this.autoPauseDetector= new AutoPauseDetector(workoutType, environment.autoPauseGracePeriod);
+        this.statistics= createStatistics();
+        this.liveMetrics= createLiveMetrics();
+    }
+
+    private LiveMetrics createLiveMetrics(){
+        // A split is one kilometer or one mile
+        return new LiveMetrics(1000 / UnitUtils.CHOSEN_SYSTEM.getDistanceFromKilometers(1));
+    }
+
+    private WorkoutStatistics createStatistics(){
+        // Samples are written with the smoothed raw elevation, the offset is added when saving
+        return new WorkoutStatistics(samples, WorkoutSaver.createElevationFilter(workout.getWorkoutType()), environment.geoidGrid, databaseWriter::addSample);
     }
 
     public void start(){
         if(state == RecordingState.IDLE){
             Log.i("Recorder", "Start");
-            workout.start= System.currentTimeMillis();
+            workout.setStartInLocalTime(clock.currentTimeMillis());
+            insertWorkout();
+            openJournal();
             resume();
-            Instance.getInstance(context).locationChangeListeners.add(this);
+            fixQueue.start("WorkoutRecorder");
+            scheduler= new RecordingScheduler();
+            metrics.reset(scheduler);
+            // Publishing to the fix queue doesn't block, so the recorder gets every fix on the dispatcher thread
+            environment.locationDispatcher.addListener(this, LocationDispatcher.DeliveryPolicy.SYNCHRONOUS);
             startWatchdog();
         }else if(state == RecordingState.PAUSED){
             resume();
@@ -90,41 +153,73 @@ public class WorkoutRecorder implements LocationListener.LocationChangeListener
         }
     }
 
+    private void insertWorkout(){
+        // The id has to be unique, so it's always the real time
+        workout.id= System.currentTimeMillis();
+        databaseWriter.insertWorkout(workout);
+    }
+
+    private void openJournal(){
+        if(environment.journalFile == null){
+            return;
+        }
+        try {
+            journal= SampleJournal.create(environment.journalFile, workout.getWorkoutType(), workout.start);
+        } catch (IOException e) {
+            // Recording works without the journal, it just can't be recovered
+            e.printStackTrace();
+        }
+    }
+
+    private void closeJournal(boolean delete){
+        if(journal != null){
+            try {
+                journal.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            journal= null;
+        }
+        if(delete){
+            deleteJournal();
+        }
+    }
+
+    private void deleteJournal(){
+        if(environment.journalFile != null){
+            SampleJournal.delete(environment.journalFile);
+        }
+    }
+
+    /**
+     * @return scheduler for periodic tasks of the recording, null if the recording wasn't started
+     */
+    public RecordingScheduler getScheduler(){
+        return scheduler;
+    }
+
     public boolean isActive(){
         return state == RecordingState.RUNNING || state == RecordingState.PAUSED;
     }
 
     private void startWatchdog(){
-        new Thread(() -> {
-            try {
-                while (isActive()){
-                    checkSignalState();
-                    synchronized (samples){
-                        if(samples.size() > 2){
-                            long timeDiff= System.currentTimeMillis() - lastSampleTime;
-                            if(timeDiff > AUTO_STOP_TIMEOUT){
-                                if(isActive()){
-                                    stop();
-                                    save();
-                                    workoutRecorderListener.onAutoStop();
-                                }
-                            }else if(timeDiff > PAUSE_TIME){
-                                if (state == RecordingState.RUNNING && gpsState != GpsState.SIGNAL_LOST) {
-                                    pause();
-                                }
-                            }else{
-                                if(state == RecordingState.PAUSED){
-                                    resume();
-                                }
-                            }
-                        }
-                    }
-                    Thread.sleep(5000);
-                }
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+        scheduler.schedule("Watchdog", WATCHDOG_INTERVAL, WATCHDOG_INTERVAL, this::checkWatchdog);
+    }
+
+    private void checkWatchdog(){
+        if(!isActive()){
+            return;
+        }
+        checkSignalState();
+        RecordingSnapshot snapshot= this.snapshot;
+        // Pauses are detected on every fix, see onFix
+        if(snapshot.getSampleCount() > 2){
+            long timeDiff= clock.currentTimeMillis() - snapshot.getLastFixTime();
+            if(timeDiff > AUTO_STOP_TIMEOUT && isActive()){
+                stop();
+                workoutRecorderListener.onAutoStop();
             }
-        }, "WorkoutWatchdog").start();
+        }
     }
 
     private void checkSignalState(){
@@ -132,7 +227,7 @@ public class WorkoutRecorder implements LocationListener.LocationChangeListener
             return;
         }
         GpsState state;
-        if(System.currentTimeMillis() - lastFix.getTime() > SIGNAL_LOST_THRESHOLD){
+        if(clock.currentTimeMillis() - lastFix.getTime() > SIGNAL_LOST_THRESHOLD){
             state= GpsState.SIGNAL_LOST;
         }else if(lastFix.getAccuracy() > SIGNAL_BAD_THRESHOLD){
             state= GpsState.SIGNAL_BAD;
@@ -146,118 +241,409 @@ public class WorkoutRecorder implements LocationListener.LocationChangeListener
     }
 
     private void resume(){
+        resume(clock.currentTimeMillis());
+    }
+
+    /**
+     * @param at time the user moved again, between the last pause and now
+     */
+    private void resume(long at){
         Log.i("Recorder", "Resume");
+        at= Math.min(Math.max(at, lastPause), clock.currentTimeMillis());
         state= RecordingState.RUNNING;
-        lastResume= System.currentTimeMillis();
+        lastResume= at;
         if(lastPause != 0){
-            pauseTime+= System.currentTimeMillis() - lastPause;
+            pauseTime+= at - lastPause;
+        }
+        if(intervalPolicy.onResume()){
+            requestLocationInterval(intervalPolicy.getInterval());
         }
     }
 
     private void pause() {
+        pause(clock.currentTimeMillis());
+    }
+
+    /**
+     * @param at time the user stopped, between the last resume and now
+     */
+    private void pause(long at) {
         if(state == RecordingState.RUNNING){
             Log.i("Recorder", "Pause");
+            at= Math.min(Math.max(at, lastResume), clock.currentTimeMillis());
             state= RecordingState.PAUSED;
-            time+= System.currentTimeMillis() - lastResume;
-            lastPause= System.currentTimeMillis();
+            time+= at - lastResume;
+            lastPause= at;
+            segmentEnded= true;
+            if(intervalPolicy.onPause()){
+                requestLocationInterval(intervalPolicy.getInterval());
+            }
         }
     }
 
+    private void requestLocationInterval(long interval){
+        Log.i("Recorder", "Location interval " + interval + " ms");
+        environment.locationDispatcher.requestInterval(interval);
+    }
+
     public void stop(){
+        if(state == RecordingState.STOPPED){
+            // The activity also stops the recorder when it's destroyed after the workout was stopped and saved
+            return;
+        }
         Log.i("Recorder", "Stop");
+        // Records the fixes that are still queued
+        fixQueue.stop();
+        if(scheduler != null && !scheduler.isShutdown()){
+            Log.i("Recorder", "Scheduled tasks: " + scheduler);
+            scheduler.shutdown();
+        }
         if(state == RecordingState.PAUSED){
             resume();
         }
         pause();
-        workout.end= System.currentTimeMillis();
+        workout.end= clock.currentTimeMillis();
         workout.duration= time;
         workout.pauseDuration= pauseTime;
         state= RecordingState.STOPPED;
-        Instance.getInstance(context).locationChangeListeners.remove(this);
+        environment.locationDispatcher.removeListener(this);
+        requestLocationInterval(LocationDispatcher.DEFAULT_INTERVAL);
     }
 
-    public void save(){
+    /**
+     * Saves the workout in the background. The journal is deleted when the workout is written,
+     * so the recording can still be recovered if the process is killed before.
+     *
+     * @param listener called on the database thread when the workout is saved or the save failed
+     */
+    public void save(SaveListener listener){
         if(state != RecordingState.STOPPED){
             throw new IllegalStateException("Cannot save recording, recorder was not stopped. state = " + state);
         }
-        Log.i("Recorder", "Save");
-        synchronized (samples){
-            new WorkoutSaver(context, workout, samples).saveWorkout();
+        synchronized (sampleLock){
+            if(finished){
+                return;
+            }
+            Log.i("Recorder", "Save");
+            Log.i("Recorder", "Dropped fixes: " + cleaner);
+            finished= true;
+            closeJournal(false);
+            new WorkoutSaver(workout, statistics, databaseWriter, environment.userWeight).saveWorkout(new SaveListener() {
+                @Override
+                public void onSaved() {
+                    deleteJournal();
+                    listener.onSaved();
+                }
+
+                @Override
+                public void onSaveFailed(Exception e) {
+                    // The journal is recovered the next time
+                    listener.onSaveFailed(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Discards the recording without saving it. The workout is deleted in the background.
+     *
+     * @param listener called on the database thread when the workout is deleted or the deletion failed
+     */
+    public void discard(SaveListener listener){
+        if(state != RecordingState.STOPPED){
+            throw new IllegalStateException("Cannot discard recording, recorder was not stopped. state = " + state);
         }
+        synchronized (sampleLock){
+            if(finished){
+                return;
+            }
+            Log.i("Recorder", "Discard");
+            finished= true;
+            databaseWriter.delete(workout, listener);
+        }
+        closeJournal(true);
     }
 
-    public int getSampleCount(){
-        synchronized (samples){
-            return samples.size();
+    /**
+     * Saves the workout of a recording that wasn't finished, for example because the app was killed.
+     * The samples that were already written to the database are replaced by the ones from the journal.
+     * A journal that can't be recovered is moved aside, so it doesn't prevent the next recording.
+     * Accesses the database, so it must not be called on the main thread.
+     *
+     * @return true if an unfinished recording was found and saved
+     */
+    public static boolean recoverUnfinishedWorkout(Context context){
+        try {
+            Instance.getInstance(context).db.workoutDao().deleteWorkoutsInProgress();
+            File file= SampleJournal.getFile(context);
+            if(!file.exists()){
+                return false;
+            }
+            boolean recovered= recover(context, SampleJournal.read(file));
+            SampleJournal.delete(context);
+            return recovered;
+        } catch (IOException | RuntimeException e) {
+            Log.e("Recorder", "Cannot recover the unfinished workout", e);
+            SampleJournal.quarantine(context);
+            return false;
+        }
+    }
+
+    private static boolean recover(Context context, SampleJournal.Contents contents){
+        if(contents.samples.getCount() <= 3){
+            return false;
+        }
+        Log.i("Recorder", "Recover " + contents.samples.getCount() + " samples");
+        // Already runs in the background, so the workout is written on this thread
+        WorkoutRecorder recorder= new WorkoutRecorder(context, contents.workoutType, null, RecordingClock.SYSTEM, Environment.of(context, Runnable::run));
+        recorder.restore(contents);
+        Exception[] failure= new Exception[1];
+        recorder.save(new SaveListener() {
+            @Override
+            public void onSaved() { }
+
+            @Override
+            public void onSaveFailed(Exception e) {
+                failure[0]= e;
+            }
+        });
+        if(failure[0] != null){
+            throw new RuntimeException(failure[0]);
+        }
+        return true;
+    }
+
+    private void restore(SampleJournal.Contents contents){
+        workout.setStartInLocalTime(contents.start);
+        insertWorkout();
+        SampleBuffer journalSamples= contents.samples;
+        for(int i= 0; i < journalSamples.getCount(); i++){
+            addSample(journalSamples.getAbsoluteTime(i), journalSamples.getRelativeTime(i), journalSamples.getLat(i), journalSamples.getLon(i),
+                    journalSamples.getElevation(i), journalSamples.getSpeed(i), journalSamples.getPressure(i), journalSamples.getSegment(i));
         }
+        int last= samples.getCount() - 1;
+        workout.end= samples.getAbsoluteTime(last);
+        // The relative time doesn't include the pauses
+        time= samples.getRelativeTime(last);
+        pauseTime= samples.getAbsoluteTime(last) - workout.start - samples.getRelativeTime(last);
+        workout.duration= time;
+        workout.pauseDuration= pauseTime;
+        state= RecordingState.STOPPED;
+        publishSnapshot();
+    }
+
+    /**
+     * @return the totals of the recording, can be called from any thread without blocking
+     */
+    public RecordingSnapshot getSnapshot(){
+        return snapshot;
+    }
+
+    public int getSampleCount(){
+        return snapshot.getSampleCount();
     }
 
     @Override
     public void onLocationChange(Location location) {
         lastFix= location;
+        metrics.onFixReceived(location.getProvider());
         if(isActive()){
-            double distance= 0;
-            if(getSampleCount() > 0){
-                // Checks whether the minimum distance to last sample was reached
-                // and if the time difference to the last sample is too small
-                synchronized (samples){
-                    WorkoutSample lastSample= samples.get(samples.size() - 1);
-                    distance= LocationListener.locationToLatLong(location).sphericalDistance(new LatLong(lastSample.lat, lastSample.lon));
-                    long timediff= lastSample.absoluteTime - location.getTime();
-                    if (distance < workout.getWorkoutType().minDistance && timediff < 500) {
-                        return;
-                    }
-                }
+            if(!publishFix(location.getTime(), location.getLatitude(), location.getLongitude(), location.getAltitude(),
+                    getSpeed(location), getAccuracy(location), getPressure(location))){
+                metrics.onQueueOverflow();
+            }
+        }
+    }
+
+    /**
+     * Queues a fix for the recorder thread, so the location callback never waits for a lock
+     *
+     * @param speed measured speed or {@link SpeedEstimator#UNKNOWN}
+     * @return false if the queue is full and the fix was dropped
+     */
+    boolean publishFix(long time, double lat, double lon, double altitude, float speed, float accuracy, float pressure){
+        return fixQueue.publish(time, lat, lon, altitude, speed, accuracy, pressure);
+    }
+
+    /**
+     * @return number of published fixes the recorder thread didn't record yet
+     */
+    int getQueuedFixCount(){
+        return fixQueue.size();
+    }
+
+    private static float getSpeed(Location location){
+        return location.hasSpeed() ? location.getSpeed() : SpeedEstimator.UNKNOWN;
+    }
+
+    private static float getAccuracy(Location location){
+        return location.hasAccuracy() ? location.getAccuracy() : 0;
+    }
+
+    /**
+     * @return pressure at the time of the fix or -1 if there is no barometer
+     */
+    private float getPressure(Location location){
+        Instance instance= Instance.getInstance(context);
+        if(!instance.isPressureAvailable()){
+            return -1;
+        }
+        long elapsedRealtime= location.getElapsedRealtimeNanos() / 1000000;
+        if(elapsedRealtime > 0){
+            return instance.pressureBuffer.getPressure(elapsedRealtime);
+        }else{
+            // Some providers don't set the elapsed realtime
+            return instance.pressureBuffer.getLatestPressure();
+        }
+    }
+
+    /**
+     * Called on the recorder thread for every published fix
+     *
+     * @param speed measured speed or {@link SpeedEstimator#UNKNOWN}
+     */
+    private void onFix(long time, double lat, double lon, double altitude, float speed, float accuracy, float pressure){
+        if(!isActive()){
+            return;
+        }
+        float fixSpeed= speedEstimator.getSpeed(time, lat, lon, speed);
+        if(fixSpeed != SpeedEstimator.UNKNOWN){
+            checkAutoPause(time, fixSpeed);
+            // Slow movement needs fewer fixes, because fixes closer than the minimum distance are dropped
+            if(intervalPolicy.onFix(time, fixSpeed)){
+                requestLocationInterval(intervalPolicy.getInterval());
+            }
+        }
+        // Samples only store measured speeds
+        speed= Math.max(speed, 0);
+        double distance= 0;
+        int count;
+        synchronized (sampleLock){
+            // Drops duplicates, inaccurate fixes, spikes and fixes too close to the last sample
+            SampleCleaner.Rule rule= cleaner.check(time, lat, lon, accuracy);
+            if(rule != null){
+                metrics.onFixRejected(rule);
+                return;
             }
-            lastSampleTime= System.currentTimeMillis();
-            if(state == RecordingState.RUNNING && location.getTime() > workout.start){
-                if(samples.size() == 2 && !hasBegun){
-                    initialClearValues();
-                    hasBegun = true; // Do not clear a second time
+            count= samples.getCount();
+            if(count > 0){
+                distance= samples.getDistance(count - 1, lat, lon);
+            }
+        }
+        lastSampleTime= clock.currentTimeMillis();
+        if(state == RecordingState.RUNNING && time > workout.start){
+            if(count == 2 && !hasBegun){
+                initialClearValues();
+                hasBegun = true; // Do not clear a second time
+            }
+            if(segmentEnded){
+                segmentEnded= false;
+                if(count > 0){
+                    // The way covered during the pause doesn't count
+                    segment++;
+                    distance= 0;
                 }
-                this.distance+= distance;
-                addToSamples(location);
             }
+            this.distance+= distance;
+            long relativeTime= time - workout.start - pauseTime;
+            synchronized (sampleLock){
+                cleaner.accept(time, lat, lon, accuracy);
+                addSample(time, relativeTime, lat, lon, altitude, speed, pressure, segment);
+                liveMetrics.add(relativeTime, this.distance);
+            }
+            metrics.onSampleAppended(clock.currentTimeMillis() - time);
+        }else{
+            metrics.onFixIgnored();
         }
+        publishSnapshot();
     }
 
-    private void addToSamples(Location location){
-        WorkoutSample sample= new WorkoutSample();
-        sample.lat= location.getLatitude();
-        sample.lon= location.getLongitude();
-        sample.elevation= location.getAltitude();
-        sample.speed= location.getSpeed();
-        sample.relativeTime= location.getTime() - workout.start - pauseTime;
-        sample.absoluteTime= location.getTime();
-        if(Instance.getInstance(context).isPressureAvailable()){
-            sample.tmpPressure= Instance.getInstance(context).lastPressure;
-        }else{
-            sample.tmpPressure= -1;
+    /**
+     * Pauses or resumes the recording at the time the user stopped or moved again
+     */
+    private void checkAutoPause(long time, float speed){
+        switch (autoPauseDetector.onFix(time, speed)){
+            case PAUSE:
+                if(state == RecordingState.RUNNING){
+                    long at= autoPauseDetector.getBoundaryTime();
+                    synchronized (sampleLock){
+                        // Samples recorded during the grace period stay in the moving time
+                        int count= samples.getCount();
+                        if(count > 0){
+                            at= Math.max(at, samples.getAbsoluteTime(count - 1));
+                        }
+                    }
+                    pause(at);
+                    metrics.onAutoPause();
+                }
+                break;
+            case RESUME:
+                if(state == RecordingState.PAUSED){
+                    resume(autoPauseDetector.getBoundaryTime());
+                    metrics.onAutoResume();
+                }
+                break;
+        }
+    }
+
+    private void publishSnapshot(){
+        synchronized (sampleLock){
+            snapshot= new RecordingSnapshot(samples.getCount(), distance, lastSampleTime, statistics.getAscent(), liveMetrics);
         }
-        synchronized (samples){
-            samples.add(sample);
+    }
+
+    private void addSample(long absoluteTime, long relativeTime, double lat, double lon, double elevation, float speed, float pressure, int segment){
+        synchronized (sampleLock){
+            int index= samples.add(absoluteTime, relativeTime, lat, lon, elevation, speed, pressure, segment);
+            statistics.add(index);
+            appendToJournal(index);
+        }
+    }
+
+    private void appendToJournal(int index){
+        if(journal != null){
+            try {
+                journal.append(samples, index);
+            } catch (IOException e) {
+                e.printStackTrace();
+                closeJournal(false);
+            }
         }
     }
 
     private void initialClearValues(){
-        lastResume= System.currentTimeMillis();
-        workout.start= System.currentTimeMillis();
+        lastResume= clock.currentTimeMillis();
+        workout.setStartInLocalTime(clock.currentTimeMillis());
         lastPause= 0;
         time= 0;
         pauseTime= 0;
         this.distance= 0;
-        samples.clear();
+        segment= 0;
+        segmentEnded= false;
+        synchronized (sampleLock){
+            samples.clear();
+            cleaner.reset();
+            statistics= createStatistics();
+            liveMetrics= createLiveMetrics();
+            databaseWriter.clearSamples(workout);
+        }
+        if(journal != null){
+            try {
+                journal.reset(workout.start);
+            } catch (IOException e) {
+                e.printStackTrace();
+                closeJournal(false);
+            }
+        }
     }
 
     public int getDistanceInMeters() {
-        return (int)distance;
+        return (int)snapshot.getDistance();
     }
 
     private int maxCalories= 0;
     public int getCalories(){
-        workout.avgSpeed= getAvgSpeed();
-        workout.duration= getDuration();
-        int calories= CalorieCalculator.calculateCalories(workout, Instance.getInstance(context).userPreferences.getUserWeight());
+        int calories= CalorieCalculator.calculateCalories(workout.getWorkoutType(), getDuration(), getAvgSpeed(), snapshot.getAscent(), environment.userWeight);
         if(calories > maxCalories){
             maxCalories= calories;
         }
@@ -269,12 +655,12 @@ public class WorkoutRecorder implements LocationListener.LocationChangeListener
      * @return avgSpeed in m/s
      */
     public double getAvgSpeed(){
-        return distance / (double)(getDuration() / 1000);
+        return snapshot.getDistance() / (double)(getDuration() / 1000);
     }
 
     public long getPauseDuration(){
         if(state == RecordingState.PAUSED){
-            return pauseTime + (System.currentTimeMillis() - lastPause);
+            return pauseTime + (clock.currentTimeMillis() - lastPause);
         }else{
             return pauseTime;
         }
@@ -282,7 +668,7 @@ public class WorkoutRecorder implements LocationListener.LocationChangeListener
 
     public long getDuration(){
         if(state == RecordingState.RUNNING){
-            return time + (System.currentTimeMillis() - lastResume);
+            return time + (clock.currentTimeMillis() - lastResume);
         }else{
             return time;
         }
@@ -315,7 +701,73 @@ public class WorkoutRecorder implements LocationListener.LocationChangeListener
 
     public interface WorkoutRecorderListener {
         void onGPSStateChanged(GpsState oldState, GpsState state);
+
+        /**
+         * Called when the recording was stopped because there was no activity anymore. It has to be saved then.
+         */
         void onAutoStop();
     }
 
+    public interface SaveListener {
+        void onSaved();
+
+        void onSaveFailed(Exception e);
+    }
+
+    /**
+     * Parts of the app the recorder uses, a replay in a test provides them without the app
+     */
+    static class Environment {
+
+        final WorkoutDatabaseWriter.Database database;
+        /**
+         * Executor that writes the workout and its samples in the order they were requested
+         */
+        final Executor databaseExecutor;
+        final LocationDispatcher locationDispatcher;
+        /**
+         * Null if the elevation can't be corrected
+         */
+        final GeoidGrid geoidGrid;
+        /**
+         * Journal of the recording, null to record without one
+         */
+        final File journalFile;
+        final double userWeight;
+        /**
+         * Time in milliseconds the user has to be slow until the recording is paused
+         */
+        final long autoPauseGracePeriod;
+
+        Environment(WorkoutDatabaseWriter.Database database, Executor databaseExecutor, LocationDispatcher locationDispatcher,
+                    GeoidGrid geoidGrid, File journalFile, double userWeight, long autoPauseGracePeriod) {
+            this.database = database;
+            this.databaseExecutor = databaseExecutor;
+            this.locationDispatcher = locationDispatcher;
+            this.geoidGrid = geoidGrid;
+            this.journalFile = journalFile;
+            this.userWeight = userWeight;
+            this.autoPauseGracePeriod = autoPauseGracePeriod;
+        }
+
+        static Environment of(Context context, Executor databaseExecutor) {
+            Instance instance = Instance.getInstance(context);
+            UserPreferences preferences = instance.userPreferences;
+            return new Environment(WorkoutDatabaseWriter.createDatabase(instance.db, preferences.isSampleCompressionEnabled()), databaseExecutor,
+                    instance.locationDispatcher, getGeoidGrid(context), SampleJournal.getFile(context),
+                    preferences.getUserWeight(), preferences.getAutoPauseGracePeriod() * 1000L);
+        }
+
+        private static GeoidGrid getGeoidGrid(Context context) {
+            // Please see the AltitudeCorrection.java for the reason of this
+            try {
+                return AltitudeCorrection.getGeoidGrid(context);
+            } catch (IOException e) {
+                // If we can't read the file, we cannot correct the values
+                e.printStackTrace();
+                return null;
+            }
+        }
+    }
+
 }
@@ -19,191 +19,115 @@
 
 package de.tadris.fitness.recording;
 
-import android.content.Context;
-import android.hardware.SensorManager;
-import android.util.Log;
-
-import java.io.IOException;
-import java.util.List;
-
-import de.tadris.fitness.Instance;
-import de.tadris.fitness.data.AppDatabase;
 import de.tadris.fitness.data.Workout;
-import de.tadris.fitness.data.WorkoutSample;
-import de.tadris.fitness.util.AltitudeCorrection;
+import de.tadris.fitness.data.WorkoutType;
 import de.tadris.fitness.util.CalorieCalculator;
+import de.tadris.fitness.util.elevation.ElevationFilter;
+import de.tadris.fitness.util.elevation.ElevationFilterPipeline;
+import de.tadris.fitness.util.elevation.HysteresisFilter;
+import de.tadris.fitness.util.elevation.KalmanElevationFilter;
+import de.tadris.fitness.util.elevation.MedianFilter;
+import de.tadris.fitness.util.elevation.MovingAverageFilter;
 
 class WorkoutSaver {
 
-    private final Context context;
     private final Workout workout;
-    private final List<WorkoutSample> samples;
-    private final AppDatabase db;
+    private final WorkoutStatistics statistics;
+    private final WorkoutDatabaseWriter databaseWriter;
+    private final double userWeight;
 
-    public WorkoutSaver(Context context, Workout workout, List<WorkoutSample> samples) {
-        this.context = context;
+    public WorkoutSaver(Workout workout, WorkoutStatistics statistics, WorkoutDatabaseWriter databaseWriter, double userWeight) {
         this.workout = workout;
-        this.samples = samples;
-        db= Instance.getInstance(context).db;
+        this.statistics = statistics;
+        this.databaseWriter = databaseWriter;
+        this.userWeight = userWeight;
+    }
+
+    /**
+     * Creates the filter that smoothes the elevation of a workout while it's recorded
+     */
+    static ElevationFilter createElevationFilter(WorkoutType workoutType){
+        switch (workoutType){
+            case HIKING:
+                // Slow enough that GPS spikes while standing would be spread over the floating average
+                return new ElevationFilterPipeline(new MedianFilter(3), new MovingAverageFilter(WorkoutStatistics.ELEVATION_RANGE));
+            case CYCLING:
+                // Fast elevation changes, the barometer follows them better than the average of the GPS elevation
+                return new ElevationFilterPipeline(new KalmanElevationFilter(), new HysteresisFilter(1));
+            default:
+                return new MovingAverageFilter(WorkoutStatistics.ELEVATION_RANGE);
+        }
     }
 
-    public void saveWorkout(){
-        setIds();
-        clearSamplesWithSameTime();
+    /**
+     * Calculates the values of the workout and writes it in the background
+     *
+     * @param listener called on the database thread when the workout is written
+     */
+    public void saveWorkout(WorkoutRecorder.SaveListener listener){
+        RecordingMetrics metrics= RecordingMetrics.getInstance();
+        long time= System.nanoTime();
+        statistics.finish();
+        time= recordPhase(metrics, RecordingMetrics.PHASE_STATISTICS, time);
+
         setSimpleValues();
         setTopSpeed();
-
-        setElevation();
         setAscentAndDescent();
+        time= recordPhase(metrics, RecordingMetrics.PHASE_VALUES, time);
 
         setCalories();
+        recordPhase(metrics, RecordingMetrics.PHASE_CALORIES, time);
 
-        storeInDatabase();
+        // The writer records the database phase when it's done
+        storeInDatabase(listener);
     }
 
-    private void setIds(){
-        workout.id= System.currentTimeMillis();
-        int i= 0;
-        for(WorkoutSample sample : samples) {
-            i++;
-            sample.id = workout.id + i;
-            sample.workoutId = workout.id;
-        }
-    }
-
-    private void clearSamplesWithSameTime(){
-        for(int i= samples.size()-2; i >= 0; i--){
-            WorkoutSample sample= samples.get(i);
-            WorkoutSample lastSample= samples.get(i+1);
-            if(sample.absoluteTime == lastSample.absoluteTime){
-                samples.remove(lastSample);
-                Log.i("WorkoutManager", "Removed samples at " + sample.absoluteTime + " rel: " + sample.relativeTime + "; " + lastSample.relativeTime);
-            }
-        }
+    /**
+     * @return end of the phase
+     */
+    private static long recordPhase(RecordingMetrics metrics, String phase, long start){
+        long end= System.nanoTime();
+        metrics.onSavePhase(phase, (end - start) / 1000000);
+        return end;
     }
 
     private void setSimpleValues(){
-        double length= 0;
-        for(int i= 1; i < samples.size(); i++){
-            double sampleLength= samples.get(i - 1).toLatLong().sphericalDistance(samples.get(i).toLatLong());
-            length+= sampleLength;
-        }
-        workout.length= (int)length;
+        workout.length= (int)statistics.getLength();
         workout.avgSpeed= ((double) workout.length) / ((double) workout.duration / 1000);
         workout.avgPace= ((double)workout.duration / 1000 / 60) / ((double) workout.length / 1000);
     }
 
     private void setTopSpeed(){
-        double topSpeed= 0;
-        for(WorkoutSample sample : samples){
-            if(sample.speed > topSpeed){
-                topSpeed= sample.speed;
-            }
-        }
-        workout.topSpeed= topSpeed;
-    }
-
-    private void setElevation() {
-        setCorrectedElevation();
-        setPressureElevation();
-    }
-
-    private void setCorrectedElevation() {
-        // Please see the AltitudeCorrection.java for the reason of this
-        try {
-            int lat = (int) Math.round(samples.get(0).lat);
-            int lon = (int) Math.round(samples.get(0).lon);
-            AltitudeCorrection correction = new AltitudeCorrection(context, lat, lon);
-            for (WorkoutSample sample : samples) {
-                sample.elevation = correction.getHeightOverSeaLevel(sample.elevation);
-            }
-        } catch (IOException e) {
-            // If we can't read the file, we cannot correct the values
-            e.printStackTrace();
-        }
-    }
-
-    private void setPressureElevation() {
-        boolean pressureDataAvailable= samples.get(0).tmpPressure != -1;
-
-        if(!pressureDataAvailable){
-            // Because pressure data isn't available we just use the use GPS elevation
-            // in WorkoutSample.elevation which was already set
-            return;
-        }
-
-        double avgElevation= getAverageElevation();
-        double avgPressure=  getAveragePressure();
-
-        for(int i= 0; i < samples.size(); i++){
-            WorkoutSample sample= samples.get(i);
-
-            // Altitude Difference to Average Elevation in meters
-            float altitude_difference =
-                    SensorManager.getAltitude(SensorManager.PRESSURE_STANDARD_ATMOSPHERE, sample.tmpPressure) -
-                            SensorManager.getAltitude(SensorManager.PRESSURE_STANDARD_ATMOSPHERE, (float) avgPressure);
-            sample.elevation= avgElevation + altitude_difference;
-        }
-    }
-
-    private double getAverageElevation(){
-        return getAverageElevation(samples);
-    }
-
-    private double getAverageElevation(List<WorkoutSample> samples){
-        double elevationSum= 0; // Sum of elevation
-        for(WorkoutSample sample : samples){
-            elevationSum+= sample.elevation;
-        }
-
-        return elevationSum / samples.size();
-    }
-
-    private double getAveragePressure(){
-        double pressureSum= 0;
-        for(WorkoutSample sample : samples){
-            pressureSum+= sample.tmpPressure;
-        }
-        return pressureSum  / samples.size();
+        workout.topSpeed= statistics.getTopSpeed();
     }
 
     private void setAscentAndDescent(){
-        workout.ascent = 0;
-        workout.descent = 0;
-
-        // First calculate a floating average to eliminate pressure noise to influence our ascent/descent
-        int range = 7;
-        for(int i= 0; i < samples.size(); i++){
-            int minIndex = Math.max(i - range, 0);
-            int maxIndex = Math.min(i + range, samples.size() - 1);
-            samples.get(i).tmpElevation = getAverageElevation(samples.subList(minIndex, maxIndex));
-        }
+        // The statistics smoothed the elevation while recording, see WorkoutStatistics
+        workout.ascent= (float)statistics.getAscent();
+        workout.descent= (float)statistics.getDescent();
+    }
 
-        // Now sum up the ascent/descent
-        for(int i= 0; i < samples.size(); i++) {
-            WorkoutSample sample = samples.get(i);
-            sample.elevation= sample.tmpElevation;
-            if(i >= 1){
-                WorkoutSample lastSample= samples.get(i-1);
-                double diff= sample.elevation - lastSample.elevation;
-                if(diff > 0){
-                    // If this sample is higher than the last one, add difference to ascent
-                    workout.ascent += diff;
-                }else{
-                    // If this sample is lower than the last one, add difference to descent
-                    workout.descent += Math.abs(diff);
-                }
-            }
+    private double getElevationOffset(){
+        if(statistics.isGpsScale()){
+            // Elevations were corrected with the geoid height of each sample already
+            return 0;
+        }else{
+            // The barometric altitude is relative to the average elevation and average pressure
+            double avgElevation= statistics.getAverageElevation() - statistics.getAverageGeoidHeight();
+            return avgElevation - WorkoutStatistics.getBarometricAltitude((float) statistics.getAveragePressure());
         }
-
     }
 
     private void setCalories() {
         // Ascent has to be set previously
-        workout.calorie = CalorieCalculator.calculateCalories(workout, Instance.getInstance(context).userPreferences.getUserWeight());
+        workout.calorie = CalorieCalculator.calculateCalories(workout, userWeight);
     }
 
-    private void storeInDatabase(){
-        db.workoutDao().insertWorkoutAndSamples(workout, samples.toArray(new WorkoutSample[0]));
+    /**
+     * The samples were written with the smoothed raw elevation while recording,
+     * so only the offset to the real elevation has to be added to them.
+     */
+    private void storeInDatabase(WorkoutRecorder.SaveListener listener){
+        databaseWriter.finish(workout, getElevationOffset(), listener);
     }
 }
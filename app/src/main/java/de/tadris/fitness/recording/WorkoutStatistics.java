@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording;
+
+import de.tadris.fitness.util.GeoidGrid;
+import de.tadris.fitness.util.elevation.ElevationFilter;
+import de.tadris.fitness.util.elevation.MovingAverageFilter;
+
+/**
+ * Keeps the statistics of a recording up to date while the samples arrive,
+ * so the {@link WorkoutSaver} only has to read the finished values.
+ * <p>
+ * The elevation is smoothed with an {@link ElevationFilter}. Filters that look into the
+ * future emit the smoothed value of a sample as soon as the last sample they need arrives.
+ * The remaining samples at the end are smoothed in {@link #finish()}.
+ * <p>
+ * The smoothed values are calculated on the raw elevation (GPS altitude or barometric altitude)
+ * and written into the {@link SampleBuffer}. If the values are in the scale of the GPS altitude,
+ * the geoid height at the position of each sample is subtracted, so they are the height over sea level.
+ * Values in the scale of the barometric altitude have the same offset to the real elevation for all
+ * samples, so it does not change the ascent and descent and can be added when saving.
+ * The {@link SmoothingListener} is notified when the smoothed value of a sample is final.
+ */
+class WorkoutStatistics {
+
+    /**
+     * Number of samples before and after a sample that are used for the default floating average of the elevation
+     */
+    static final int ELEVATION_RANGE = 7;
+
+    /**
+     * Same as {@link android.hardware.SensorManager#PRESSURE_STANDARD_ATMOSPHERE}
+     */
+    static final float PRESSURE_STANDARD_ATMOSPHERE = 1013.25f;
+
+    private final SampleBuffer buffer;
+    private final ElevationFilter elevationFilter;
+    private final GeoidGrid geoidGrid;
+    private final SmoothingListener smoothingListener;
+
+    private int count;
+    private int smoothedCount;
+    private double firstLat;
+    private double firstLon;
+    private boolean pressureAvailable;
+    private boolean finished;
+
+    private double length;
+    private double topSpeed;
+    private double elevationSum;
+    private double pressureSum;
+    private double geoidHeightSum;
+
+    private double lastSmoothedElevation;
+    private double ascent;
+    private double descent;
+
+    WorkoutStatistics(SampleBuffer buffer) {
+        this(buffer, new MovingAverageFilter(ELEVATION_RANGE), null, index -> { });
+    }
+
+    /**
+     * @param geoidGrid grid to correct the GPS altitude or null if it couldn't be loaded
+     */
+    WorkoutStatistics(SampleBuffer buffer, ElevationFilter elevationFilter, GeoidGrid geoidGrid, SmoothingListener smoothingListener) {
+        this.buffer = buffer;
+        this.elevationFilter = elevationFilter;
+        this.geoidGrid = geoidGrid;
+        this.smoothingListener = smoothingListener;
+        elevationFilter.setOutput(this::onSmoothed);
+    }
+
+    /**
+     * Adds the sample with the given index to the statistics. Samples have to be added in order.
+     */
+    void add(int index) {
+        if (finished) {
+            throw new IllegalStateException("Cannot add samples, statistics are already finished");
+        }
+        if (index != count) {
+            throw new IllegalArgumentException("Expected sample " + count + " but got " + index);
+        }
+
+        if (count == 0) {
+            firstLat = buffer.getLat(index);
+            firstLon = buffer.getLon(index);
+            pressureAvailable = buffer.getPressure(index) != -1;
+        } else if (buffer.getSegment(index) == buffer.getSegment(index - 1)) {
+            // The way between two segments was covered while the recording was paused
+            length += buffer.getDistance(index - 1, index);
+        }
+        float speed = buffer.getSpeed(index);
+        if (speed > topSpeed) {
+            topSpeed = speed;
+        }
+        float pressure = buffer.getPressure(index);
+        double elevation = buffer.getElevation(index);
+        elevationSum += elevation;
+        pressureSum += pressure;
+        geoidHeightSum += getGeoidHeight(index);
+        count++;
+
+        elevationFilter.add(elevation, pressureAvailable ? getBarometricAltitude(pressure) : Double.NaN);
+    }
+
+    /**
+     * Smoothes the samples at the end whose windows could not be completed.
+     * Has to be called once after the last sample was added.
+     */
+    void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        elevationFilter.finish();
+    }
+
+    /**
+     * Stores the smoothed elevation of the next sample and adds the difference
+     * to the previous sample to the ascent or descent.
+     */
+    private void onSmoothed(double smoothed) {
+        int index = smoothedCount++;
+        if (isGpsScale()) {
+            smoothed -= getGeoidHeight(index);
+        }
+        buffer.setSmoothedElevation(index, smoothed);
+
+        if (index >= 1) {
+            double diff = smoothed - lastSmoothedElevation;
+            if (diff > 0) {
+                ascent += diff;
+            } else {
+                descent += Math.abs(diff);
+            }
+        }
+        lastSmoothedElevation = smoothed;
+        smoothingListener.onSampleSmoothed(index);
+    }
+
+    private double getGeoidHeight(int index) {
+        return geoidGrid != null ? geoidGrid.getHeight(buffer.getLat(index), buffer.getLon(index)) : 0;
+    }
+
+    /**
+     * @return whether the smoothed elevations are in the scale of the GPS altitude and already corrected
+     */
+    boolean isGpsScale() {
+        return !pressureAvailable || elevationFilter.isBarometerFused();
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    double getFirstLat() {
+        return firstLat;
+    }
+
+    double getFirstLon() {
+        return firstLon;
+    }
+
+    boolean isPressureAvailable() {
+        return pressureAvailable;
+    }
+
+    /**
+     * @return length in meters
+     */
+    double getLength() {
+        return length;
+    }
+
+    /**
+     * @return top speed in m/s
+     */
+    double getTopSpeed() {
+        return topSpeed;
+    }
+
+    /**
+     * @return average of the uncorrected GPS elevation
+     */
+    double getAverageElevation() {
+        return elevationSum / count;
+    }
+
+    /**
+     * @return average geoid height at the positions of the samples
+     */
+    double getAverageGeoidHeight() {
+        return geoidHeightSum / count;
+    }
+
+    double getAveragePressure() {
+        return pressureSum / count;
+    }
+
+    double getAscent() {
+        return ascent;
+    }
+
+    double getDescent() {
+        return descent;
+    }
+
+    /**
+     * Same calculation as {@link android.hardware.SensorManager#getAltitude(float, float)}
+     * with the standard atmosphere, kept here so the statistics don't depend on the Android framework.
+     */
+    static float getBarometricAltitude(float pressure) {
+        final float coef = 1.0f / 5.255f;
+        return 44330.0f * (1.0f - (float) Math.pow(pressure / PRESSURE_STANDARD_ATMOSPHERE, coef));
+    }
+
+    interface SmoothingListener {
+        /**
+         * Called in the order of the samples when the smoothed elevation of a sample is final
+         */
+        void onSampleSmoothed(int index);
+    }
+}
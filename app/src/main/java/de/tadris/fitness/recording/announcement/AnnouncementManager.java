@@ -39,6 +39,8 @@ public class AnnouncementManager {
         announcements.add(new AnnouncementDuration(context));
         announcements.add(new AnnouncementDistance(context));
         announcements.add(new AnnouncementAverageSpeed(context));
+        announcements.add(new AnnouncementRollingPace(context));
+        announcements.add(new AnnouncementLastSplit(context));
     }
 
     public List<Announcement> getAnnouncements() {
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.recording.announcement;
+
+import android.content.Context;
+
+import de.tadris.fitness.R;
+import de.tadris.fitness.recording.WorkoutRecorder;
+import de.tadris.fitness.util.unit.UnitUtils;
+
+public class AnnouncementRollingPace extends Announcement {
+
+    public AnnouncementRollingPace(Context context) {
+        super(context);
+    }
+
+    @Override
+    public String getId() {
+        return "rollingPace";
+    }
+
+    @Override
+    boolean isEnabledByDefault() {
+        return false;
+    }
+
+    @Override
+    String getSpoken(WorkoutRecorder recorder) {
+        // The pace of the last kilometer is steadier than the one of the last seconds
+        double pace = recorder.getSnapshot().getRollingPace();
+        if (pace == 0) {
+            return "";
+        }
+        return getString(R.string.workoutRollingPace) + ": " + UnitUtils.getPace(pace) + ".";
+    }
+}
@@ -21,12 +21,8 @@ package de.tadris.fitness.util;
 
 import android.content.Context;
 
-import org.apache.commons.io.IOUtils;
-
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
-import java.util.List;
 
 import de.tadris.fitness.R;
 
@@ -40,37 +36,23 @@ import de.tadris.fitness.R;
  * but we want the height over the sea level. That's why we have to correct the height.
  * Luckily I found a file containing the corrections for all places around the world.
  * <p>
- * The geoids.csv is from https://github.com/vectorstofinal/geoid_heights licensed under MIT
+ * The geoids.csv is from https://github.com/vectorstofinal/geoid_heights licensed under MIT.
+ * It's converted into a {@link GeoidGrid} at build time, which is loaded once per process.
  */
 public class AltitudeCorrection {
 
-    private Context context;
-    private int latitude, longitude;
-    private double offset; // Basically how much higher the sea-level than the ellipsoid is
+    private static GeoidGrid geoidGrid;
 
-    public AltitudeCorrection(Context context, int latitude, int longitude) throws IOException {
-        this.context = context;
-        this.latitude = latitude;
-        this.longitude = longitude;
-        findOffset();
+    private AltitudeCorrection() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
     }
 
-    private void findOffset() throws IOException {
-        InputStream inputStream = context.getResources().openRawResource(R.raw.geoids);
-        List<String> list = IOUtils.readLines(inputStream, StandardCharsets.UTF_8);
-        for (String line : list) {
-            String[] data = line.split(",");
-            int lat = Integer.parseInt(data[0]);
-            int lon = Integer.parseInt(data[1]);
-            double offset = Double.parseDouble(data[2]);
-            if (lat == this.latitude && lon == this.longitude) {
-                this.offset = offset;
-                return;
+    public static synchronized GeoidGrid getGeoidGrid(Context context) throws IOException {
+        if (geoidGrid == null) {
+            try (InputStream inputStream = context.getResources().openRawResource(R.raw.geoid_grid)) {
+                geoidGrid = GeoidGrid.read(inputStream);
             }
         }
-    }
-
-    public double getHeightOverSeaLevel(double heightOverEllipsoid) {
-        return heightOverEllipsoid - offset;
+        return geoidGrid;
     }
 }
@@ -39,22 +39,33 @@ public class CalorieCalculator {
      * @return calories burned
      */
     public static int calculateCalories(Workout workout, double weight){
-        double mins= (double)(workout.duration / 1000) / 60;
-        int ascent= (int)workout.ascent; // 1 calorie per meter
-        return (int)(mins * (getMET(workout) * 3.5 * weight) / 200) + ascent;
+        return calculateCalories(workout.getWorkoutType(), workout.duration, workout.avgSpeed, workout.ascent, weight);
     }
 
     /**
-     * calorie calculation based on @link { https://www.topendsports.com/weight-loss/energy-met.htm }
+     * Calculates the calories without a workout, e.g. while recording
      *
-     * workoutType and avgSpeed of workout have to be set
+     * @param duration duration in milliseconds
+     * @param avgSpeed average speed in m/s
+     * @param ascent ascent in meters
+     * @param weight the weight of the person in kilogram
+     * @return calories burned
+     */
+    public static int calculateCalories(WorkoutType type, long duration, double avgSpeed, double ascent, double weight){
+        double mins= (double)(duration / 1000) / 60;
+        int ascentCalories= (int)ascent; // 1 calorie per meter
+        return (int)(mins * (getMET(type, avgSpeed) * 3.5 * weight) / 200) + ascentCalories;
+    }
+
+    /**
+     * calorie calculation based on @link { https://www.topendsports.com/weight-loss/energy-met.htm }
      *
      * Calculation currently ignores height.
+     * @param avgSpeed average speed in m/s
      * @return MET
      */
-    private static double getMET(Workout workout) {
-        double speedInKmh= workout.avgSpeed * 3.6;
-        WorkoutType type = workout.getWorkoutType();
+    private static double getMET(WorkoutType type, double avgSpeed) {
+        double speedInKmh= avgSpeed * 3.6;
         if (type == WorkoutType.RUNNING || type == WorkoutType.HIKING) {
             return Math.max(1.5, speedInKmh*1.117 - 2.1906);
         }
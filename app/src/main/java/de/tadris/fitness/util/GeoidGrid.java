@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.util;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Geoid heights (how much higher the sea level than the WGS84 ellipsoid is) for every full degree
+ * of latitude and longitude.
+ * <p>
+ * The binary format is created from geoids.csv at build time with {@link #parseCsv(InputStream)} and
+ * {@link #write(OutputStream)} (task generateGeoidGrid in app/build.gradle, this class is also compiled in buildSrc):
+ * the number of rows and columns as int, followed by the heights in centimeters as short,
+ * row by row from -90 to 90 degrees latitude and -180 to 180 degrees longitude.
+ */
+public class GeoidGrid {
+
+    public static final int ROWS = 181;
+    public static final int COLUMNS = 361;
+
+    private final short[] heights;
+
+    private GeoidGrid(short[] heights) {
+        this.heights = heights;
+    }
+
+    /**
+     * Reads the binary grid
+     */
+    public static GeoidGrid read(InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(inputStream);
+        int rows = in.readInt();
+        int columns = in.readInt();
+        if (rows != ROWS || columns != COLUMNS) {
+            throw new IOException("Unexpected grid size " + rows + "x" + columns);
+        }
+        byte[] data = new byte[ROWS * COLUMNS * 2];
+        in.readFully(data);
+        short[] heights = new short[ROWS * COLUMNS];
+        for (int i = 0; i < heights.length; i++) {
+            heights[i] = (short) ((data[2 * i] << 8) | (data[2 * i + 1] & 0xff));
+        }
+        return new GeoidGrid(heights);
+    }
+
+    /**
+     * Reads the grid from the CSV file with the lines "latitude,longitude,height"
+     */
+    public static GeoidGrid parseCsv(InputStream inputStream) throws IOException {
+        short[] heights = new short[ROWS * COLUMNS];
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] data = line.split(",");
+            int lat = Integer.parseInt(data[0]);
+            int lon = Integer.parseInt(data[1]);
+            heights[(lat + 90) * COLUMNS + lon + 180] = (short) Math.round(Double.parseDouble(data[2]) * 100);
+        }
+        return new GeoidGrid(heights);
+    }
+
+    public void write(OutputStream outputStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(ROWS);
+        out.writeInt(COLUMNS);
+        for (short height : heights) {
+            out.writeShort(height);
+        }
+        out.flush();
+    }
+
+    /**
+     * @return geoid height in meters at the given full degrees
+     */
+    public double getHeight(int lat, int lon) {
+        return heights[(lat + 90) * COLUMNS + lon + 180] / 100d;
+    }
+
+    /**
+     * Interpolates bilinear between the four surrounding grid points
+     *
+     * @return geoid height in meters
+     */
+    public double getHeight(double lat, double lon) {
+        double row = Math.min(Math.max(lat + 90, 0), ROWS - 1);
+        double column = Math.min(Math.max(lon + 180, 0), COLUMNS - 1);
+        int row0 = Math.min((int) row, ROWS - 2);
+        int column0 = Math.min((int) column, COLUMNS - 2);
+        double rowFraction = row - row0;
+        double columnFraction = column - column0;
+
+        int index = row0 * COLUMNS + column0;
+        double bottom = heights[index] + (heights[index + 1] - heights[index]) * columnFraction;
+        double top = heights[index + COLUMNS] + (heights[index + COLUMNS + 1] - heights[index + COLUMNS]) * columnFraction;
+        return (bottom + (top - bottom) * rowFraction) / 100;
+    }
+
+    /**
+     * @return height over sea level in meters
+     */
+    public double getHeightOverSeaLevel(double lat, double lon, double heightOverEllipsoid) {
+        return heightOverEllipsoid - getHeight(lat, lon);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.util.elevation;
+
+/**
+ * Filters the elevation of a workout sample by sample in a single pass.
+ * <p>
+ * Every sample has a GPS elevation and a barometric elevation, which is {@link Double#NaN} if
+ * there is no barometer. Filters that don't fuse both values filter the barometric elevation
+ * if it's available and the GPS elevation otherwise.
+ * <p>
+ * The filtered values are passed to the {@link Output} in the order of the samples, at most
+ * {@link #getDelay()} samples after the sample was added. The remaining values are passed in
+ * {@link #finish()}. A filter instance can only be used for one workout.
+ */
+public abstract class ElevationFilter {
+
+    public interface Output {
+        void onFiltered(double elevation);
+    }
+
+    private Output output = elevation -> { };
+
+    public void setOutput(Output output) {
+        this.output = output;
+    }
+
+    /**
+     * @return number of samples that have to be added after a sample until its filtered value is passed to the output
+     */
+    public abstract int getDelay();
+
+    /**
+     * Whether the filter fuses the barometric and the GPS elevation. The output is then in the scale of the
+     * GPS elevation, otherwise it's in the scale of the barometric elevation if one is available.
+     */
+    public boolean isBarometerFused() {
+        return false;
+    }
+
+    /**
+     * @param elevation           GPS elevation in meters
+     * @param barometricElevation barometric elevation in meters or {@link Double#NaN} if not available
+     */
+    public abstract void add(double elevation, double barometricElevation);
+
+    /**
+     * Passes the remaining values to the output. Has to be called once after the last sample was added.
+     */
+    public abstract void finish();
+
+    protected void emit(double elevation) {
+        output.onFiltered(elevation);
+    }
+
+    /**
+     * Filters all elevations of a workout.
+     *
+     * @param barometricElevations barometric elevations or null if there is no barometer
+     * @return filtered elevations
+     */
+    public double[] filter(double[] elevations, double[] barometricElevations) {
+        final double[] result = new double[elevations.length];
+        setOutput(new Output() {
+            private int index;
+
+            @Override
+            public void onFiltered(double elevation) {
+                result[index++] = elevation;
+            }
+        });
+        for (int i = 0; i < elevations.length; i++) {
+            add(elevations[i], barometricElevations != null ? barometricElevations[i] : Double.NaN);
+        }
+        finish();
+        return result;
+    }
+
+    /**
+     * @return barometric elevation if available, otherwise the GPS elevation
+     */
+    static double getRawElevation(double elevation, double barometricElevation) {
+        return Double.isNaN(barometricElevation) ? elevation : barometricElevation;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.util.elevation;
+
+/**
+ * Runs several filters one after another. The first filter gets the GPS and barometric elevation,
+ * the following filters get the output of the previous one.
+ */
+public class ElevationFilterPipeline extends ElevationFilter {
+
+    private final ElevationFilter[] filters;
+
+    public ElevationFilterPipeline(ElevationFilter... filters) {
+        if (filters.length == 0) {
+            throw new IllegalArgumentException("Pipeline needs at least one filter");
+        }
+        this.filters = filters;
+        for (int i = 0; i < filters.length - 1; i++) {
+            ElevationFilter next = filters[i + 1];
+            filters[i].setOutput(elevation -> next.add(elevation, Double.NaN));
+        }
+        filters[filters.length - 1].setOutput(this::emit);
+    }
+
+    @Override
+    public int getDelay() {
+        int delay = 0;
+        for (ElevationFilter filter : filters) {
+            delay += filter.getDelay();
+        }
+        return delay;
+    }
+
+    @Override
+    public boolean isBarometerFused() {
+        // The following filters work on the output of the first one
+        return filters[0].isBarometerFused();
+    }
+
+    @Override
+    public void add(double elevation, double barometricElevation) {
+        filters[0].add(elevation, barometricElevation);
+    }
+
+    @Override
+    public void finish() {
+        for (ElevationFilter filter : filters) {
+            filter.finish();
+        }
+    }
+}
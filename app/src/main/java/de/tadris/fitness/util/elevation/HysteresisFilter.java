@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.util.elevation;
+
+/**
+ * Only follows the elevation if it moves more than a threshold away from the current level
+ * (dead band), so small oscillations don't add up to ascent and descent.
+ * The output isn't delayed.
+ */
+public class HysteresisFilter extends ElevationFilter {
+
+    private final double threshold;
+
+    private boolean initialized;
+    private double level;
+
+    /**
+     * @param threshold distance in meters the elevation has to move away from the level before the level follows
+     */
+    public HysteresisFilter(double threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public int getDelay() {
+        return 0;
+    }
+
+    @Override
+    public void add(double elevation, double barometricElevation) {
+        double value = getRawElevation(elevation, barometricElevation);
+        if (!initialized) {
+            initialized = true;
+            level = value;
+        } else if (value > level + threshold) {
+            level = value - threshold;
+        } else if (value < level - threshold) {
+            level = value + threshold;
+        }
+        emit(level);
+    }
+
+    @Override
+    public void finish() {
+        // Every value was already emitted
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.util.elevation;
+
+/**
+ * Kalman filter that fuses the barometric elevation with the GPS elevation.
+ * <p>
+ * The change of the barometric elevation between two samples is used to predict the elevation,
+ * because it's precise over short periods but drifts with the weather. The GPS elevation is noisy
+ * but doesn't drift, so it corrects the prediction slowly. Without a barometer the elevation is
+ * assumed to stay the same and only the GPS elevation is filtered.
+ * <p>
+ * The output is in the scale of the GPS elevation and isn't delayed.
+ */
+public class KalmanElevationFilter extends ElevationFilter {
+
+    private final double gpsVariance;
+    private final double barometerVariance;
+    private final double processVariance;
+
+    private boolean initialized;
+    private double elevation;
+    private double variance;
+    private double lastBarometricElevation = Double.NaN;
+
+    /**
+     * Filter with the typical accuracy of a phone GPS and barometer at one sample per second
+     */
+    public KalmanElevationFilter() {
+        this(25, 0.01, 0.25);
+    }
+
+    /**
+     * @param gpsVariance       variance of the GPS elevation in square meters
+     * @param barometerVariance variance of the barometric elevation change between two samples in square meters
+     * @param processVariance   variance of the elevation change between two samples without barometer in square meters
+     */
+    public KalmanElevationFilter(double gpsVariance, double barometerVariance, double processVariance) {
+        this.gpsVariance = gpsVariance;
+        this.barometerVariance = barometerVariance;
+        this.processVariance = processVariance;
+    }
+
+    @Override
+    public int getDelay() {
+        return 0;
+    }
+
+    @Override
+    public boolean isBarometerFused() {
+        return true;
+    }
+
+    @Override
+    public void add(double gpsElevation, double barometricElevation) {
+        if (!initialized) {
+            initialized = true;
+            elevation = gpsElevation;
+            variance = gpsVariance;
+        } else {
+            // Predict
+            if (!Double.isNaN(barometricElevation) && !Double.isNaN(lastBarometricElevation)) {
+                elevation += barometricElevation - lastBarometricElevation;
+                variance += barometerVariance;
+            } else {
+                variance += processVariance;
+            }
+            // Correct
+            double gain = variance / (variance + gpsVariance);
+            elevation += gain * (gpsElevation - elevation);
+            variance *= 1 - gain;
+        }
+        lastBarometricElevation = barometricElevation;
+        emit(elevation);
+    }
+
+    @Override
+    public void finish() {
+        // Every value was already emitted
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.util.elevation;
+
+/**
+ * Median over a symmetric window. Removes single outliers (e.g. GPS spikes) that a
+ * floating average would spread over the whole window.
+ * <p>
+ * The values of the window are kept sorted by insertion, so every sample costs O(range).
+ * That's faster than a heap for the small windows that are used here. Values that aren't finite
+ * are left out of the median, it's {@link Double#NaN} if the window has no finite value.
+ */
+public class MedianFilter extends WindowFilter {
+
+    private final double[] sorted;
+
+    /**
+     * Number of finite values in the window
+     */
+    private int size;
+
+    /**
+     * @param range number of samples before and after a sample that are used for the median
+     */
+    public MedianFilter(int range) {
+        super(range);
+        this.sorted = new double[2 * range + 2];
+    }
+
+    @Override
+    void onEnter(double value) {
+        if (!isFinite(value)) {
+            return;
+        }
+        int position = size - 1;
+        while (position >= 0 && sorted[position] > value) {
+            sorted[position + 1] = sorted[position];
+            position--;
+        }
+        sorted[position + 1] = value;
+        size++;
+    }
+
+    @Override
+    void onLeave(double value) {
+        if (!isFinite(value)) {
+            // Never entered the sorted values, a NaN wouldn't be found there either
+            return;
+        }
+        int position = 0;
+        while (sorted[position] != value) {
+            position++;
+        }
+        System.arraycopy(sorted, position + 1, sorted, position, size - position - 1);
+        size--;
+    }
+
+    @Override
+    double getValue(int windowSize) {
+        if (size == 0) {
+            return Double.NaN;
+        } else if (size % 2 == 1) {
+            return sorted[size / 2];
+        } else {
+            return (sorted[size / 2 - 1] + sorted[size / 2]) / 2;
+        }
+    }
+
+    private static boolean isFinite(double value) {
+        return !Double.isNaN(value) && !Double.isInfinite(value);
+    }
+}
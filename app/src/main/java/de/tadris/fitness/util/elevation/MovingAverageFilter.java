@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.util.elevation;
+
+/**
+ * Floating average over a symmetric window. Uses a running sum, so every sample costs O(1).
+ */
+public class MovingAverageFilter extends WindowFilter {
+
+    private double sum;
+
+    /**
+     * @param range number of samples before and after a sample that are averaged
+     */
+    public MovingAverageFilter(int range) {
+        super(range);
+    }
+
+    @Override
+    void onEnter(double value) {
+        sum += value;
+    }
+
+    @Override
+    void onLeave(double value) {
+        sum -= value;
+    }
+
+    @Override
+    double getValue(int size) {
+        return sum / size;
+    }
+}
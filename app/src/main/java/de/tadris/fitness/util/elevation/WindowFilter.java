@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.util.elevation;
+
+/**
+ * Base class of filters that calculate a value from a window of {@link #range} samples before
+ * and after each sample. The window is cut off at the start and the end of the workout.
+ * Subclasses are notified when samples enter and leave the window, so they don't have to
+ * iterate over the whole window for every sample.
+ */
+abstract class WindowFilter extends ElevationFilter {
+
+    final int range;
+
+    /**
+     * Ring buffer of the values in the window. One more than the window size, because the new
+     * sample is added before the oldest one leaves the window.
+     */
+    private final double[] values;
+
+    private int count;
+    private int windowStart;
+    private int nextIndex;
+    private boolean finished;
+
+    WindowFilter(int range) {
+        if (range < 0) {
+            throw new IllegalArgumentException("Range must not be negative: " + range);
+        }
+        this.range = range;
+        this.values = new double[2 * range + 2];
+    }
+
+    @Override
+    public int getDelay() {
+        return range;
+    }
+
+    @Override
+    public void add(double elevation, double barometricElevation) {
+        if (finished) {
+            throw new IllegalStateException("Filter is already finished");
+        }
+        double value = getRawElevation(elevation, barometricElevation);
+        values[count % values.length] = value;
+        count++;
+        onEnter(value);
+        if (count > range) {
+            emitNext();
+        }
+    }
+
+    @Override
+    public void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        while (nextIndex < count) {
+            emitNext();
+        }
+    }
+
+    /**
+     * Emits the value of the next sample, the window ends at the last added sample
+     */
+    private void emitNext() {
+        int start = Math.max(nextIndex - range, 0);
+        while (windowStart < start) {
+            onLeave(values[windowStart % values.length]);
+            windowStart++;
+        }
+        nextIndex++;
+        emit(getValue(count - windowStart));
+    }
+
+    abstract void onEnter(double value);
+
+    abstract void onLeave(double value);
+
+    /**
+     * @param size number of values in the window
+     * @return filtered value of the window
+     */
+    abstract double getValue(int size);
+}
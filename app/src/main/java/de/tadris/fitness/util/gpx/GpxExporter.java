@@ -19,77 +19,24 @@
 
 package de.tadris.fitness.util.gpx;
 
-import android.annotation.SuppressLint;
 import android.content.Context;
 
-import com.fasterxml.jackson.dataformat.xml.XmlMapper;
-
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Date;
+import java.io.OutputStream;
 
 import de.tadris.fitness.Instance;
+import de.tadris.fitness.data.SampleStorage;
 import de.tadris.fitness.data.Workout;
 import de.tadris.fitness.data.WorkoutSample;
 
 public class GpxExporter {
 
     public static void exportWorkout(Context context, Workout workout, File file) throws IOException {
-        XmlMapper mapper= new XmlMapper();
-        mapper.writeValue(file, getGpxFromWorkout(context, workout));
-    }
-
-    private static Gpx getGpxFromWorkout(Context context, Workout workout) {
-        Gpx gpx= new Gpx();
-        gpx.name= workout.toString();
-        gpx.version= "1.1";
-        gpx.creator= "FitoTrack";
-        gpx.metadata= new Metadata(workout.toString(), workout.comment, getDateTime(workout.start));
-        gpx.trk= new ArrayList<>();
-        gpx.trk.add(getTrackFromWorkout(context, workout, 0));
-
-        return gpx;
-    }
-
-    private static Track getTrackFromWorkout(Context context, Workout workout, int number) {
-        WorkoutSample[] samples= Instance.getInstance(context).db.workoutDao().getAllSamplesOfWorkout(workout.id);
-        Track track= new Track();
-        track.number= number;
-        track.name= workout.toString();
-        track.cmt= workout.comment;
-        track.desc= workout.comment;
-        track.src= "FitoTrack";
-        track.type = workout.getWorkoutType().id;
-        track.trkseg= new ArrayList<>();
-
-        TrackSegment segment= new TrackSegment();
-        segment.trkpt= new ArrayList<>();
-
-        for(WorkoutSample sample : samples){
-            segment.trkpt.add(new TrackPoint(sample.lat, sample.lon, sample.elevation,
-                    getDateTime(sample.absoluteTime), "gps",
-                    new TrackPointExtension(sample.speed)));
+        WorkoutSample[] samples= SampleStorage.getSamples(Instance.getInstance(context).db, workout.id);
+        try (OutputStream output= new FileOutputStream(file)) {
+            GpxWriter.write(workout, samples, output);
         }
-
-        track.trkseg.add(segment);
-
-        return track;
     }
-
-    @SuppressLint("SimpleDateFormat")
-    private static final SimpleDateFormat formatter= new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
-
-    private static String getDateTime(long time) {
-        return getDateTime(new Date(time));
-    }
-
-    private static String getDateTime(Date date) {
-        return formatter.format(date);
-    }
-
-
-
-
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.util.gpx;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import de.tadris.fitness.data.WorkoutSample;
+
+/**
+ * Reads the track points of a GPX file as workout samples, e.g. to replay them.
+ * All tracks and segments are joined to one list of samples, every segment gets its own segment index.
+ */
+public class GpxReader {
+
+    private static final SimpleDateFormat FORMAT_MILLIS = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX", Locale.US);
+    private static final SimpleDateFormat FORMAT_SECONDS = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX", Locale.US);
+
+    private GpxReader() {
+        throw new UnsupportedOperationException();
+    }
+
+    public static WorkoutSample[] readSamples(InputStream input) throws IOException {
+        XmlMapper mapper = new XmlMapper();
+        // Other apps write extensions and metadata we don't know
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        Gpx gpx = mapper.readValue(input, Gpx.class);
+
+        List<WorkoutSample> samples = new ArrayList<>();
+        int segmentIndex = 0;
+        if (gpx.trk != null) {
+            for (Track track : gpx.trk) {
+                if (track.trkseg == null) {
+                    continue;
+                }
+                for (TrackSegment segment : track.trkseg) {
+                    if (segment.trkpt == null || segment.trkpt.isEmpty()) {
+                        continue;
+                    }
+                    for (TrackPoint point : segment.trkpt) {
+                        WorkoutSample sample = toSample(point);
+                        sample.segment = segmentIndex;
+                        samples.add(sample);
+                    }
+                    segmentIndex++;
+                }
+            }
+        }
+        setRelativeTimes(samples);
+        return samples.toArray(new WorkoutSample[0]);
+    }
+
+    private static WorkoutSample toSample(TrackPoint point) throws IOException {
+        if (point.getTime() == null) {
+            throw new IOException("Track point without time");
+        }
+        WorkoutSample sample = new WorkoutSample();
+        sample.lat = point.getLat();
+        sample.lon = point.getLon();
+        sample.elevation = point.getEle();
+        sample.absoluteTime = parseTime(point.getTime());
+        sample.speed = point.getExtensions() != null ? point.getExtensions().getSpeed() : 0;
+        return sample;
+    }
+
+    private static void setRelativeTimes(List<WorkoutSample> samples) {
+        if (samples.isEmpty()) {
+            return;
+        }
+        long start = samples.get(0).absoluteTime;
+        for (WorkoutSample sample : samples) {
+            sample.relativeTime = sample.absoluteTime - start;
+        }
+    }
+
+    static long parseTime(String time) throws IOException {
+        try {
+            synchronized (FORMAT_MILLIS) {
+                return FORMAT_MILLIS.parse(time).getTime();
+            }
+        } catch (ParseException e) {
+            try {
+                synchronized (FORMAT_SECONDS) {
+                    return FORMAT_SECONDS.parse(time).getTime();
+                }
+            } catch (ParseException e2) {
+                throw new IOException("Invalid time: " + time, e2);
+            }
+        }
+    }
+}
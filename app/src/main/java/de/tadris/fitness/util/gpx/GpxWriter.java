@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.util.gpx;
+
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Locale;
+
+import de.tadris.fitness.data.Workout;
+import de.tadris.fitness.data.WorkoutSample;
+
+/**
+ * Writes a workout and its samples as GPX file
+ */
+public class GpxWriter {
+
+    private static final SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX", Locale.US);
+
+    private GpxWriter() {
+        throw new UnsupportedOperationException();
+    }
+
+    public static void write(Workout workout, WorkoutSample[] samples, OutputStream output) throws IOException {
+        XmlMapper mapper = new XmlMapper();
+        mapper.writeValue(output, getGpxFromWorkout(workout, samples));
+    }
+
+    private static Gpx getGpxFromWorkout(Workout workout, WorkoutSample[] samples) {
+        Gpx gpx = new Gpx();
+        gpx.name = workout.toString();
+        gpx.version = "1.1";
+        gpx.creator = "FitoTrack";
+        gpx.metadata = new Metadata(workout.toString(), workout.comment, getDateTime(workout.start));
+        gpx.trk = new ArrayList<>();
+        gpx.trk.add(getTrackFromWorkout(workout, samples, 0));
+
+        return gpx;
+    }
+
+    private static Track getTrackFromWorkout(Workout workout, WorkoutSample[] samples, int number) {
+        Track track = new Track();
+        track.number = number;
+        track.name = workout.toString();
+        track.cmt = workout.comment;
+        track.desc = workout.comment;
+        track.src = "FitoTrack";
+        track.type = workout.workoutTypeId;
+        track.trkseg = new ArrayList<>();
+
+        // One segment for every part of the workout between two pauses
+        TrackSegment segment = null;
+        int lastSegment = 0;
+        for (WorkoutSample sample : samples) {
+            if (segment == null || sample.segment != lastSegment) {
+                segment = new TrackSegment(new ArrayList<>());
+                track.trkseg.add(segment);
+                lastSegment = sample.segment;
+            }
+            segment.trkpt.add(new TrackPoint(sample.lat, sample.lon, sample.elevation,
+                    getDateTime(sample.absoluteTime), "gps",
+                    new TrackPointExtension(sample.speed)));
+        }
+
+        return track;
+    }
+
+    private static String getDateTime(long time) {
+        synchronized (formatter) {
+            return formatter.format(new Date(time));
+        }
+    }
+}
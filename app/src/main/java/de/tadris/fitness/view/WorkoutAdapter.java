@@ -25,17 +25,36 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
+import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 
 import de.tadris.fitness.R;
-import de.tadris.fitness.data.Workout;
+import de.tadris.fitness.data.WorkoutListDataSource;
+import de.tadris.fitness.data.WorkoutListItem;
 import de.tadris.fitness.util.unit.UnitUtils;
 
-public class WorkoutAdapter extends RecyclerView.Adapter<WorkoutAdapter.WorkoutViewHolder>{
+/**
+ * Shows the items of a {@link WorkoutListDataSource}. New lists are compared with the shown one
+ * in the background, only the changed rows are updated.
+ */
+public class WorkoutAdapter extends ListAdapter<WorkoutListItem, WorkoutAdapter.WorkoutViewHolder> {
+
+    private static final DiffUtil.ItemCallback<WorkoutListItem> DIFF_CALLBACK = new DiffUtil.ItemCallback<WorkoutListItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull WorkoutListItem oldItem, @NonNull WorkoutListItem newItem) {
+            return oldItem.id == newItem.id;
+        }
 
+        @Override
+        public boolean areContentsTheSame(@NonNull WorkoutListItem oldItem, @NonNull WorkoutListItem newItem) {
+            return oldItem.hasSameContents(newItem);
+        }
+    };
 
     public static class WorkoutViewHolder extends RecyclerView.ViewHolder{
 
@@ -57,16 +76,19 @@ public class WorkoutAdapter extends RecyclerView.Adapter<WorkoutAdapter.WorkoutV
         }
     }
 
-    private final Workout[] workouts;
+    private final WorkoutListDataSource dataSource;
     private final WorkoutAdapterListener listener;
+    private final DateFormat dateFormat= SimpleDateFormat.getDateTimeInstance();
 
-    public WorkoutAdapter(Workout[] workouts, WorkoutAdapterListener listener) {
-        this.workouts = workouts;
+    public WorkoutAdapter(WorkoutListDataSource dataSource, WorkoutAdapterListener listener) {
+        super(DIFF_CALLBACK);
+        this.dataSource = dataSource;
         this.listener = listener;
     }
 
+    @NonNull
     @Override
-    public WorkoutAdapter.WorkoutViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+    public WorkoutAdapter.WorkoutViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         // create a new view
         View v = LayoutInflater.from(parent.getContext()).inflate(R.layout.view_workout, parent, false);
         return new WorkoutViewHolder(v);
@@ -74,9 +96,10 @@ public class WorkoutAdapter extends RecyclerView.Adapter<WorkoutAdapter.WorkoutV
 
     // Replace the contents of a view (invoked by the layout manager)
     @Override
-    public void onBindViewHolder(WorkoutViewHolder holder, final int position) {
-        Workout workout= workouts[position];
-        holder.dateText.setText(SimpleDateFormat.getDateTimeInstance().format(new Date(workout.start)));
+    public void onBindViewHolder(@NonNull WorkoutViewHolder holder, final int position) {
+        WorkoutListItem workout= getItem(position);
+        dataSource.loadAround(position);
+        holder.dateText.setText(dateFormat.format(new Date(workout.start)));
         holder.typeText.setText(workout.getWorkoutType().title);
         if(workout.comment != null){
             if(workout.comment.length() > 33){
@@ -89,22 +112,17 @@ public class WorkoutAdapter extends RecyclerView.Adapter<WorkoutAdapter.WorkoutV
         }
         holder.lengthText.setText(UnitUtils.getDistance(workout.length));
         holder.timeText.setText(UnitUtils.getHourMinuteTime(workout.duration));
-        holder.root.setOnClickListener(v -> listener.onItemClick(position, workout));
+        // The position changes when the list is updated
+        holder.root.setOnClickListener(v -> listener.onItemClick(holder.getAdapterPosition(), workout));
         holder.root.setOnLongClickListener(v -> {
-            listener.onItemLongClick(position, workout);
+            listener.onItemLongClick(holder.getAdapterPosition(), workout);
             return true;
         });
     }
 
-    // Return the size of your dataset (invoked by the layout manager)
-    @Override
-    public int getItemCount() {
-        return workouts.length;
-    }
-
     public interface WorkoutAdapterListener{
-        void onItemClick(int pos, Workout workout);
-        void onItemLongClick(int pos, Workout workout);
+        void onItemClick(int pos, WorkoutListItem workout);
+        void onItemLongClick(int pos, WorkoutListItem workout);
     }
 
 
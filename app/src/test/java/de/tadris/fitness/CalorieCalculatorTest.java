@@ -39,4 +39,15 @@ public class CalorieCalculatorTest {
         Assert.assertEquals(120, calorie, 50);
     }
 
+    @Test
+    public void testCalculationWithoutWorkout() {
+        Workout workout = new Workout();
+        workout.avgSpeed = 2.7d;
+        workout.setWorkoutType(WorkoutType.RUNNING);
+        workout.duration = 1000L * 60 * 10;
+        workout.ascent = 30;
+        Assert.assertEquals(CalorieCalculator.calculateCalories(workout, 80),
+                CalorieCalculator.calculateCalories(WorkoutType.RUNNING, workout.duration, workout.avgSpeed, workout.ascent, 80));
+    }
+
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.data;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SampleIteratorTest {
+
+    /**
+     * Sample rows ordered by the key, like the sample table
+     */
+    private static class FakeTable implements SampleIterator.ChunkLoader {
+        final List<WorkoutSample> rows = new ArrayList<>();
+        int queries = 0;
+
+        FakeTable(int workoutCount, int samplesPerWorkout) {
+            for (int w = 0; w < workoutCount; w++) {
+                for (int i = 0; i < samplesPerWorkout; i++) {
+                    WorkoutSample sample = new WorkoutSample();
+                    sample.workoutId = 1000 + w;
+                    sample.seq = i;
+                    rows.add(sample);
+                }
+            }
+        }
+
+        @Override
+        public WorkoutSample[] load(long workoutId, int seq, int count) {
+            queries++;
+            List<WorkoutSample> chunk = new ArrayList<>();
+            for (WorkoutSample row : rows) {
+                if ((row.workoutId > workoutId || (row.workoutId == workoutId && row.seq > seq)) && chunk.size() < count) {
+                    chunk.add(row);
+                }
+            }
+            return chunk.toArray(new WorkoutSample[0]);
+        }
+    }
+
+    private static List<WorkoutSample> readAll(SampleIterator iterator) {
+        List<WorkoutSample> samples = new ArrayList<>();
+        while (iterator.hasNext()) {
+            samples.add(iterator.next());
+        }
+        return samples;
+    }
+
+    @Test
+    public void testAllSamplesInOrder() {
+        FakeTable table = new FakeTable(7, 33);
+        List<WorkoutSample> samples = readAll(new SampleIterator(table, 10));
+        Assert.assertEquals(table.rows, samples);
+        // 231 samples in chunks of 10, the last one isn't full
+        Assert.assertEquals(24, table.queries);
+    }
+
+    @Test
+    public void testFullLastChunk() {
+        FakeTable table = new FakeTable(2, 10);
+        Assert.assertEquals(table.rows, readAll(new SampleIterator(table, 10)));
+        // The end is only known after an empty chunk
+        Assert.assertEquals(3, table.queries);
+    }
+
+    @Test
+    public void testEmpty() {
+        FakeTable table = new FakeTable(0, 0);
+        SampleIterator iterator = new SampleIterator(table, 10);
+        Assert.assertFalse(iterator.hasNext());
+        Assert.assertFalse(iterator.hasNext());
+        Assert.assertEquals(1, table.queries);
+    }
+}
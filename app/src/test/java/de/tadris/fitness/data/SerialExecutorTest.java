@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.data;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SerialExecutorTest {
+
+    @Test
+    public void testOrder() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        SerialExecutor executor = new SerialExecutor(pool);
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger running = new AtomicInteger();
+        for (int i = 0; i < 1000; i++) {
+            int index = i;
+            executor.execute(() -> {
+                // Never more than one task at a time
+                Assert.assertEquals(1, running.incrementAndGet());
+                order.add(index);
+                running.decrementAndGet();
+            });
+        }
+        executor.execute(pool::shutdown);
+        Assert.assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        Assert.assertEquals(1000, order.size());
+        for (int i = 0; i < order.size(); i++) {
+            Assert.assertEquals(i, (int) order.get(i));
+        }
+    }
+
+    @Test
+    public void testContinuesAfterException() throws InterruptedException {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        SerialExecutor executor = new SerialExecutor(pool);
+        AtomicInteger count = new AtomicInteger();
+        executor.execute(() -> {
+            throw new IllegalStateException();
+        });
+        executor.execute(count::incrementAndGet);
+        executor.execute(pool::shutdown);
+        Assert.assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        Assert.assertEquals(1, count.get());
+    }
+}
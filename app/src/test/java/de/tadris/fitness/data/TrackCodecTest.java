@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.data;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+public class TrackCodecTest {
+
+    private static final long START = 1580000000000L;
+
+    /**
+     * One fix per second with GPS noise, a pause and a few gaps
+     */
+    private static TrackData createTrack(int count) {
+        Random random = new Random(count);
+        TrackData data = new TrackData(count);
+        long time = START;
+        long pauseTime = 0;
+        for (int i = 0; i < count; i++) {
+            time += 1000 + random.nextInt(20);
+            if (i == count / 2) {
+                pauseTime += 5 * 60 * 1000;
+                time += 5 * 60 * 1000;
+            }
+            data.absoluteTimes[i] = time;
+            data.relativeTimes[i] = time - START - pauseTime;
+            data.lats[i] = 52.52 + Math.sin(i / 1000d) * 0.01 + i * 0.00001 + random.nextGaussian() * 0.00002;
+            data.lons[i] = 13.40 + Math.cos(i / 1000d) * 0.01 + random.nextGaussian() * 0.00002;
+            data.elevations[i] = 80 + Math.sin(i / 300d) * 20 + random.nextGaussian();
+            data.speeds[i] = 3 + Math.sin(i / 60d) + random.nextGaussian() * 0.2;
+            data.segments[i] = i < count / 2 ? 0 : 1;
+        }
+        return data;
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        TrackData data = createTrack(3600);
+        TrackData decoded = TrackCodec.decode(TrackCodec.encode(data));
+
+        Assert.assertEquals(data.count, decoded.count);
+        Assert.assertArrayEquals(data.absoluteTimes, decoded.absoluteTimes);
+        Assert.assertArrayEquals(data.relativeTimes, decoded.relativeTimes);
+        Assert.assertArrayEquals(data.segments, decoded.segments);
+        for (int i = 0; i < data.count; i++) {
+            Assert.assertEquals(data.lats[i], decoded.lats[i], 0.5 / TrackCodec.COORDINATE_SCALE);
+            Assert.assertEquals(data.lons[i], decoded.lons[i], 0.5 / TrackCodec.COORDINATE_SCALE);
+            Assert.assertEquals(data.elevations[i], decoded.elevations[i], 0.5 / TrackCodec.ELEVATION_SCALE);
+            Assert.assertEquals(data.speeds[i], decoded.speeds[i], 0.5 / TrackCodec.SPEED_SCALE);
+        }
+    }
+
+    @Test
+    public void testEmptyTrack() throws IOException {
+        Assert.assertEquals(0, TrackCodec.decode(TrackCodec.encode(new TrackData(0))).count);
+    }
+
+    @Test
+    public void testSamples() throws IOException {
+        TrackData data = createTrack(10);
+        WorkoutSample[] samples = TrackCodec.decode(TrackCodec.encode(data)).toSamples(START);
+        Assert.assertEquals(10, samples.length);
+        for (int i = 0; i < samples.length; i++) {
+            Assert.assertEquals(START, samples[i].workoutId);
+            Assert.assertEquals(i, samples[i].seq);
+            Assert.assertEquals(data.absoluteTimes[i], samples[i].absoluteTime);
+        }
+    }
+
+    @Test
+    public void testSamplesInRange() {
+        TrackData data = createTrack(10);
+        WorkoutSample[] samples = data.toSamples(START, 3, 7);
+        Assert.assertEquals(4, samples.length);
+        for (int i = 0; i < samples.length; i++) {
+            Assert.assertEquals(i + 3, samples[i].seq);
+            Assert.assertEquals(data.relativeTimes[i + 3], samples[i].relativeTime);
+        }
+    }
+
+    @Test
+    public void testGetCount() throws IOException {
+        Assert.assertEquals(3600, TrackCodec.getCount(TrackCodec.encode(createTrack(3600))));
+        Assert.assertEquals(0, TrackCodec.getCount(TrackCodec.encode(new TrackData(0))));
+    }
+
+    @Test
+    public void testSize() {
+        int count = 3600;
+        byte[] blob = TrackCodec.encode(createTrack(count));
+        // Values of a sample row without the keys
+        int rowSize = 6 * 8 + 4;
+        double ratio = (double) count * rowSize / blob.length;
+        Assert.assertTrue(count + " samples: " + blob.length + " bytes", ratio > 5);
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedTrack() throws IOException {
+        byte[] blob = TrackCodec.encode(createTrack(100));
+        TrackCodec.decode(Arrays.copyOf(blob, blob.length / 2));
+    }
+
+    @Test(expected = IOException.class)
+    public void testCorruptTrack() throws IOException {
+        byte[] blob = TrackCodec.encode(createTrack(100));
+        for (int i = 4; i < blob.length; i++) {
+            blob[i] = (byte) 0x5a;
+        }
+        TrackCodec.decode(blob);
+    }
+}
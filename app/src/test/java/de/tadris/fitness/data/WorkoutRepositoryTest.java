@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.data;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class WorkoutRepositoryTest {
+
+    private final BlockingQueue<Runnable> results = new LinkedBlockingQueue<>();
+
+    // Results are only delivered when the test runs them, like the main thread of the app
+    private final WorkoutRepository repository = new WorkoutRepository(null, results::add);
+
+    @Test
+    public void testResult() throws Exception {
+        List<Object> received = new ArrayList<>();
+        Future<Integer> future = repository.submit(() -> 42, received::add, received::add);
+        Assert.assertEquals(42, (int) future.get());
+        runResults(1);
+        Assert.assertEquals(1, received.size());
+        Assert.assertEquals(42, received.get(0));
+    }
+
+    @Test
+    public void testErrorIsPassedToCaller() throws Exception {
+        List<Object> received = new ArrayList<>();
+        Future<Integer> future = repository.submitWrite(() -> {
+            throw new IllegalStateException("Database is locked");
+        }, received::add, received::add);
+        try {
+            future.get();
+            Assert.fail("Task didn't fail");
+        } catch (ExecutionException e) {
+            // Expected
+        }
+        runResults(1);
+        Assert.assertEquals(1, received.size());
+        Assert.assertEquals("Database is locked", ((Exception) received.get(0)).getMessage());
+    }
+
+    @Test
+    public void testCancelledRequestIsNotDelivered() throws Exception {
+        List<Object> received = new ArrayList<>();
+        Future<Integer> future = repository.submit(() -> 1, received::add, received::add);
+        Future<Integer> failing = repository.submit(() -> {
+            throw new IllegalStateException();
+        }, received::add, received::add);
+        Assert.assertEquals(1, (int) future.get());
+        try {
+            failing.get();
+        } catch (ExecutionException e) {
+            // Expected
+        }
+        // The results are already posted when the requests are cancelled
+        List<Runnable> posted = takeResults(2);
+        future.cancel(false);
+        failing.cancel(false);
+        for (Runnable result : posted) {
+            result.run();
+        }
+        Assert.assertTrue(received.isEmpty());
+    }
+
+    @Test
+    public void testWritesAreOrdered() throws Exception {
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        repository.submitWrite(() -> {
+            firstStarted.countDown();
+            release.await();
+            order.add(1);
+            return null;
+        }, null, null);
+        Assert.assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+        Future<Void> second = repository.submitWrite(() -> {
+            order.add(2);
+            return null;
+        }, null, null);
+        // The pool has a free thread, but the second write waits for the first one
+        Thread.sleep(50);
+        Assert.assertTrue(order.isEmpty());
+        release.countDown();
+        second.get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(2, order.size());
+        Assert.assertEquals(1, (int) order.get(0));
+        Assert.assertEquals(2, (int) order.get(1));
+    }
+
+    private void runResults(int count) throws InterruptedException {
+        for (Runnable result : takeResults(count)) {
+            result.run();
+        }
+    }
+
+    /**
+     * Waits for the callbacks, they are posted after the future is done
+     */
+    private List<Runnable> takeResults(int count) throws InterruptedException {
+        List<Runnable> taken = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Runnable result = results.poll(5, TimeUnit.SECONDS);
+            Assert.assertNotNull(result);
+            taken.add(result);
+        }
+        return taken;
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.data;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.TimeZone;
+
+public class WorkoutTotalTableTest {
+
+    // Monday, 2020-01-06 00:30 in Berlin, still Sunday in UTC and New York
+    private static final long START = 1578267000000L;
+
+    private TimeZone defaultTimeZone;
+    private Connection connection;
+
+    @Before
+    public void createDatabase() throws SQLException {
+        defaultTimeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Europe/Berlin"));
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE workout (" +
+                    "id INTEGER NOT NULL PRIMARY KEY," +
+                    "start INTEGER NOT NULL," +
+                    "timeZoneOffset INTEGER," +
+                    "duration INTEGER NOT NULL," +
+                    "length INTEGER NOT NULL," +
+                    "calorie INTEGER NOT NULL," +
+                    "ascent REAL NOT NULL," +
+                    "descent REAL NOT NULL," +
+                    "workoutType TEXT," +
+                    "inProgress INTEGER NOT NULL)");
+            statement.execute(WorkoutTotalTable.getCreateStatement());
+            execute(statement, WorkoutTotalTable.getCreateTriggerStatements());
+        }
+    }
+
+    @After
+    public void closeDatabase() throws SQLException {
+        connection.close();
+        TimeZone.setDefault(defaultTimeZone);
+    }
+
+    @Test
+    public void testPeriodsInLocalTime() throws SQLException {
+        insertWorkout(createWorkout(1000));
+        Assert.assertEquals("2020-01-06", getPeriod(WorkoutTotalTable.PERIOD_WEEK));
+        Assert.assertEquals("2020-01-01", getPeriod(WorkoutTotalTable.PERIOD_MONTH));
+        Assert.assertEquals("2020-01-01", getPeriod(WorkoutTotalTable.PERIOD_YEAR));
+    }
+
+    @Test
+    public void testDeleteAfterTimeZoneChange() throws SQLException {
+        Workout workout = createWorkout(1000);
+        insertWorkout(workout);
+        TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DELETE FROM workout WHERE id = " + workout.id);
+        }
+        Assert.assertEquals(0, getTotalCount());
+    }
+
+    @Test
+    public void testUpdateAfterTimeZoneChange() throws SQLException {
+        Workout workout = createWorkout(1000);
+        insertWorkout(workout);
+        TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("UPDATE workout SET length = 2000 WHERE id = " + workout.id);
+        }
+        Assert.assertEquals(3, getTotalCount());
+        Assert.assertEquals("2020-01-06", getPeriod(WorkoutTotalTable.PERIOD_WEEK));
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT SUM(length) FROM " + WorkoutTotalTable.NAME)) {
+            Assert.assertEquals(3 * 2000, result.getLong(1));
+        }
+    }
+
+    @Test
+    public void testRebuildMatchesTriggers() throws SQLException {
+        insertWorkout(createWorkout(1000));
+        TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+        try (Statement statement = connection.createStatement()) {
+            execute(statement, WorkoutTotalTable.getRebuildStatements());
+        }
+        Assert.assertEquals(3, getTotalCount());
+        Assert.assertEquals("2020-01-06", getPeriod(WorkoutTotalTable.PERIOD_WEEK));
+    }
+
+    private Workout createWorkout(int length) {
+        Workout workout = new Workout();
+        workout.id = START;
+        workout.setStartInLocalTime(START);
+        workout.duration = 30 * 60 * 1000L;
+        workout.length = length;
+        workout.setWorkoutType(WorkoutType.RUNNING);
+        return workout;
+    }
+
+    private void insertWorkout(Workout workout) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("INSERT INTO workout VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)")) {
+            statement.setLong(1, workout.id);
+            statement.setLong(2, workout.start);
+            statement.setLong(3, workout.timeZoneOffset);
+            statement.setLong(4, workout.duration);
+            statement.setInt(5, workout.length);
+            statement.setInt(6, workout.calorie);
+            statement.setFloat(7, workout.ascent);
+            statement.setFloat(8, workout.descent);
+            statement.setString(9, workout.workoutTypeId);
+            statement.executeUpdate();
+        }
+    }
+
+    private String getPeriod(int periodType) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT period FROM " + WorkoutTotalTable.NAME + " WHERE periodType = " + periodType)) {
+            Assert.assertTrue(result.next());
+            return result.getString(1);
+        }
+    }
+
+    private int getTotalCount() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM " + WorkoutTotalTable.NAME)) {
+            return result.getInt(1);
+        }
+    }
+
+    private static void execute(Statement statement, String[] sql) throws SQLException {
+        for (String s : sql) {
+            statement.execute(s);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.recording;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.tadris.fitness.data.WorkoutType;
+
+public class AutoPauseDetectorTest {
+
+    private static final long START = 1580000000000L;
+
+    @Test
+    public void testPauseStartsAtFirstSlowFix() {
+        AutoPauseDetector detector = new AutoPauseDetector(1, 2, 5000);
+        Assert.assertEquals(AutoPauseDetector.Event.NONE, detector.onFix(START, 3));
+        Assert.assertEquals(AutoPauseDetector.Event.NONE, detector.onFix(START + 1000, 0.5f));
+        for (int i = 2; i < 6; i++) {
+            Assert.assertEquals(AutoPauseDetector.Event.NONE, detector.onFix(START + i * 1000, 0));
+        }
+        Assert.assertEquals(AutoPauseDetector.Event.PAUSE, detector.onFix(START + 6000, 0));
+        Assert.assertEquals(START + 1000, detector.getBoundaryTime());
+        Assert.assertTrue(detector.isPaused());
+    }
+
+    @Test
+    public void testShortStopDoesNotPause() {
+        AutoPauseDetector detector = new AutoPauseDetector(1, 2, 5000);
+        for (int i = 0; i < 60; i++) {
+            // Slow for four seconds of every ten
+            float speed = i % 10 < 4 ? 0 : 3;
+            Assert.assertEquals(AutoPauseDetector.Event.NONE, detector.onFix(START + i * 1000, speed));
+        }
+    }
+
+    @Test
+    public void testHysteresis() {
+        AutoPauseDetector detector = new AutoPauseDetector(1, 2, 0);
+        Assert.assertEquals(AutoPauseDetector.Event.PAUSE, detector.onFix(START, 0.9f));
+        // Between the thresholds
+        Assert.assertEquals(AutoPauseDetector.Event.NONE, detector.onFix(START + 1000, 1.5f));
+        Assert.assertEquals(AutoPauseDetector.Event.RESUME, detector.onFix(START + 2000, 2));
+        Assert.assertEquals(START + 2000, detector.getBoundaryTime());
+        Assert.assertEquals(AutoPauseDetector.Event.NONE, detector.onFix(START + 3000, 1.5f));
+        Assert.assertFalse(detector.isPaused());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidThresholds() {
+        new AutoPauseDetector(2, 1, 0);
+    }
+
+    /**
+     * A run with a stop of two minutes, the moving time has to exclude the whole stop
+     */
+    @Test
+    public void testMovingTime() {
+        AutoPauseDetector detector = new AutoPauseDetector(WorkoutType.RUNNING, 5000);
+        long movingTime = 0;
+        long lastResume = START;
+        for (int i = 0; i <= 600; i++) {
+            long time = START + i * 1000L;
+            boolean standing = i >= 200 && i < 320;
+            switch (detector.onFix(time, standing ? 0.2f : 3)) {
+                case PAUSE:
+                    movingTime += detector.getBoundaryTime() - lastResume;
+                    break;
+                case RESUME:
+                    lastResume = detector.getBoundaryTime();
+                    break;
+            }
+        }
+        movingTime += START + 600 * 1000L - lastResume;
+        Assert.assertEquals((600 - 120) * 1000L, movingTime);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.recording;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class FixQueueTest {
+
+    @Test
+    public void testDropsWhenFull() {
+        List<Long> times = new ArrayList<>();
+        FixQueue queue = new FixQueue(4, (time, lat, lon, altitude, speed, accuracy, pressure) -> times.add(time));
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(queue.publish(i, 0, 0, 0, 0, 0, -1));
+        }
+        Assert.assertFalse(queue.publish(4, 0, 0, 0, 0, 0, -1));
+        Assert.assertEquals(1, queue.getDroppedCount());
+        Assert.assertEquals(4, queue.drain());
+        Assert.assertEquals(0, queue.size());
+        Assert.assertTrue(queue.publish(5, 0, 0, 0, 0, 0, -1));
+        Assert.assertEquals(1, queue.drain());
+        Assert.assertEquals("[0, 1, 2, 3, 5]", times.toString());
+    }
+
+    /**
+     * Publishes 100 Hz fixes for two seconds while readers poll the snapshot
+     */
+    @Test
+    public void test100HzWithReaders() throws InterruptedException {
+        Recording recording = new Recording(64);
+        recording.startReaders(4);
+        for (int i = 0; i < 200; i++) {
+            recording.publish(i);
+            Thread.sleep(10);
+        }
+        recording.stop();
+
+        Assert.assertEquals(0, recording.queue.getDroppedCount());
+        // The recorder keeps up, a fix waits far less than ten fix intervals even on a busy machine
+        Assert.assertTrue("Max latency " + recording.maxLatency / 1000 + " us", recording.maxLatency < 100_000_000L);
+        recording.assertComplete(200);
+    }
+
+    /**
+     * Publishes fixes as fast as possible, the producer retries when the queue is full
+     */
+    @Test
+    public void testBurstWithReaders() throws InterruptedException {
+        Recording recording = new Recording(256);
+        recording.startReaders(4);
+        int count = 100_000;
+        for (int i = 0; i < count; i++) {
+            while (!recording.publish(i)) {
+                Thread.yield();
+            }
+        }
+        recording.stop();
+        recording.assertComplete(count);
+    }
+
+    /**
+     * Consumes the fixes like the recorder does and publishes a snapshot after every fix
+     */
+    private static class Recording {
+
+        final FixQueue queue;
+        volatile RecordingSnapshot snapshot = RecordingSnapshot.EMPTY;
+        volatile long maxLatency;
+        final AtomicReference<String> error = new AtomicReference<>();
+        final AtomicBoolean readersStopped = new AtomicBoolean();
+        final List<Thread> readers = new ArrayList<>();
+
+        private int count;
+        private double distance;
+
+        Recording(int capacity) {
+            queue = new FixQueue(capacity, this::onFix);
+            queue.start("FixQueueTest");
+        }
+
+        boolean publish(int i) {
+            // The altitude carries the publish time to measure the latency
+            return queue.publish(i, 52.52, 13.40, System.nanoTime(), 3, 5, -1);
+        }
+
+        private void onFix(long time, double lat, double lon, double altitude, float speed, float accuracy, float pressure) {
+            if (time != count) {
+                error.compareAndSet(null, "Expected fix " + count + " but got " + time);
+            }
+            maxLatency = Math.max(maxLatency, System.nanoTime() - (long) altitude);
+            count++;
+            distance += 1.5;
+            snapshot = new RecordingSnapshot(count, distance, time, 0, null);
+        }
+
+        void startReaders(int readerCount) {
+            for (int i = 0; i < readerCount; i++) {
+                Thread reader = new Thread(() -> {
+                    int lastCount = 0;
+                    while (!readersStopped.get()) {
+                        RecordingSnapshot snapshot = this.snapshot;
+                        if (snapshot.getSampleCount() < lastCount) {
+                            error.compareAndSet(null, "Sample count went back");
+                        }
+                        if (snapshot.getDistance() != snapshot.getSampleCount() * 1.5) {
+                            error.compareAndSet(null, "Snapshot is inconsistent");
+                        }
+                        lastCount = snapshot.getSampleCount();
+                    }
+                });
+                reader.start();
+                readers.add(reader);
+            }
+        }
+
+        void stop() throws InterruptedException {
+            queue.stop();
+            readersStopped.set(true);
+            for (Thread reader : readers) {
+                reader.join();
+            }
+        }
+
+        void assertComplete(int expectedCount) {
+            Assert.assertNull(error.get());
+            Assert.assertEquals(0, queue.size());
+            Assert.assertEquals(expectedCount, snapshot.getSampleCount());
+        }
+    }
+}
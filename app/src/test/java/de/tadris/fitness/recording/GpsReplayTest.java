@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.recording;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.tadris.fitness.data.Workout;
+import de.tadris.fitness.data.WorkoutSample;
+import de.tadris.fitness.data.WorkoutType;
+import de.tadris.fitness.util.DistanceUtils;
+
+public class GpsReplayTest {
+
+    private static final long START = 1580000000000L;
+
+    private static WorkoutSample[] createTrack(int count) {
+        WorkoutSample[] samples = new WorkoutSample[count];
+        for (int i = 0; i < count; i++) {
+            WorkoutSample sample = new WorkoutSample();
+            sample.absoluteTime = START + i * 1000L;
+            sample.relativeTime = i * 1000L;
+            // About 10 m/s, so the cleaner keeps every fix
+            sample.lat = 52.52 + i * 0.00009;
+            sample.lon = 13.40;
+            sample.elevation = 80 + Math.sin(i / 300d) * 20;
+            sample.speed = 10;
+            samples[i] = sample;
+        }
+        return samples;
+    }
+
+    /**
+     * Timer that advances when the replay sleeps
+     */
+    private static class FakeTimer implements GpsReplay.Timer {
+        long time = 0;
+        long slept = 0;
+
+        @Override
+        public long getTime() {
+            return time;
+        }
+
+        @Override
+        public void sleep(long millis) {
+            time += millis;
+            slept += millis;
+        }
+    }
+
+    @Test
+    public void testReplayAsFastAsPossible() throws InterruptedException {
+        FakeTimer timer = new FakeTimer();
+        GpsReplay replay = new GpsReplay(GpsReplay.toBuffer(createTrack(100)), GpsReplay.AS_FAST_AS_POSSIBLE, timer);
+        Assert.assertEquals(START - GpsReplay.LEAD_TIME, replay.currentTimeMillis());
+        long[] lastTime = {0};
+        int[] count = {0};
+        replay.replay((time, lat, lon, altitude, speed, accuracy, pressure) -> {
+            Assert.assertTrue(time > lastTime[0]);
+            // The clock is at the time of the fix that is replayed
+            Assert.assertEquals(time, replay.currentTimeMillis());
+            lastTime[0] = time;
+            count[0]++;
+        });
+        Assert.assertEquals(100, count[0]);
+        Assert.assertEquals(100, replay.getReplayedCount());
+        Assert.assertEquals(replay.getEndTime(), replay.currentTimeMillis());
+        Assert.assertEquals(0, timer.slept);
+    }
+
+    @Test
+    public void testReplayFaster() throws InterruptedException {
+        FakeTimer timer = new FakeTimer();
+        GpsReplay replay = new GpsReplay(GpsReplay.toBuffer(createTrack(101)), 10, timer);
+        replay.replay((time, lat, lon, altitude, speed, accuracy, pressure) -> {
+            // Fix n is due n * 100 ms after the start
+            Assert.assertEquals((time - START) / 10, timer.getTime());
+        });
+        Assert.assertEquals(10000, timer.slept);
+    }
+
+    @Test
+    public void testReplayRealTime() throws InterruptedException {
+        FakeTimer timer = new FakeTimer();
+        GpsReplay replay = new GpsReplay(GpsReplay.toBuffer(createTrack(61)), 1, timer);
+        replay.replay((time, lat, lon, altitude, speed, accuracy, pressure) -> {
+            // The consumer takes some time, the replay shouldn't drift
+            timer.time += 30;
+        });
+        Assert.assertEquals(60000 + 30, timer.time);
+    }
+
+    /**
+     * Records ten hours of fixes with the recorder and checks the saved workout
+     */
+    @Test
+    public void testRecordReplay() throws InterruptedException {
+        int count = 10 * 60 * 60;
+        WorkoutSample[] track = createTrack(count);
+        GpsReplay replay = GpsReplay.fromSamples(track, GpsReplay.AS_FAST_AS_POSSIBLE);
+        ReplayRecorder recorder = new ReplayRecorder(replay, WorkoutType.RUNNING, false);
+        Workout workout = recorder.record();
+
+        Assert.assertEquals(count, replay.getReplayedCount());
+        // The recording starts again with the third fix, see WorkoutRecorder.initialClearValues
+        int first = 2;
+        Assert.assertEquals(count - first, recorder.database.samples.size());
+        Assert.assertEquals(track[first].absoluteTime, workout.start);
+        Assert.assertEquals(track[count - 1].absoluteTime, workout.end);
+        Assert.assertEquals((count - 1 - first) * 1000L, workout.duration);
+        Assert.assertEquals(0, workout.pauseDuration);
+        double length = 0;
+        for (int i = first + 1; i < count; i++) {
+            length += DistanceUtils.sphericalDistance(track[i - 1].lat, track[i - 1].lon, track[i].lat, track[i].lon);
+        }
+        Assert.assertEquals((int) length, workout.length);
+        Assert.assertEquals(10, workout.avgSpeed, 0.1);
+        Assert.assertEquals(10, workout.topSpeed, 0.1);
+        Assert.assertTrue(workout.calorie > 0);
+    }
+}
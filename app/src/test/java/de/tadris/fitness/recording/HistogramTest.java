@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.recording;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+
+public class HistogramTest {
+
+    @Test
+    public void testBuckets() {
+        Histogram histogram = new Histogram(10, 100);
+        histogram.record(5);
+        histogram.record(10);
+        histogram.record(50);
+        histogram.record(1000);
+
+        Map<String, Long> buckets = histogram.getBuckets();
+        Assert.assertEquals(2, (long) buckets.get("<=10"));
+        Assert.assertEquals(1, (long) buckets.get("<=100"));
+        Assert.assertEquals(1, (long) buckets.get(">100"));
+        Assert.assertEquals(4, histogram.getCount());
+        Assert.assertEquals(1000, histogram.getMax());
+        Assert.assertEquals(266.25, histogram.getMean(), 0.001);
+    }
+
+    @Test
+    public void testPercentile() {
+        Histogram histogram = new Histogram(10, 100, 1000);
+        for (int i = 0; i < 95; i++) {
+            histogram.record(8);
+        }
+        for (int i = 0; i < 5; i++) {
+            histogram.record(400);
+        }
+        Assert.assertEquals(10, histogram.getPercentile(50));
+        Assert.assertEquals(10, histogram.getPercentile(95));
+        Assert.assertEquals(400, histogram.getPercentile(99));
+    }
+
+    @Test
+    public void testPercentileAboveLastBound() {
+        Histogram histogram = new Histogram(10);
+        histogram.record(30);
+        histogram.record(50);
+        Assert.assertEquals(50, histogram.getPercentile(50));
+    }
+
+    @Test
+    public void testEmpty() {
+        Histogram histogram = new Histogram(10);
+        Assert.assertEquals(0, histogram.getCount());
+        Assert.assertEquals(0, histogram.getPercentile(95));
+        Assert.assertEquals(0, histogram.getMean(), 0);
+    }
+
+    @Test
+    public void testReset() {
+        Histogram histogram = new Histogram(10);
+        histogram.record(30);
+        histogram.reset();
+        Assert.assertEquals(0, histogram.getCount());
+        Assert.assertEquals(0, histogram.getMax());
+        Assert.assertEquals(0, (long) histogram.getBuckets().get(">10"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnorderedBounds() {
+        new Histogram(10, 5);
+    }
+}
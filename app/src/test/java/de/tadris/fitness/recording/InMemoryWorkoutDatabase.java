@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.tadris.fitness.data.Workout;
+import de.tadris.fitness.data.WorkoutSample;
+
+/**
+ * Keeps the workout and the samples the {@link WorkoutDatabaseWriter} writes in memory
+ */
+class InMemoryWorkoutDatabase implements WorkoutDatabaseWriter.Database {
+
+    Workout workout;
+    final List<WorkoutSample> samples = new ArrayList<>();
+    boolean finished = false;
+
+    @Override
+    public synchronized void insertWorkout(Workout workout) {
+        this.workout = workout;
+    }
+
+    @Override
+    public synchronized void insertSamples(WorkoutSample[] samples) {
+        for (WorkoutSample sample : samples) {
+            this.samples.add(sample);
+        }
+    }
+
+    @Override
+    public synchronized void deleteSamplesOfWorkout(long workoutId) {
+        samples.clear();
+    }
+
+    @Override
+    public synchronized void finishWorkout(Workout workout, WorkoutSample[] samples, double elevationOffset) {
+        insertSamples(samples);
+        for (WorkoutSample sample : this.samples) {
+            sample.elevation += elevationOffset;
+        }
+        this.workout = workout;
+        finished = true;
+    }
+
+    @Override
+    public synchronized void deleteWorkout(Workout workout) {
+        this.workout = null;
+        samples.clear();
+    }
+}
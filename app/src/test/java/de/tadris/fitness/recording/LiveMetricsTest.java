@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.recording;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LiveMetricsTest {
+
+    /**
+     * 2.5 m/s are 6:40 min/km
+     */
+    private static final double PACE = 1000d / 2.5 / 60;
+
+    @Test
+    public void testEmpty() {
+        LiveMetrics metrics = new LiveMetrics(1000);
+        Assert.assertEquals(0, metrics.getCurrentPace(), 0);
+        Assert.assertEquals(0, metrics.getRollingPace(), 0);
+        Assert.assertEquals(0, metrics.getSplitCount());
+    }
+
+    @Test
+    public void testConstantSpeed() {
+        LiveMetrics metrics = new LiveMetrics(1000);
+        for (int i = 0; i <= 3600; i++) {
+            metrics.add(i * 1000L, i * 2.5);
+        }
+        Assert.assertEquals(PACE, metrics.getCurrentPace(), 0.0001);
+        Assert.assertEquals(PACE, metrics.getRollingPace(), 0.0001);
+        // 9 km
+        Assert.assertEquals(9, metrics.getSplitCount());
+        for (int i = 0; i < metrics.getSplitCount(); i++) {
+            Assert.assertEquals(400 * 1000, metrics.getSplits()[i]);
+        }
+    }
+
+    @Test
+    public void testRollingPaceBeforeFirstKilometer() {
+        LiveMetrics metrics = new LiveMetrics(1000);
+        for (int i = 0; i <= 100; i++) {
+            metrics.add(i * 1000L, i * 2.5);
+        }
+        Assert.assertEquals(PACE, metrics.getRollingPace(), 0.0001);
+        Assert.assertEquals(0, metrics.getSplitCount());
+    }
+
+    @Test
+    public void testSpeedChange() {
+        LiveMetrics metrics = new LiveMetrics(1000);
+        long time = 0;
+        double distance = 0;
+        for (int i = 0; i < 600; i++) {
+            metrics.add(time, distance);
+            time += 1000;
+            distance += 2.5;
+        }
+        // Twice as fast
+        for (int i = 0; i < 30; i++) {
+            metrics.add(time, distance);
+            time += 1000;
+            distance += 5;
+        }
+        metrics.add(time, distance);
+        Assert.assertEquals(PACE / 2, metrics.getCurrentPace(), 0.0001);
+        // The last kilometer contains 150 m at the new speed
+        Assert.assertEquals((150 / 5 + 850 / 2.5) / 60, metrics.getRollingPace(), 0.0001);
+    }
+
+    @Test
+    public void testSplitsAreInterpolated() {
+        LiveMetrics metrics = new LiveMetrics(1000);
+        metrics.add(0, 0);
+        metrics.add(100 * 1000, 900);
+        // The first kilometer ends in the middle of this part
+        metrics.add(200 * 1000, 1100);
+        Assert.assertEquals(1, metrics.getSplitCount());
+        Assert.assertEquals(150 * 1000, metrics.getSplits()[0]);
+        // Covers two splits
+        metrics.add(400 * 1000, 3100);
+        Assert.assertEquals(3, metrics.getSplitCount());
+        // 10 m/s, the second kilometer ends at 290 s
+        Assert.assertEquals(140 * 1000, metrics.getSplits()[1]);
+        Assert.assertEquals(100 * 1000, metrics.getSplits()[2]);
+    }
+
+    @Test
+    public void testSnapshotKeepsSplits() {
+        LiveMetrics metrics = new LiveMetrics(100);
+        for (int i = 0; i <= 100; i++) {
+            metrics.add(i * 1000L, i * 10);
+        }
+        RecordingSnapshot snapshot = new RecordingSnapshot(101, 1000, 0, 0, metrics);
+        // The split array grows, the snapshot keeps the old one
+        for (int i = 101; i <= 1000; i++) {
+            metrics.add(i * 1000L, i * 10);
+        }
+        Assert.assertEquals(10, snapshot.getSplitCount());
+        Assert.assertEquals(10 * 1000, snapshot.getSplit(9));
+        Assert.assertEquals(100, metrics.getSplitCount());
+    }
+
+    @Test
+    public void testStanding() {
+        LiveMetrics metrics = new LiveMetrics(1000);
+        for (int i = 0; i <= 100; i++) {
+            metrics.add(i * 1000L, Math.min(i, 50) * 2.5);
+        }
+        Assert.assertEquals(0, metrics.getCurrentPace(), 0);
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.recording;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.tadris.fitness.data.Workout;
+import de.tadris.fitness.data.WorkoutSample;
+import de.tadris.fitness.data.WorkoutType;
+
+public class LocationIntervalPolicyTest {
+
+    private static final long START = 1580000000000L;
+
+    @Test
+    public void testIntervalForSpeed() {
+        LocationIntervalPolicy policy = new LocationIntervalPolicy(WorkoutType.HIKING);
+        // Hiking has a minimum distance of 7 m
+        Assert.assertEquals(LocationIntervalPolicy.MIN_INTERVAL, policy.getIntervalForSpeed(10));
+        // A sample every 6 seconds, so every second fix at 3 seconds is a sample
+        Assert.assertEquals(3000, policy.getIntervalForSpeed(1.2f));
+        // A sample every 7 seconds, no longer interval delivers a fix after exactly 7 seconds
+        Assert.assertEquals(LocationIntervalPolicy.MIN_INTERVAL, policy.getIntervalForSpeed(1.1f));
+        // A sample every 10 seconds
+        Assert.assertEquals(5000, policy.getIntervalForSpeed(0.7f));
+        Assert.assertEquals(LocationIntervalPolicy.MAX_INTERVAL, policy.getIntervalForSpeed(0));
+    }
+
+    @Test
+    public void testRelaxesAfterDelay() {
+        LocationIntervalPolicy policy = new LocationIntervalPolicy(WorkoutType.HIKING);
+        long time = START;
+        for (; time < START + LocationIntervalPolicy.RELAX_DELAY; time += 1000) {
+            Assert.assertFalse(policy.onFix(time, 1.2f));
+            Assert.assertEquals(LocationIntervalPolicy.MIN_INTERVAL, policy.getInterval());
+        }
+        Assert.assertTrue(policy.onFix(time, 1.2f));
+        Assert.assertEquals(3000, policy.getInterval());
+    }
+
+    @Test
+    public void testRelaxesToShortestNeededInterval() {
+        LocationIntervalPolicy policy = new LocationIntervalPolicy(WorkoutType.HIKING);
+        policy.onFix(START, 0);
+        policy.onFix(START + 5000, 1.2f);
+        Assert.assertTrue(policy.onFix(START + LocationIntervalPolicy.RELAX_DELAY, 0));
+        Assert.assertEquals(3000, policy.getInterval());
+    }
+
+    @Test
+    public void testTightensImmediately() {
+        LocationIntervalPolicy policy = new LocationIntervalPolicy(WorkoutType.HIKING);
+        policy.onFix(START, 0);
+        policy.onFix(START + LocationIntervalPolicy.RELAX_DELAY, 0);
+        Assert.assertEquals(LocationIntervalPolicy.MAX_INTERVAL, policy.getInterval());
+        Assert.assertTrue(policy.onFix(START + LocationIntervalPolicy.RELAX_DELAY + 5000, 10));
+        Assert.assertEquals(LocationIntervalPolicy.MIN_INTERVAL, policy.getInterval());
+    }
+
+    @Test
+    public void testPause() {
+        LocationIntervalPolicy policy = new LocationIntervalPolicy(WorkoutType.RUNNING);
+        Assert.assertTrue(policy.onPause());
+        Assert.assertEquals(LocationIntervalPolicy.PAUSED_INTERVAL, policy.getInterval());
+        // The speed doesn't matter while paused
+        Assert.assertFalse(policy.onFix(START, 5));
+        Assert.assertTrue(policy.onResume());
+        Assert.assertEquals(LocationIntervalPolicy.MIN_INTERVAL, policy.getInterval());
+    }
+
+    /**
+     * Replays a hike with different speeds and a stop and compares the samples with updates
+     * every second and with the adaptive interval
+     */
+    @Test
+    public void testFewerFixesForSameTrack() throws InterruptedException {
+        WorkoutSample[] track = createHike();
+        Result fixed = record(track, false);
+        Result adaptive = record(track, true);
+        String message = "Fixed interval: " + fixed + ", adaptive interval: " + adaptive;
+
+        Assert.assertEquals(track.length, fixed.fixes);
+        Assert.assertTrue(message, adaptive.fixes < fixed.fixes / 2);
+        Assert.assertTrue(message, adaptive.samples >= fixed.samples * 0.95);
+        Assert.assertEquals(fixed.distance, adaptive.distance, fixed.distance * 0.02);
+    }
+
+    private static class Result {
+        int fixes;
+        int samples;
+        double distance;
+
+        @Override
+        public String toString() {
+            return fixes + " fixes, " + samples + " samples, " + Math.round(distance) + " m";
+        }
+    }
+
+    private Result record(WorkoutSample[] track, boolean adaptive) throws InterruptedException {
+        GpsReplay replay = GpsReplay.fromSamples(track, GpsReplay.AS_FAST_AS_POSSIBLE);
+        ReplayRecorder recorder = new ReplayRecorder(replay, WorkoutType.HIKING, adaptive);
+        Workout workout = recorder.record();
+        Result result = new Result();
+        result.fixes = replay.getDeliveredCount();
+        result.samples = recorder.database.samples.size();
+        result.distance = workout.length;
+        return result;
+    }
+
+    private WorkoutSample[] createHike() {
+        List<WorkoutSample> samples = new ArrayList<>();
+        double lat = 47.0;
+        // Minutes and speeds of the parts of the hike
+        double[][] parts = {{20, 1.2}, {3, 0}, {20, 1.3}, {5, 2}, {20, 0.7}};
+        long time = START;
+        for (double[] part : parts) {
+            for (int i = 0; i < part[0] * 60; i++) {
+                WorkoutSample sample = new WorkoutSample();
+                sample.absoluteTime = time;
+                sample.relativeTime = time - START;
+                // About 111 km per degree of latitude
+                lat += part[1] / 111195;
+                sample.lat = lat;
+                sample.lon = 11.0;
+                sample.elevation = 600;
+                sample.speed = part[1];
+                samples.add(sample);
+                time += 1000;
+            }
+        }
+        return samples.toArray(new WorkoutSample[0]);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.recording;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PressureBufferTest {
+
+    @Test
+    public void testEmpty() {
+        PressureBuffer buffer = new PressureBuffer();
+        Assert.assertEquals(-1, buffer.getPressure(1000), 0);
+        Assert.assertEquals(-1, buffer.getLatestPressure(), 0);
+    }
+
+    @Test
+    public void testInterpolation() {
+        PressureBuffer buffer = new PressureBuffer();
+        buffer.add(1000, 1000);
+        // Low-pass filtered: dt / (TIME_CONSTANT + dt) = 0.5
+        buffer.add(2000, 1002);
+        Assert.assertEquals(1001, buffer.getLatestPressure(), 0.0001);
+        Assert.assertEquals(1000.5, buffer.getPressure(1500), 0.0001);
+        Assert.assertEquals(1000.25, buffer.getPressure(1250), 0.0001);
+    }
+
+    @Test
+    public void testOutsideOfReadings() {
+        PressureBuffer buffer = new PressureBuffer();
+        buffer.add(1000, 1000);
+        buffer.add(2000, 1000);
+        Assert.assertEquals(1000, buffer.getPressure(0), 0);
+        // The batch with the readings of this time wasn't reported yet
+        Assert.assertEquals(1000, buffer.getPressure(5000), 0);
+    }
+
+    @Test
+    public void testOutOfOrderReadingsAreIgnored() {
+        PressureBuffer buffer = new PressureBuffer();
+        buffer.add(1000, 1000);
+        buffer.add(1000, 900);
+        buffer.add(500, 900);
+        Assert.assertEquals(1, buffer.getCount());
+        Assert.assertEquals(1000, buffer.getLatestPressure(), 0);
+    }
+
+    @Test
+    public void testRingBuffer() {
+        PressureBuffer buffer = new PressureBuffer();
+        for (int i = 0; i < PressureBuffer.CAPACITY * 3; i++) {
+            buffer.add(i * 200L, 1000);
+        }
+        Assert.assertEquals(PressureBuffer.CAPACITY, buffer.getCount());
+        for (int i = PressureBuffer.CAPACITY * 2; i < PressureBuffer.CAPACITY * 3 - 1; i++) {
+            Assert.assertEquals(1000, buffer.getPressure(i * 200L + 100), 0.0001);
+        }
+    }
+
+    @Test
+    public void testRisingPressure() {
+        PressureBuffer buffer = new PressureBuffer();
+        for (int i = 0; i < 100; i++) {
+            buffer.add(i * 200L, 1000 + i * 0.01f);
+        }
+        // The interpolated pressure rises with the time between the readings
+        float last = -1;
+        for (long time = 10000; time < 19800; time += 50) {
+            float pressure = buffer.getPressure(time);
+            Assert.assertTrue(pressure >= last);
+            last = pressure;
+        }
+    }
+
+    @Test
+    public void testClear() {
+        PressureBuffer buffer = new PressureBuffer();
+        buffer.add(1000, 1000);
+        buffer.clear();
+        Assert.assertEquals(0, buffer.getCount());
+        buffer.add(2000, 900);
+        // The filter starts again
+        Assert.assertEquals(900, buffer.getLatestPressure(), 0);
+    }
+}
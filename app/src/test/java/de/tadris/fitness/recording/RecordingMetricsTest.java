@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.recording;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RecordingMetricsTest {
+
+    @Test
+    public void testCounters() {
+        RecordingMetrics metrics = new RecordingMetrics();
+        metrics.onFixReceived("gps");
+        metrics.onFixReceived("gps");
+        metrics.onFixReceived("network");
+        metrics.onFixRejected(SampleCleaner.Rule.values()[0]);
+        metrics.onSampleAppended(40);
+        metrics.onSampleAppended(60);
+
+        Assert.assertEquals(2, (long) metrics.getFixesByProvider().get("gps"));
+        Assert.assertEquals(1, (long) metrics.getFixesByProvider().get("network"));
+        Assert.assertEquals(1, metrics.getRejectedFixes(SampleCleaner.Rule.values()[0]));
+        Assert.assertEquals(2, metrics.getAppendedSamples());
+        Assert.assertEquals(2, metrics.getDispatchLatency().getCount());
+        Assert.assertTrue(metrics.toText().contains("Samples appended: 2"));
+    }
+
+    @Test
+    public void testReset() {
+        RecordingMetrics metrics = new RecordingMetrics();
+        metrics.onFixReceived("gps");
+        metrics.onQueueOverflow();
+        metrics.onSavePhase(RecordingMetrics.PHASE_DATABASE, 12);
+        metrics.reset(null);
+
+        Assert.assertTrue(metrics.getFixesByProvider().isEmpty());
+        Assert.assertEquals(0, metrics.getQueueOverflows());
+        Assert.assertTrue(metrics.getSavePhases().isEmpty());
+        Assert.assertEquals("", metrics.getSchedulerTasks());
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.recording;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RecordingSchedulerTest {
+
+    private long time;
+    private RecordingScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        time = 0;
+        scheduler = new RecordingScheduler(null, () -> time);
+    }
+
+    /**
+     * Advances the fake clock tick by tick like the executor would
+     */
+    private void advanceTo(long target) {
+        long next;
+        while ((next = scheduler.getNextTickTime()) >= 0 && next <= target) {
+            time = Math.max(time, next);
+            scheduler.tick();
+        }
+        time = target;
+    }
+
+    @Test
+    public void testPeriods() {
+        int[] runs = new int[2];
+        scheduler.schedule("fast", 1000, 1000, () -> runs[0]++);
+        scheduler.schedule("slow", 5000, 5000, () -> runs[1]++);
+        advanceTo(10000);
+        Assert.assertEquals(10, runs[0]);
+        Assert.assertEquals(2, runs[1]);
+    }
+
+    @Test
+    public void testCoalescedWakeups() {
+        scheduler.schedule("fast", 1000, 5000, () -> { });
+        time = 300;
+        scheduler.schedule("slow", 5000, 5000, () -> { });
+        scheduler.setInBackground(true);
+        int ticks = 0;
+        long next;
+        while ((next = scheduler.getNextTickTime()) >= 0 && next <= 20000) {
+            time = next;
+            scheduler.tick();
+            ticks++;
+        }
+        // Both tasks run at the same multiples of five seconds
+        Assert.assertEquals(4, ticks);
+    }
+
+    @Test
+    public void testPausedInBackground() {
+        int[] runs = new int[1];
+        RecordingScheduler.Task task = scheduler.schedule("ui", 1000, 0, () -> runs[0]++);
+        advanceTo(3000);
+        Assert.assertEquals(3, runs[0]);
+
+        scheduler.setInBackground(true);
+        Assert.assertEquals(-1, scheduler.getNextTickTime());
+        advanceTo(10500);
+        Assert.assertEquals(3, runs[0]);
+
+        // Runs immediately when the app is in the foreground again
+        scheduler.setInBackground(false);
+        Assert.assertEquals(10500, scheduler.getNextTickTime());
+        advanceTo(10500);
+        Assert.assertEquals(4, runs[0]);
+        Assert.assertEquals(6, task.getSkippedRuns());
+        advanceTo(12000);
+        Assert.assertEquals(6, runs[0]);
+    }
+
+    @Test
+    public void testMissedRunsAreSkipped() {
+        int[] runs = new int[1];
+        RecordingScheduler.Task task = scheduler.schedule("task", 1000, 1000, () -> runs[0]++);
+        // The thread was suspended for a while
+        time = 5500;
+        scheduler.tick();
+        Assert.assertEquals(1, runs[0]);
+        Assert.assertEquals(4, task.getSkippedRuns());
+        Assert.assertEquals(6000, scheduler.getNextTickTime());
+    }
+
+    @Test
+    public void testCancel() {
+        int[] runs = new int[2];
+        RecordingScheduler.Task task = scheduler.schedule("a", 1000, 1000, () -> runs[0]++);
+        scheduler.schedule("b", 1000, 1000, () -> runs[1]++);
+        advanceTo(2000);
+        task.cancel();
+        advanceTo(4000);
+        Assert.assertEquals(2, runs[0]);
+        Assert.assertEquals(4, runs[1]);
+        Assert.assertEquals(1, scheduler.getTasks().size());
+
+        scheduler.shutdown();
+        Assert.assertEquals(-1, scheduler.getNextTickTime());
+        scheduler.schedule("c", 1000, 1000, () -> runs[0]++);
+        advanceTo(8000);
+        Assert.assertEquals(2, runs[0]);
+        Assert.assertEquals(4, runs[1]);
+    }
+
+    @Test
+    public void testTiming() {
+        RecordingScheduler.Task task = scheduler.schedule("task", 1000, 1000, () -> { });
+        advanceTo(3000);
+        Assert.assertEquals(3, task.getRunCount());
+        Assert.assertTrue(task.getMaxRunTime() <= task.getTotalRunTime());
+    }
+
+    @Test
+    public void testFailingTask() {
+        int[] runs = new int[1];
+        scheduler.schedule("failing", 1000, 1000, () -> {
+            throw new IllegalStateException();
+        });
+        scheduler.schedule("task", 1000, 1000, () -> runs[0]++);
+        advanceTo(2000);
+        Assert.assertEquals(2, runs[0]);
+    }
+}
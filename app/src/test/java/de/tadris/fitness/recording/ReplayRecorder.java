@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording;
+
+import org.junit.Assert;
+
+import de.tadris.fitness.data.Workout;
+import de.tadris.fitness.data.WorkoutType;
+
+/**
+ * Records a replayed track with the {@link WorkoutRecorder} and saves it to an {@link InMemoryWorkoutDatabase}.
+ * The replay is the clock of the recording.
+ */
+class ReplayRecorder {
+
+    private static final double USER_WEIGHT = 80;
+    private static final long AUTO_PAUSE_GRACE_PERIOD = 5000;
+
+    final InMemoryWorkoutDatabase database = new InMemoryWorkoutDatabase();
+    private final GpsReplay replay;
+    private final WorkoutRecorder recorder;
+
+    /**
+     * @param adaptiveInterval whether the replay follows the location interval the recorder requests
+     */
+    ReplayRecorder(GpsReplay replay, WorkoutType workoutType, boolean adaptiveInterval) {
+        this.replay = replay;
+        LocationDispatcher dispatcher = new LocationDispatcher();
+        if (adaptiveInterval) {
+            dispatcher.setIntervalListener(replay);
+        }
+        WorkoutRecorder.Environment environment = new WorkoutRecorder.Environment(database, Runnable::run, dispatcher,
+                null, null, USER_WEIGHT, AUTO_PAUSE_GRACE_PERIOD);
+        this.recorder = new WorkoutRecorder(null, workoutType, new WorkoutRecorder.WorkoutRecorderListener() {
+            @Override
+            public void onGPSStateChanged(WorkoutRecorder.GpsState oldState, WorkoutRecorder.GpsState state) {
+            }
+
+            @Override
+            public void onAutoStop() {
+                Assert.fail("Recording was stopped automatically");
+            }
+        }, replay, environment);
+    }
+
+    /**
+     * Replays all fixes, then stops and saves the recording
+     *
+     * @return the saved workout
+     */
+    Workout record() throws InterruptedException {
+        recorder.start();
+        replay.replay((time, lat, lon, altitude, speed, accuracy, pressure) -> {
+            Assert.assertTrue(recorder.publishFix(time, lat, lon, altitude, speed, accuracy, pressure));
+            // The recorder reads the time of the replay, so the next fix isn't replayed before this one is recorded
+            while (recorder.getQueuedFixCount() > 0) {
+                Thread.yield();
+            }
+        });
+        recorder.stop();
+        Exception[] failure = new Exception[1];
+        recorder.save(new WorkoutRecorder.SaveListener() {
+            @Override
+            public void onSaved() {
+            }
+
+            @Override
+            public void onSaveFailed(Exception e) {
+                failure[0] = e;
+            }
+        });
+        Assert.assertNull(failure[0]);
+        Assert.assertTrue(database.finished);
+        return database.workout;
+    }
+}
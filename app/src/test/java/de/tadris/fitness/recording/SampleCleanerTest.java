@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.recording;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+import de.tadris.fitness.data.WorkoutType;
+
+public class SampleCleanerTest {
+
+    private static final double METERS_PER_DEGREE = 111194.9;
+
+    private final SampleCleaner cleaner = new SampleCleaner(WorkoutType.RUNNING);
+
+    private long time = 1580000000000L;
+    private double lat = 52.52;
+
+    @Test
+    public void testAcceptsRun() {
+        for (int i = 0; i < 100; i++) {
+            Assert.assertNull(next(3, 5, 10));
+        }
+        Assert.assertEquals(0, cleaner.getTotalDropCount());
+    }
+
+    @Test
+    public void testDuplicate() {
+        Assert.assertNull(next(3, 5, 10));
+        Assert.assertEquals(SampleCleaner.Rule.DUPLICATE, cleaner.check(time, lat + 0.001, 13.4, 5));
+        Assert.assertEquals(SampleCleaner.Rule.DUPLICATE, cleaner.check(time - 1000, lat + 0.001, 13.4, 5));
+        Assert.assertEquals(2, cleaner.getDropCount(SampleCleaner.Rule.DUPLICATE));
+    }
+
+    @Test
+    public void testAccuracy() {
+        Assert.assertEquals(SampleCleaner.Rule.ACCURACY, next(3, 100, 10));
+        Assert.assertNull(next(3, 0, 10)); // Unknown accuracy
+        Assert.assertEquals(1, cleaner.getDropCount(SampleCleaner.Rule.ACCURACY));
+    }
+
+    @Test
+    public void testSpike() {
+        Assert.assertNull(next(3, 5, 10));
+        // 300 m in 10 seconds isn't possible while running
+        time += 10 * 1000;
+        Assert.assertEquals(SampleCleaner.Rule.SPIKE, cleaner.check(time, lat + 300 / METERS_PER_DEGREE, 13.4, 5));
+        Assert.assertNull(next(3, 5, 10));
+        Assert.assertEquals(1, cleaner.getDropCount(SampleCleaner.Rule.SPIKE));
+    }
+
+    @Test
+    public void testSpikeWithinAccuracy() {
+        Assert.assertNull(next(3, 5, 1));
+        // 25 m in one second, but both fixes are only accurate to 15 m
+        time += 1000;
+        lat += 25 / METERS_PER_DEGREE;
+        Assert.assertNull(cleaner.check(time, lat, 13.4, 15));
+    }
+
+    @Test
+    public void testWrongFixIsReplaced() {
+        Assert.assertNull(next(3, 5, 10));
+        // The accepted fix was far off, all following fixes look like spikes
+        lat += 1000 / METERS_PER_DEGREE;
+        for (int i = 0; i < SampleCleaner.MAX_SPIKES_IN_ROW; i++) {
+            Assert.assertEquals(SampleCleaner.Rule.SPIKE, next(3, 5, 1));
+        }
+        Assert.assertNull(next(3, 5, 1));
+        Assert.assertNull(next(3, 5, 10));
+    }
+
+    @Test
+    public void testStationaryJitter() {
+        Assert.assertNull(next(3, 5, 10));
+        Random random = new Random(1);
+        for (int i = 0; i < 60; i++) {
+            time += 1000;
+            double jitter = random.nextGaussian() * 2 / METERS_PER_DEGREE;
+            Assert.assertEquals(SampleCleaner.Rule.JITTER, cleaner.check(time, lat + jitter, 13.4 + jitter, 5));
+        }
+        Assert.assertEquals(60, cleaner.getDropCount(SampleCleaner.Rule.JITTER));
+        Assert.assertEquals("duplicate=0, accuracy=0, spike=0, jitter=60", cleaner.toString());
+    }
+
+    @Test
+    public void testReset() {
+        Assert.assertNull(next(3, 5, 10));
+        cleaner.reset();
+        // Would be jitter or duplicate without the reset
+        Assert.assertNull(cleaner.check(time, lat, 13.4, 5));
+    }
+
+    /**
+     * Moves north with the given speed and accepts the fix if it passes
+     */
+    private SampleCleaner.Rule next(double speed, float accuracy, int seconds) {
+        time += seconds * 1000L;
+        lat += speed * seconds / METERS_PER_DEGREE;
+        SampleCleaner.Rule rule = cleaner.check(time, lat, 13.4, accuracy);
+        if (rule == null) {
+            cleaner.accept(time, lat, 13.4, accuracy);
+        }
+        return rule;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import de.tadris.fitness.data.WorkoutType;
+
+public class SampleJournalTest {
+
+    @Test
+    public void testReadWrittenSamples() throws IOException {
+        File file = File.createTempFile("journal", null);
+        try {
+            SampleBuffer samples = new SampleBuffer();
+            try (SampleJournal journal = SampleJournal.create(file, WorkoutType.HIKING, 1000L)) {
+                journal.append(samples, addSample(samples, 1));
+                journal.reset(2000L); // Recorder clears the first samples
+                samples.clear();
+                for (int i = 0; i < 100; i++) {
+                    journal.append(samples, addSample(samples, i));
+                }
+            }
+            // Simulate a record that was only written partly when the process was killed
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(raf.length() + SampleJournal.RECORD_SIZE / 2);
+            }
+
+            SampleJournal.Contents contents = SampleJournal.read(file);
+            Assert.assertEquals(2000L, contents.start);
+            Assert.assertEquals(WorkoutType.HIKING, contents.workoutType);
+            Assert.assertEquals(100, contents.samples.getCount());
+            for (int i = 0; i < 100; i++) {
+                Assert.assertEquals(samples.getAbsoluteTime(i), contents.samples.getAbsoluteTime(i));
+                Assert.assertEquals(samples.getRelativeTime(i), contents.samples.getRelativeTime(i));
+                Assert.assertEquals(samples.getLat(i), contents.samples.getLat(i), 0);
+                Assert.assertEquals(samples.getLon(i), contents.samples.getLon(i), 0);
+                Assert.assertEquals(samples.getElevation(i), contents.samples.getElevation(i), 0);
+                Assert.assertEquals(samples.getSpeed(i), contents.samples.getSpeed(i), 0);
+                Assert.assertEquals(samples.getPressure(i), contents.samples.getPressure(i), 0);
+                Assert.assertEquals(samples.getSegment(i), contents.samples.getSegment(i));
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testQuarantineCorruptJournal() throws IOException {
+        File file = File.createTempFile("journal", null);
+        File failedFile = new File(file.getPath() + ".failed");
+        try {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.write(new byte[100]);
+            }
+            try {
+                SampleJournal.read(file);
+                Assert.fail("Corrupt journal was read");
+            } catch (IOException e) {
+                // Expected
+            }
+            SampleJournal.quarantine(file, failedFile);
+            Assert.assertFalse(file.exists());
+            Assert.assertEquals(100, failedFile.length());
+
+            // The journal of the next failed recovery replaces the previous one
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.write(new byte[10]);
+            }
+            SampleJournal.quarantine(file, failedFile);
+            Assert.assertFalse(file.exists());
+            Assert.assertEquals(10, failedFile.length());
+        } finally {
+            file.delete();
+            failedFile.delete();
+        }
+    }
+
+    private int addSample(SampleBuffer samples, int i) {
+        return samples.add(2000L + i * 1000L, i * 1000L - (i / 10) * 500L, 52.5 + i * 0.0001, 13.4 - i * 0.0001,
+                40 + i * 0.5, 1.5f + i * 0.01f, 1000f - i * 0.05f, i / 10);
+    }
+}
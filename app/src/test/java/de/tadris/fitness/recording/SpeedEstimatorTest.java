@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SpeedEstimatorTest {
+
+    private static final long START = 1580000000000L;
+
+    // About 11 m of latitude
+    private static final double STEP = 0.0001;
+
+    @Test
+    public void testMeasuredSpeed() {
+        SpeedEstimator estimator = new SpeedEstimator();
+        Assert.assertEquals(3, estimator.getSpeed(START, 52.5, 13.4, 3), 0);
+        // The measured speed is used even if the distance says otherwise
+        Assert.assertEquals(0, estimator.getSpeed(START + 1000, 52.5 + STEP, 13.4, 0), 0);
+    }
+
+    @Test
+    public void testSpeedFromPreviousFix() {
+        SpeedEstimator estimator = new SpeedEstimator();
+        Assert.assertEquals(SpeedEstimator.UNKNOWN, estimator.getSpeed(START, 52.5, 13.4, SpeedEstimator.UNKNOWN), 0);
+        Assert.assertEquals(5.56, estimator.getSpeed(START + 2000, 52.5 + STEP, 13.4, SpeedEstimator.UNKNOWN), 0.01);
+        // Same time as the previous fix
+        Assert.assertEquals(SpeedEstimator.UNKNOWN, estimator.getSpeed(START + 2000, 52.5 + STEP, 13.4, SpeedEstimator.UNKNOWN), 0);
+    }
+
+    /**
+     * Fixes without speed pause the recording when the user stops and resume it when the user moves again
+     */
+    @Test
+    public void testAutoPauseWithoutMeasuredSpeed() {
+        SpeedEstimator estimator = new SpeedEstimator();
+        AutoPauseDetector detector = new AutoPauseDetector(1, 2, 5000);
+        double lat = 52.5;
+        long time = START;
+        for (int i = 0; i < 60; i++) {
+            lat += STEP;
+            time += 1000;
+            float speed = estimator.getSpeed(time, lat, 13.4, SpeedEstimator.UNKNOWN);
+            if (speed != SpeedEstimator.UNKNOWN) {
+                Assert.assertEquals(AutoPauseDetector.Event.NONE, detector.onFix(time, speed));
+            }
+        }
+        long stop = time + 1000;
+        AutoPauseDetector.Event event = AutoPauseDetector.Event.NONE;
+        while (event == AutoPauseDetector.Event.NONE) {
+            time += 1000;
+            event = detector.onFix(time, estimator.getSpeed(time, lat, 13.4, SpeedEstimator.UNKNOWN));
+        }
+        Assert.assertEquals(AutoPauseDetector.Event.PAUSE, event);
+        Assert.assertEquals(stop, detector.getBoundaryTime());
+
+        lat += STEP;
+        time += 1000;
+        Assert.assertEquals(AutoPauseDetector.Event.RESUME, detector.onFix(time, estimator.getSpeed(time, lat, 13.4, SpeedEstimator.UNKNOWN)));
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.tadris.fitness.data.Workout;
+import de.tadris.fitness.data.WorkoutSample;
+import de.tadris.fitness.data.WorkoutType;
+
+public class WorkoutDatabaseWriterTest {
+
+    private static final long START = 1580000000000L;
+
+    @Test
+    public void testFilterWithoutDelay() {
+        // The Kalman filter smoothes every sample when it is added, so each batch ends with the newest sample
+        record(WorkoutType.CYCLING, WorkoutDatabaseWriter.BATCH_SIZE * 3 + 7);
+    }
+
+    @Test
+    public void testFilterWithDelay() {
+        record(WorkoutType.RUNNING, WorkoutDatabaseWriter.BATCH_SIZE * 3 + 7);
+    }
+
+    @Test
+    public void testFailedBatchFailsSave() {
+        InMemoryWorkoutDatabase database = new InMemoryWorkoutDatabase() {
+            @Override
+            public synchronized void insertSamples(WorkoutSample[] samples) {
+                if (!finished) {
+                    throw new IllegalStateException("Disk full");
+                }
+            }
+        };
+        SampleBuffer samples = new SampleBuffer();
+        WorkoutDatabaseWriter writer = new WorkoutDatabaseWriter(database, Runnable::run, samples, () -> START);
+        Workout workout = new Workout();
+        workout.id = START;
+        writer.insertWorkout(workout);
+        for (int i = 0; i < WorkoutDatabaseWriter.BATCH_SIZE; i++) {
+            writer.addSample(samples.add(START + i * 1000L, i * 1000L, 52.5, 13.4, 100, 8, -1));
+        }
+        SaveResult result = new SaveResult();
+        writer.finish(workout, 0, result);
+
+        Assert.assertFalse(result.saved);
+        Assert.assertEquals("Disk full", result.failure.getMessage());
+        // The workout isn't finished, the recording is recovered from the journal instead
+        Assert.assertFalse(database.finished);
+    }
+
+    @Test
+    public void testInsertsWorkoutAsRequested() {
+        InMemoryWorkoutDatabase database = new InMemoryWorkoutDatabase();
+        List<Runnable> tasks = new ArrayList<>();
+        WorkoutDatabaseWriter writer = new WorkoutDatabaseWriter(database, tasks::add, new SampleBuffer(), () -> START);
+        Workout workout = new Workout();
+        workout.id = START;
+        workout.setStartInLocalTime(START);
+        writer.insertWorkout(workout);
+        // The recorder sets the start again when the first fix arrives before the insert was executed
+        workout.start = START + 1000;
+        for (Runnable task : tasks) {
+            task.run();
+        }
+
+        Assert.assertNotSame(workout, database.workout);
+        Assert.assertEquals(START, database.workout.start);
+        Assert.assertTrue(database.workout.inProgress);
+    }
+
+    private static class SaveResult implements WorkoutRecorder.SaveListener {
+        boolean saved = false;
+        Exception failure;
+
+        @Override
+        public void onSaved() {
+            saved = true;
+        }
+
+        @Override
+        public void onSaveFailed(Exception e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Adds the samples like the recorder does and checks that all of them are written in order
+     */
+    private void record(WorkoutType workoutType, int count) {
+        InMemoryWorkoutDatabase database = new InMemoryWorkoutDatabase();
+        SampleBuffer samples = new SampleBuffer();
+        long[] time = {START};
+        WorkoutDatabaseWriter writer = new WorkoutDatabaseWriter(database, Runnable::run, samples, () -> time[0]);
+        WorkoutStatistics statistics = new WorkoutStatistics(samples, WorkoutSaver.createElevationFilter(workoutType), null, writer::addSample);
+        Workout workout = new Workout();
+        workout.id = START;
+        writer.insertWorkout(workout);
+
+        double distance = 0;
+        for (int i = 0; i < count; i++) {
+            time[0] = START + i * 1000L;
+            double lat = 52.5 + i * 0.0001;
+            int last = samples.getCount() - 1;
+            if (last >= 0) {
+                // The recorder needs the newest sample for the distance of the next fix
+                distance += samples.getDistance(last, lat, 13.4);
+            }
+            statistics.add(samples.add(time[0], i * 1000L, lat, 13.4, 100 + i % 10, 8, 1000 - i * 0.01f));
+        }
+        statistics.finish();
+        SaveResult result = new SaveResult();
+        writer.finish(workout, 0, result);
+
+        Assert.assertTrue(result.saved);
+        Assert.assertTrue(database.finished);
+        Assert.assertEquals(count, database.samples.size());
+        for (int i = 0; i < count; i++) {
+            WorkoutSample sample = database.samples.get(i);
+            Assert.assertEquals(i, sample.seq);
+            Assert.assertEquals(START, sample.workoutId);
+            Assert.assertEquals(START + i * 1000L, sample.absoluteTime);
+        }
+        Assert.assertEquals(distance, statistics.getLength(), 0.001);
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.mapsforge.core.model.LatLong;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import de.tadris.fitness.util.GeoidGrid;
+import de.tadris.fitness.util.elevation.MovingAverageFilter;
+
+/**
+ * Compares the streaming statistics with the calculation the WorkoutSaver did before
+ * on tracks that look like recorded ones (GPS noise, pressure drift, duplicate fixes).
+ */
+public class WorkoutStatisticsTest {
+
+    private static final double CORRECTION_OFFSET = -47.5;
+
+    private final GeoidGrid geoidGrid = createGeoidGrid(-CORRECTION_OFFSET);
+
+    @Test
+    public void testGpsElevationTrack() {
+        compare(createTrack(1, 3600, false));
+    }
+
+    @Test
+    public void testPressureTrack() {
+        compare(createTrack(2, 3600, true));
+    }
+
+    @Test
+    public void testLongTrack() {
+        compare(createTrack(3, 4 * 3600, true));
+    }
+
+    @Test
+    public void testShortTracks() {
+        for (int size = 2; size < 20; size++) {
+            compare(createTrack(size, size, false));
+            compare(createTrack(size, size, true));
+        }
+    }
+
+    @Test
+    public void testSegments() {
+        SampleBuffer buffer = new SampleBuffer();
+        WorkoutStatistics statistics = new WorkoutStatistics(buffer);
+        // 0.001 degrees of latitude are about 111 m, the second segment starts about 1 km away
+        statistics.add(buffer.add(1000, 0, 52.500, 13.4, 50, 2, -1, 0));
+        statistics.add(buffer.add(2000, 1000, 52.501, 13.4, 50, 2, -1, 0));
+        statistics.add(buffer.add(9000, 2000, 52.510, 13.4, 50, 2, -1, 1));
+        statistics.add(buffer.add(10000, 3000, 52.511, 13.4, 50, 2, -1, 1));
+        statistics.finish();
+
+        double expected = buffer.getDistance(0, 1) + buffer.getDistance(2, 3);
+        Assert.assertEquals(expected, statistics.getLength(), 1e-6);
+        Assert.assertEquals(222, statistics.getLength(), 1);
+    }
+
+    private void compare(List<Fix> track) {
+        List<Fix> batch = copy(track);
+
+        SampleBuffer buffer = new SampleBuffer();
+        WorkoutStatistics statistics = new WorkoutStatistics(buffer, new MovingAverageFilter(WorkoutStatistics.ELEVATION_RANGE), geoidGrid, index -> { });
+        for (Fix fix : track) {
+            // Duplicate fixes are dropped by the SampleCleaner
+            int count = buffer.getCount();
+            if (count > 0 && buffer.getAbsoluteTime(count - 1) == fix.absoluteTime) {
+                continue;
+            }
+            int index = buffer.add(fix.absoluteTime, fix.relativeTime, fix.lat, fix.lon, fix.elevation, fix.speed, fix.pressure);
+            statistics.add(index);
+        }
+        statistics.finish();
+
+        BatchResult expected = calculateBatch(batch);
+
+        Assert.assertEquals("sample count", batch.size(), statistics.getCount());
+        Assert.assertEquals("length", expected.length, statistics.getLength(), 1e-6);
+        Assert.assertEquals("top speed", expected.topSpeed, statistics.getTopSpeed(), 0);
+        Assert.assertEquals("ascent", expected.ascent, statistics.getAscent(), 1e-2);
+        Assert.assertEquals("descent", expected.descent, statistics.getDescent(), 1e-2);
+
+        double offset = getElevationOffset(statistics);
+        for (int i = 0; i < batch.size(); i++) {
+            Assert.assertEquals("elevation of sample " + i, batch.get(i).elevation, buffer.getSmoothedElevation(i) + offset, 1e-3);
+        }
+    }
+
+    /**
+     * Same calculation as WorkoutSaver.getElevationOffset()
+     */
+    private double getElevationOffset(WorkoutStatistics statistics) {
+        if (statistics.isGpsScale()) {
+            return 0;
+        } else {
+            double avgElevation = statistics.getAverageElevation() - statistics.getAverageGeoidHeight();
+            return avgElevation - WorkoutStatistics.getBarometricAltitude((float) statistics.getAveragePressure());
+        }
+    }
+
+    /**
+     * Creates a grid with the same geoid height everywhere, so the correction of every sample
+     * equals the single correction offset the WorkoutSaver used before
+     */
+    private static GeoidGrid createGeoidGrid(double height) {
+        StringBuilder csv = new StringBuilder();
+        for (int lat = -90; lat <= 90; lat++) {
+            for (int lon = -180; lon <= 180; lon++) {
+                csv.append(lat).append(',').append(lon).append(',').append(height).append('\n');
+            }
+        }
+        try {
+            return GeoidGrid.parseCsv(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static class BatchResult {
+        double length;
+        double topSpeed;
+        double ascent;
+        double descent;
+    }
+
+    /**
+     * The passes the WorkoutSaver made over the samples before the statistics were calculated while recording
+     */
+    private BatchResult calculateBatch(List<Fix> samples) {
+        BatchResult result = new BatchResult();
+
+        // clearSamplesWithSameTime
+        for (int i = samples.size() - 2; i >= 0; i--) {
+            Fix sample = samples.get(i);
+            Fix lastSample = samples.get(i + 1);
+            if (sample.absoluteTime == lastSample.absoluteTime) {
+                samples.remove(lastSample);
+            }
+        }
+
+        // setSimpleValues
+        for (int i = 1; i < samples.size(); i++) {
+            result.length += new LatLong(samples.get(i - 1).lat, samples.get(i - 1).lon).sphericalDistance(new LatLong(samples.get(i).lat, samples.get(i).lon));
+        }
+
+        // setTopSpeed
+        for (Fix sample : samples) {
+            if (sample.speed > result.topSpeed) {
+                result.topSpeed = sample.speed;
+            }
+        }
+
+        // setCorrectedElevation
+        for (Fix sample : samples) {
+            sample.elevation = sample.elevation + CORRECTION_OFFSET;
+        }
+
+        // setPressureElevation
+        if (samples.get(0).pressure != -1) {
+            double avgElevation = getAverageElevation(samples);
+            double pressureSum = 0;
+            for (Fix sample : samples) {
+                pressureSum += sample.pressure;
+            }
+            double avgPressure = pressureSum / samples.size();
+            for (Fix sample : samples) {
+                float altitudeDifference = WorkoutStatistics.getBarometricAltitude(sample.pressure) -
+                        WorkoutStatistics.getBarometricAltitude((float) avgPressure);
+                sample.elevation = avgElevation + altitudeDifference;
+            }
+        }
+
+        // setAscentAndDescent, with the window reaching the same number of samples in both directions
+        int range = 7;
+        for (int i = 0; i < samples.size(); i++) {
+            int minIndex = Math.max(i - range, 0);
+            int maxIndex = Math.min(i + range, samples.size() - 1) + 1;
+            samples.get(i).smoothedElevation = getAverageElevation(samples.subList(minIndex, maxIndex));
+        }
+        for (int i = 0; i < samples.size(); i++) {
+            Fix sample = samples.get(i);
+            sample.elevation = sample.smoothedElevation;
+            if (i >= 1) {
+                double diff = sample.elevation - samples.get(i - 1).elevation;
+                if (diff > 0) {
+                    result.ascent += diff;
+                } else {
+                    result.descent += Math.abs(diff);
+                }
+            }
+        }
+        return result;
+    }
+
+    private double getAverageElevation(List<Fix> samples) {
+        double elevationSum = 0;
+        for (Fix sample : samples) {
+            elevationSum += sample.elevation;
+        }
+        return elevationSum / samples.size();
+    }
+
+    /**
+     * Creates a track with one fix per second, GPS noise, a drifting barometer and some duplicate fixes
+     */
+    private List<Fix> createTrack(long seed, int size, boolean withPressure) {
+        Random random = new Random(seed);
+        List<Fix> samples = new ArrayList<>();
+        double lat = 52.52;
+        double lon = 13.40;
+        double heading = random.nextDouble() * Math.PI * 2;
+        double elevation = 80;
+        float pressure = 1003f;
+        long time = 1580000000000L;
+        for (int i = 0; i < size; i++) {
+            heading += random.nextGaussian() * 0.1;
+            double speed = Math.max(0, 3 + random.nextGaussian());
+            lat += Math.cos(heading) * speed / 111111d;
+            lon += Math.sin(heading) * speed / 67000d;
+            double climb = Math.sin(i / 300d) * 0.3;
+            elevation += climb;
+            pressure -= (float) (climb / 8.3 + random.nextGaussian() * 0.02);
+
+            Fix sample = new Fix();
+            sample.absoluteTime = time;
+            sample.relativeTime = time - 1580000000000L;
+            sample.lat = lat + random.nextGaussian() * 0.00002;
+            sample.lon = lon + random.nextGaussian() * 0.00002;
+            sample.elevation = elevation + random.nextGaussian() * 3;
+            sample.speed = (float) speed;
+            sample.pressure = withPressure ? pressure : -1;
+            samples.add(sample);
+
+            if (random.nextInt(50) != 0) {
+                // Sometimes the same fix is delivered twice
+                time += 1000;
+            }
+        }
+        return samples;
+    }
+
+    private List<Fix> copy(List<Fix> samples) {
+        List<Fix> copy = new ArrayList<>();
+        for (Fix sample : samples) {
+            Fix c = new Fix();
+            c.absoluteTime = sample.absoluteTime;
+            c.relativeTime = sample.relativeTime;
+            c.lat = sample.lat;
+            c.lon = sample.lon;
+            c.elevation = sample.elevation;
+            c.speed = sample.speed;
+            c.pressure = sample.pressure;
+            copy.add(c);
+        }
+        return copy;
+    }
+
+    private static class Fix {
+        long absoluteTime;
+        long relativeTime;
+        double lat;
+        double lon;
+        double elevation;
+        double smoothedElevation;
+        float speed;
+        float pressure;
+    }
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mapsforge.core.model.LatLong;
+
+public class DistanceUtilsTest {
+
+    @Test
+    public void testDistanceEqualsLatLong() {
+        for (int i = 1; i < 1000; i++) {
+            double expected = new LatLong(getLat(i - 1), getLon(i - 1)).sphericalDistance(new LatLong(getLat(i), getLon(i)));
+            Assert.assertEquals(expected, DistanceUtils.sphericalDistance(getLat(i - 1), getLon(i - 1), getLat(i), getLon(i)), 0);
+        }
+    }
+
+    private double getLat(int i) {
+        return 52.52 + Math.sin(i / 1000d) * 0.01;
+    }
+
+    private double getLon(int i) {
+        return 13.40 + Math.cos(i / 1000d) * 0.01;
+    }
+
+}
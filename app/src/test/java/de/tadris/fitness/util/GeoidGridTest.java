@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.util;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+public class GeoidGridTest {
+
+    private static final File CSV_FILE = new File("src/main/geoid/geoids.csv");
+
+    private GeoidGrid grid;
+
+    @Before
+    public void readGrid() throws IOException {
+        GeoidGrid csvGrid;
+        try (InputStream inputStream = new FileInputStream(CSV_FILE)) {
+            csvGrid = GeoidGrid.parseCsv(inputStream);
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        csvGrid.write(outputStream);
+        Assert.assertEquals(8 + GeoidGrid.ROWS * GeoidGrid.COLUMNS * 2, outputStream.size());
+        grid = GeoidGrid.read(new ByteArrayInputStream(outputStream.toByteArray()));
+    }
+
+    @Test
+    public void testGridPoints() throws IOException {
+        List<String> lines = Files.readAllLines(CSV_FILE.toPath(), StandardCharsets.UTF_8);
+        Assert.assertEquals(GeoidGrid.ROWS * GeoidGrid.COLUMNS, lines.size());
+        for (String line : lines) {
+            String[] data = line.split(",");
+            int lat = Integer.parseInt(data[0]);
+            int lon = Integer.parseInt(data[1]);
+            double height = Double.parseDouble(data[2]);
+            Assert.assertEquals(line, height, grid.getHeight(lat, lon), 0.005);
+            Assert.assertEquals(line, height, grid.getHeight((double) lat, (double) lon), 0.005);
+        }
+    }
+
+    @Test
+    public void testInterpolation() {
+        double expected = (grid.getHeight(52, 13) + grid.getHeight(52, 14) + grid.getHeight(53, 13) + grid.getHeight(53, 14)) / 4;
+        Assert.assertEquals(expected, grid.getHeight(52.5, 13.5), 1e-9);
+
+        double expectedQuarter = grid.getHeight(52, 13) + (grid.getHeight(52, 14) - grid.getHeight(52, 13)) * 0.25;
+        Assert.assertEquals(expectedQuarter, grid.getHeight(52, 13.25), 1e-9);
+    }
+
+    @Test
+    public void testEdges() {
+        Assert.assertEquals(grid.getHeight(90, 180), grid.getHeight(90d, 180d), 1e-9);
+        Assert.assertEquals(grid.getHeight(-90, -180), grid.getHeight(-90d, -180d), 1e-9);
+        Assert.assertEquals(grid.getHeight(-90, -180), grid.getHeight(-95d, -200d), 1e-9);
+    }
+
+    @Test
+    public void testHeightOverSeaLevel() {
+        // The geoid is about 40m above the ellipsoid in Berlin
+        double heightOverSeaLevel = grid.getHeightOverSeaLevel(52.52, 13.40, 80);
+        Assert.assertEquals(40, heightOverSeaLevel, 5);
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.util.elevation;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class ElevationFilterTest {
+
+    @Test
+    public void testMovingAverage() {
+        for (int size : new int[]{1, 2, 5, 15, 16, 1000}) {
+            double[] elevations = createElevations(size);
+            double[] filtered = new MovingAverageFilter(7).filter(elevations, null);
+            for (int i = 0; i < size; i++) {
+                double sum = 0;
+                int count = 0;
+                for (int j = Math.max(i - 7, 0); j <= Math.min(i + 7, size - 1); j++) {
+                    sum += elevations[j];
+                    count++;
+                }
+                Assert.assertEquals(sum / count, filtered[i], 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testMedian() {
+        for (int size : new int[]{1, 2, 5, 7, 8, 1000}) {
+            double[] elevations = createElevations(size);
+            double[] filtered = new MedianFilter(3).filter(elevations, null);
+            for (int i = 0; i < size; i++) {
+                double[] window = Arrays.copyOfRange(elevations, Math.max(i - 3, 0), Math.min(i + 3, size - 1) + 1);
+                Arrays.sort(window);
+                double median = window.length % 2 == 1 ? window[window.length / 2] :
+                        (window[window.length / 2 - 1] + window[window.length / 2]) / 2;
+                Assert.assertEquals(median, filtered[i], 0);
+            }
+        }
+    }
+
+    @Test
+    public void testMedianRemovesSpike() {
+        double[] elevations = new double[20];
+        Arrays.fill(elevations, 100);
+        elevations[10] = 150;
+        for (double elevation : new MedianFilter(2).filter(elevations, null)) {
+            Assert.assertEquals(100, elevation, 0);
+        }
+    }
+
+    @Test
+    public void testMedianSkipsValuesThatAreNotFinite() {
+        double[] elevations = new double[20];
+        Arrays.fill(elevations, 100);
+        elevations[5] = Double.NaN;
+        elevations[10] = Double.POSITIVE_INFINITY;
+        elevations[11] = 150;
+        for (double elevation : new MedianFilter(2).filter(elevations, null)) {
+            Assert.assertEquals(100, elevation, 0);
+        }
+        double[] filtered = new MedianFilter(1).filter(new double[]{Double.NaN, Double.NaN, Double.NaN, 100}, null);
+        Assert.assertTrue(Double.isNaN(filtered[1]));
+        Assert.assertEquals(100, filtered[2], 0);
+        Assert.assertEquals(100, filtered[3], 0);
+    }
+
+    @Test
+    public void testBarometricElevationIsPreferred() {
+        double[] gps = createElevations(100);
+        double[] barometric = new double[100];
+        Arrays.fill(barometric, 42);
+        for (double elevation : new MovingAverageFilter(7).filter(gps, barometric)) {
+            Assert.assertEquals(42, elevation, 1e-9);
+        }
+    }
+
+    @Test
+    public void testKalmanFollowsBarometerAndKeepsGpsScale() {
+        Random random = new Random(1);
+        int size = 3600;
+        double[] gps = new double[size];
+        double[] barometric = new double[size];
+        for (int i = 0; i < size; i++) {
+            double real = 200 + Math.sin(i / 200d) * 30;
+            gps[i] = real + random.nextGaussian() * 5;
+            // Barometer is precise but has an offset and drifts
+            barometric[i] = real - 80 + i * 0.002 + random.nextGaussian() * 0.1;
+        }
+        KalmanElevationFilter filter = new KalmanElevationFilter();
+        Assert.assertTrue(filter.isBarometerFused());
+        double[] filtered = filter.filter(gps, barometric);
+        for (int i = size / 10; i < size; i++) {
+            double real = 200 + Math.sin(i / 200d) * 30;
+            Assert.assertEquals("sample " + i, real, filtered[i], 3);
+        }
+    }
+
+    @Test
+    public void testKalmanWithoutBarometerReducesNoise() {
+        Random random = new Random(2);
+        double[] gps = new double[1000];
+        for (int i = 0; i < gps.length; i++) {
+            gps[i] = 100 + random.nextGaussian() * 5;
+        }
+        double[] filtered = new KalmanElevationFilter().filter(gps, null);
+        Assert.assertTrue(getTotalChange(filtered) < getTotalChange(gps) / 5);
+    }
+
+    @Test
+    public void testHysteresis() {
+        double[] elevations = {100, 101, 99, 100.5, 103, 102, 104, 101, 100};
+        double[] filtered = new HysteresisFilter(1.5).filter(elevations, null);
+        double[] expected = {100, 100, 100, 100, 101.5, 101.5, 102.5, 102.5, 101.5};
+        Assert.assertArrayEquals(expected, filtered, 1e-9);
+    }
+
+    @Test
+    public void testPipeline() {
+        double[] elevations = createElevations(500);
+        ElevationFilterPipeline pipeline = new ElevationFilterPipeline(new MedianFilter(2), new MovingAverageFilter(7));
+        Assert.assertEquals(9, pipeline.getDelay());
+        Assert.assertFalse(pipeline.isBarometerFused());
+
+        double[] expected = new MovingAverageFilter(7).filter(new MedianFilter(2).filter(elevations, null), null);
+        Assert.assertArrayEquals(expected, pipeline.filter(elevations, null), 1e-9);
+
+        Assert.assertTrue(new ElevationFilterPipeline(new KalmanElevationFilter(), new HysteresisFilter(1)).isBarometerFused());
+    }
+
+    @Test
+    public void testDelay() {
+        ElevationFilter[] filters = {
+                new MovingAverageFilter(7),
+                new MedianFilter(3),
+                new KalmanElevationFilter(),
+                new HysteresisFilter(1),
+                new ElevationFilterPipeline(new MedianFilter(3), new MovingAverageFilter(7)),
+        };
+        for (ElevationFilter filter : filters) {
+            int[] emitted = new int[1];
+            filter.setOutput(elevation -> emitted[0]++);
+            for (int i = 1; i <= 100; i++) {
+                filter.add(i, Double.NaN);
+                Assert.assertEquals(Math.max(i - filter.getDelay(), 0), emitted[0]);
+            }
+            filter.finish();
+            Assert.assertEquals(100, emitted[0]);
+        }
+    }
+
+    private double getTotalChange(double[] elevations) {
+        double change = 0;
+        for (int i = 1; i < elevations.length; i++) {
+            change += Math.abs(elevations[i] - elevations[i - 1]);
+        }
+        return change;
+    }
+
+    private double[] createElevations(int size) {
+        Random random = new Random(size);
+        double[] elevations = new double[size];
+        for (int i = 0; i < size; i++) {
+            elevations[i] = 100 + Math.sin(i / 50d) * 20 + random.nextGaussian() * 3;
+        }
+        return elevations;
+    }
+}
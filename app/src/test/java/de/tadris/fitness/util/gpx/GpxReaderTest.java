@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.util.gpx;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import de.tadris.fitness.data.WorkoutSample;
+
+public class GpxReaderTest {
+
+    private static final String GPX = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<gpx version=\"1.1\" creator=\"Test\" xmlns=\"http://www.topografix.com/GPX/1/1\">\n" +
+            "  <metadata><name>Test</name><time>2020-01-26T10:00:00Z</time></metadata>\n" +
+            "  <trk>\n" +
+            "    <name>Test</name>\n" +
+            "    <trkseg>\n" +
+            "      <trkpt lat=\"52.52\" lon=\"13.40\"><ele>80.5</ele><time>2020-01-26T10:00:00Z</time></trkpt>\n" +
+            "      <trkpt lat=\"52.53\" lon=\"13.41\"><ele>81</ele><time>2020-01-26T10:00:01.500Z</time>" +
+            "<extensions><speed>3.5</speed></extensions></trkpt>\n" +
+            "    </trkseg>\n" +
+            "    <trkseg>\n" +
+            "      <trkpt lat=\"52.54\" lon=\"13.42\"><ele>82</ele><time>2020-01-26T11:00:03+01:00</time></trkpt>\n" +
+            "    </trkseg>\n" +
+            "  </trk>\n" +
+            "</gpx>";
+
+    @Test
+    public void testReadSamples() throws IOException {
+        WorkoutSample[] samples = GpxReader.readSamples(new ByteArrayInputStream(GPX.getBytes(StandardCharsets.UTF_8)));
+        Assert.assertEquals(3, samples.length);
+        Assert.assertEquals(52.52, samples[0].lat, 0);
+        Assert.assertEquals(13.40, samples[0].lon, 0);
+        Assert.assertEquals(80.5, samples[0].elevation, 0);
+        Assert.assertEquals(3.5, samples[1].speed, 0);
+        Assert.assertEquals(0, samples[0].relativeTime);
+        Assert.assertEquals(1500, samples[1].relativeTime);
+        Assert.assertEquals(3000, samples[2].relativeTime);
+        Assert.assertEquals(0, samples[1].segment);
+        Assert.assertEquals(1, samples[2].segment);
+    }
+
+    @Test
+    public void testParseTime() throws IOException {
+        Assert.assertEquals(1580032800000L, GpxReader.parseTime("2020-01-26T10:00:00Z"));
+        Assert.assertEquals(1580032800123L, GpxReader.parseTime("2020-01-26T10:00:00.123Z"));
+        Assert.assertEquals(1580032800000L, GpxReader.parseTime("2020-01-26T11:00:00+01:00"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidTime() throws IOException {
+        GpxReader.parseTime("yesterday");
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import de.tadris.fitness.util.elevation.ElevationFilter;
+import de.tadris.fitness.util.elevation.ElevationFilterPipeline;
+import de.tadris.fitness.util.elevation.HysteresisFilter;
+import de.tadris.fitness.util.elevation.KalmanElevationFilter;
+import de.tadris.fitness.util.elevation.MedianFilter;
+import de.tadris.fitness.util.elevation.MovingAverageFilter;
+
+/**
+ * Compares the elevation filters on a workout with 50 000 samples (about 14 hours at one sample per second)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ElevationFilterBenchmark {
+
+    private static final int RANGE = 7;
+
+    @Param({"50000"})
+    public int samples;
+
+    @Param({"false", "true"})
+    public boolean barometer;
+
+    private double[] elevations;
+    private double[] barometricElevations;
+
+    @Setup
+    public void createWorkout() {
+        Random random = new Random(1);
+        elevations = new double[samples];
+        barometricElevations = barometer ? new double[samples] : null;
+        for (int i = 0; i < samples; i++) {
+            double elevation = 300 + Math.sin(i / 600d) * 50;
+            elevations[i] = elevation + random.nextGaussian() * 5;
+            if (barometer) {
+                barometricElevations[i] = elevation - 20 + i * 0.001 + random.nextGaussian() * 0.2;
+            }
+        }
+    }
+
+    /**
+     * Floating average like the WorkoutSaver calculated it before: averaging the whole window for every sample
+     */
+    @Benchmark
+    public double[] legacyMovingAverage() {
+        double[] raw = barometer ? barometricElevations : elevations;
+        double[] result = new double[raw.length];
+        for (int i = 0; i < raw.length; i++) {
+            int minIndex = Math.max(i - RANGE, 0);
+            int maxIndex = Math.min(i + RANGE, raw.length - 1);
+            double sum = 0;
+            for (int j = minIndex; j <= maxIndex; j++) {
+                sum += raw[j];
+            }
+            result[i] = sum / (maxIndex - minIndex + 1);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public double[] movingAverage() {
+        return filter(new MovingAverageFilter(RANGE));
+    }
+
+    @Benchmark
+    public double[] median() {
+        return filter(new MedianFilter(3));
+    }
+
+    @Benchmark
+    public double[] kalman() {
+        return filter(new KalmanElevationFilter());
+    }
+
+    @Benchmark
+    public double[] hysteresis() {
+        return filter(new HysteresisFilter(1));
+    }
+
+    @Benchmark
+    public double[] medianAndMovingAverage() {
+        return filter(new ElevationFilterPipeline(new MedianFilter(3), new MovingAverageFilter(RANGE)));
+    }
+
+    @Benchmark
+    public double[] kalmanAndHysteresis() {
+        return filter(new ElevationFilterPipeline(new KalmanElevationFilter(), new HysteresisFilter(1)));
+    }
+
+    private double[] filter(ElevationFilter filter) {
+        return filter.filter(elevations, barometricElevations);
+    }
+}
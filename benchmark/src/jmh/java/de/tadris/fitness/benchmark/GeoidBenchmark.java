@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import de.tadris.fitness.util.GeoidGrid;
+
+/**
+ * Compares the geoid lookup from the CSV file (as it was done once per saved workout) with the binary grid.
+ * Needs the system property geoids.csv with the path of the CSV file, it's set in build.gradle.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GeoidBenchmark {
+
+    private byte[] csv;
+    private byte[] grid;
+    private GeoidGrid loadedGrid;
+
+    private int position;
+
+    @Setup
+    public void readFiles() throws IOException {
+        csv = Files.readAllBytes(Paths.get(System.getProperty("geoids.csv")));
+        loadedGrid = GeoidGrid.parseCsv(new ByteArrayInputStream(csv));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        loadedGrid.write(outputStream);
+        grid = outputStream.toByteArray();
+    }
+
+    /**
+     * Reads all lines and returns the offset of the matching rounded position, like AltitudeCorrection did before
+     */
+    @Benchmark
+    public double csvLookup() throws IOException {
+        int latitude = 52;
+        int longitude = 13;
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(csv), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        for (String line : lines) {
+            String[] data = line.split(",");
+            int lat = Integer.parseInt(data[0]);
+            int lon = Integer.parseInt(data[1]);
+            double offset = Double.parseDouble(data[2]);
+            if (lat == latitude && lon == longitude) {
+                return offset;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Loading the grid, happens once per process
+     */
+    @Benchmark
+    public GeoidGrid gridLoad() throws IOException {
+        try (InputStream inputStream = new ByteArrayInputStream(grid)) {
+            return GeoidGrid.read(inputStream);
+        }
+    }
+
+    /**
+     * Interpolated lookup, happens once per sample
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public double gridLookup() {
+        position++;
+        return loadedGrid.getHeight(52.52 + (position % 1000) * 0.0001, 13.40 + (position % 777) * 0.0001);
+    }
+}
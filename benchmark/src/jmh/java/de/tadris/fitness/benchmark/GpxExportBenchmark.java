@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import de.tadris.fitness.data.Workout;
+import de.tadris.fitness.data.WorkoutSample;
+import de.tadris.fitness.util.gpx.GpxReader;
+import de.tadris.fitness.util.gpx.GpxWriter;
+
+/**
+ * Writing a workout as GPX file, like the GPX export does, and reading it again like the replay does
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GpxExportBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int sampleCount;
+
+    private Workout workout;
+    private WorkoutSample[] samples;
+    private byte[] gpx;
+
+    @Setup
+    public void createWorkout() throws IOException {
+        workout = SyntheticWorkout.createWorkout(sampleCount);
+        samples = SyntheticWorkout.createSamples(sampleCount);
+        gpx = write().toByteArray();
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream write() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        GpxWriter.write(workout, samples, output);
+        return output;
+    }
+
+    @Benchmark
+    public WorkoutSample[] read() throws IOException {
+        return GpxReader.readSamples(new ByteArrayInputStream(gpx));
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import de.tadris.fitness.data.SampleTable;
+import de.tadris.fitness.data.TrackCodec;
+import de.tadris.fitness.data.TrackData;
+import de.tadris.fitness.data.WorkoutSample;
+
+/**
+ * Loading the samples of one workout, like opening a workout does, from a database with
+ * {@link #WORKOUT_COUNT} workouts of {@link #SAMPLE_COUNT} samples each.
+ * <p>
+ * "rowid" is the sample table up to database version 5 with an id per sample and without an index
+ * on the workout, "clustered" is the {@link SampleTable} keyed by workout and index and "track" stores
+ * the samples of a workout as one blob encoded by {@link TrackCodec}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SampleTableBenchmark {
+
+    private static final int WORKOUT_COUNT = 500;
+    private static final int SAMPLE_COUNT = 5000;
+
+    private static final String ROWID_TABLE = "CREATE TABLE workout_sample (" +
+            "id INTEGER NOT NULL PRIMARY KEY," +
+            "relativeTime INTEGER NOT NULL," +
+            "elevation REAL NOT NULL," +
+            "absoluteTime INTEGER NOT NULL," +
+            "lat REAL NOT NULL," +
+            "lon REAL NOT NULL," +
+            "speed REAL NOT NULL," +
+            "workout_id INTEGER NOT NULL," +
+            "segment INTEGER NOT NULL," +
+            "FOREIGN KEY (workout_id) REFERENCES workout(id) ON DELETE CASCADE)";
+
+    private static final String TRACK_TABLE = "CREATE TABLE workout_track (" +
+            "workout_id INTEGER NOT NULL PRIMARY KEY," +
+            "samples BLOB," +
+            "FOREIGN KEY (workout_id) REFERENCES workout(id) ON DELETE CASCADE)";
+
+    @Param({"rowid", "clustered", "track"})
+    public String layout;
+
+    private File file;
+    private Connection connection;
+    private PreparedStatement query;
+    private int nextWorkout = 0;
+
+    @Setup
+    public void createDatabase() throws IOException, SQLException {
+        file = File.createTempFile("samples", ".db");
+        connection = DriverManager.getConnection("jdbc:sqlite:" + file.getPath());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE workout (id INTEGER NOT NULL PRIMARY KEY)");
+            statement.execute(isTrack() ? TRACK_TABLE : isClustered() ? SampleTable.getCreateStatement(SampleTable.NAME) : ROWID_TABLE);
+        }
+        if (isTrack()) {
+            insertTracks();
+            query = connection.prepareStatement("SELECT samples FROM workout_track WHERE workout_id = ?");
+        } else {
+            insertWorkouts();
+            query = connection.prepareStatement("SELECT * FROM workout_sample WHERE workout_id = ?" + (isClustered() ? " ORDER BY seq" : ""));
+        }
+    }
+
+    private boolean isClustered() {
+        return layout.equals("clustered");
+    }
+
+    private boolean isTrack() {
+        return layout.equals("track");
+    }
+
+    private static long getWorkoutId(int index) {
+        // One workout a day, the id is the start time
+        return SyntheticWorkout.START + index * 24 * 60 * 60 * 1000L;
+    }
+
+    private void insertTracks() throws SQLException {
+        connection.setAutoCommit(false);
+        byte[] blob = TrackCodec.encode(TrackData.fromSamples(SyntheticWorkout.createSamples(SAMPLE_COUNT)));
+        try (PreparedStatement workoutStatement = connection.prepareStatement("INSERT INTO workout (id) VALUES (?)");
+             PreparedStatement trackStatement = connection.prepareStatement("INSERT INTO workout_track (workout_id, samples) VALUES (?, ?)")) {
+            for (int w = 0; w < WORKOUT_COUNT; w++) {
+                workoutStatement.setLong(1, getWorkoutId(w));
+                workoutStatement.executeUpdate();
+                trackStatement.setLong(1, getWorkoutId(w));
+                trackStatement.setBytes(2, blob);
+                trackStatement.executeUpdate();
+            }
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    private void insertWorkouts() throws SQLException {
+        connection.setAutoCommit(false);
+        String sql = isClustered()
+                ? "INSERT INTO workout_sample (" + SampleTable.COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0)"
+                : "INSERT INTO workout_sample (workout_id, id, absoluteTime, relativeTime, lat, lon, elevation, speed, segment) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0)";
+        try (PreparedStatement workoutStatement = connection.prepareStatement("INSERT INTO workout (id) VALUES (?)");
+             PreparedStatement sampleStatement = connection.prepareStatement(sql)) {
+            for (int w = 0; w < WORKOUT_COUNT; w++) {
+                long workoutId = getWorkoutId(w);
+                workoutStatement.setLong(1, workoutId);
+                workoutStatement.executeUpdate();
+                for (int i = 0; i < SAMPLE_COUNT; i++) {
+                    sampleStatement.setLong(1, workoutId);
+                    // The recorder used the workout id plus the index as id
+                    sampleStatement.setLong(2, isClustered() ? i : workoutId + i + 1);
+                    sampleStatement.setLong(3, workoutId + i * 1000L);
+                    sampleStatement.setLong(4, i * 1000L);
+                    sampleStatement.setDouble(5, SyntheticWorkout.getLat(i));
+                    sampleStatement.setDouble(6, SyntheticWorkout.getLon(i));
+                    sampleStatement.setDouble(7, SyntheticWorkout.getElevation(i));
+                    sampleStatement.setDouble(8, SyntheticWorkout.getSpeed(i));
+                    sampleStatement.addBatch();
+                }
+                sampleStatement.executeBatch();
+            }
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    @TearDown
+    public void deleteDatabase() throws SQLException {
+        connection.close();
+        file.delete();
+    }
+
+    /**
+     * Reads the samples of the next workout into entities, as the generated Room code does
+     */
+    @Benchmark
+    public List<WorkoutSample> openWorkout() throws SQLException, IOException {
+        long workoutId = getWorkoutId(nextWorkout);
+        nextWorkout = (nextWorkout + 1) % WORKOUT_COUNT;
+        query.setLong(1, workoutId);
+        if (isTrack()) {
+            try (ResultSet result = query.executeQuery()) {
+                result.next();
+                return Arrays.asList(TrackCodec.decode(result.getBytes(1)).toSamples(workoutId));
+            }
+        }
+        List<WorkoutSample> samples = new ArrayList<>(SAMPLE_COUNT);
+        try (ResultSet result = query.executeQuery()) {
+            while (result.next()) {
+                WorkoutSample sample = new WorkoutSample();
+                sample.workoutId = result.getLong("workout_id");
+                sample.absoluteTime = result.getLong("absoluteTime");
+                sample.relativeTime = result.getLong("relativeTime");
+                sample.lat = result.getDouble("lat");
+                sample.lon = result.getDouble("lon");
+                sample.elevation = result.getDouble("elevation");
+                sample.speed = result.getDouble("speed");
+                sample.segment = result.getInt("segment");
+                samples.add(sample);
+            }
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.benchmark;
+
+import de.tadris.fitness.data.Workout;
+import de.tadris.fitness.data.WorkoutSample;
+import de.tadris.fitness.data.WorkoutType;
+
+/**
+ * Workouts with generated samples, one per second on a wavy track with hills
+ */
+public final class SyntheticWorkout {
+
+    public static final long START = 1580000000000L;
+
+    private SyntheticWorkout() {
+        throw new UnsupportedOperationException();
+    }
+
+    public static Workout createWorkout(int sampleCount) {
+        Workout workout = new Workout();
+        workout.id = START;
+        workout.setStartInLocalTime(START);
+        workout.end = START + sampleCount * 1000L;
+        workout.duration = sampleCount * 1000L;
+        workout.comment = "Benchmark";
+        workout.length = sampleCount * 3;
+        workout.avgSpeed = 3;
+        workout.topSpeed = 4;
+        workout.setWorkoutType(WorkoutType.RUNNING);
+        return workout;
+    }
+
+    public static WorkoutSample[] createSamples(int count) {
+        WorkoutSample[] samples = new WorkoutSample[count];
+        for (int i = 0; i < count; i++) {
+            WorkoutSample sample = new WorkoutSample();
+            sample.workoutId = START;
+            sample.seq = i;
+            sample.absoluteTime = START + i * 1000L;
+            sample.relativeTime = i * 1000L;
+            sample.lat = getLat(i);
+            sample.lon = getLon(i);
+            sample.elevation = getElevation(i);
+            sample.speed = getSpeed(i);
+            samples[i] = sample;
+        }
+        return samples;
+    }
+
+    public static double getLat(int i) {
+        return 52.52 + Math.sin(i / 1000d) * 0.01 + i * 0.00001;
+    }
+
+    public static double getLon(int i) {
+        return 13.40 + Math.cos(i / 1000d) * 0.01;
+    }
+
+    public static double getElevation(int i) {
+        return 80 + Math.sin(i / 300d) * 20 + Math.sin(i * 7d) * 2;
+    }
+
+    public static float getSpeed(int i) {
+        return 3 + (float) Math.sin(i / 60d);
+    }
+}
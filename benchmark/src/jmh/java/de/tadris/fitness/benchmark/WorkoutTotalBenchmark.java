@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import de.tadris.fitness.data.WorkoutTotal;
+import de.tadris.fitness.data.WorkoutTotalTable;
+import de.tadris.fitness.data.WorkoutType;
+
+/**
+ * Monthly totals per workout type of {@link #YEAR_COUNT} years with {@link #WORKOUTS_PER_DAY} workouts a day.
+ * <p>
+ * "scan" reads all workouts and sums them in Java, "totals" reads the {@link WorkoutTotalTable}
+ * that the triggers maintained while the workouts were inserted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WorkoutTotalBenchmark {
+
+    private static final int YEAR_COUNT = 10;
+    private static final int WORKOUTS_PER_DAY = 2;
+
+    private static final String WORKOUT_TABLE = "CREATE TABLE workout (" +
+            "id INTEGER NOT NULL PRIMARY KEY," +
+            "start INTEGER NOT NULL," +
+            "timeZoneOffset INTEGER," +
+            "duration INTEGER NOT NULL," +
+            "length INTEGER NOT NULL," +
+            "calorie INTEGER NOT NULL," +
+            "ascent REAL NOT NULL," +
+            "descent REAL NOT NULL," +
+            "workoutType TEXT," +
+            "inProgress INTEGER NOT NULL)";
+
+    @Param({"scan", "totals"})
+    public String source;
+
+    private File file;
+    private Connection connection;
+
+    @Setup
+    public void createDatabase() throws IOException, SQLException {
+        file = File.createTempFile("totals", ".db");
+        connection = DriverManager.getConnection("jdbc:sqlite:" + file.getPath());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(WORKOUT_TABLE);
+            statement.execute(WorkoutTotalTable.getCreateStatement());
+            for (String trigger : WorkoutTotalTable.getCreateTriggerStatements()) {
+                statement.execute(trigger);
+            }
+        }
+        insertWorkouts();
+    }
+
+    private void insertWorkouts() throws SQLException {
+        connection.setAutoCommit(false);
+        WorkoutType[] types = WorkoutType.values();
+        int count = YEAR_COUNT * 365 * WORKOUTS_PER_DAY;
+        try (PreparedStatement statement = connection.prepareStatement("INSERT INTO workout VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)")) {
+            for (int i = 0; i < count; i++) {
+                long start = SyntheticWorkout.START - i * 24 * 60 * 60 * 1000L / WORKOUTS_PER_DAY;
+                statement.setLong(1, start);
+                statement.setLong(2, start);
+                statement.setLong(3, TimeZone.getDefault().getOffset(start));
+                statement.setLong(4, 30 * 60 * 1000L + i % 100 * 1000L);
+                statement.setInt(5, 5000 + i % 1000);
+                statement.setInt(6, 300 + i % 50);
+                statement.setDouble(7, i % 80);
+                statement.setDouble(8, i % 70);
+                statement.setString(9, types[i % types.length].id);
+                statement.executeUpdate();
+            }
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    @TearDown
+    public void deleteDatabase() throws SQLException {
+        connection.close();
+        file.delete();
+    }
+
+    @Benchmark
+    public List<WorkoutTotal> monthlyTotals() throws SQLException {
+        return source.equals("scan") ? sumWorkouts() : readTotals();
+    }
+
+    private List<WorkoutTotal> sumWorkouts() throws SQLException {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-01", Locale.US);
+        Map<String, WorkoutTotal> totals = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT start, duration, length, calorie, ascent, descent, workoutType FROM workout WHERE inProgress = 0")) {
+            while (result.next()) {
+                String period = format.format(new Date(result.getLong(1)));
+                String workoutType = result.getString(7);
+                WorkoutTotal total = totals.get(period + workoutType);
+                if (total == null) {
+                    total = new WorkoutTotal();
+                    total.periodType = WorkoutTotalTable.PERIOD_MONTH;
+                    total.period = period;
+                    total.workoutTypeId = workoutType;
+                    totals.put(period + workoutType, total);
+                }
+                total.count++;
+                total.duration += result.getLong(2);
+                total.length += result.getInt(3);
+                total.calorie += result.getInt(4);
+                total.ascent += result.getDouble(5);
+                total.descent += result.getDouble(6);
+            }
+        }
+        return new ArrayList<>(totals.values());
+    }
+
+    private List<WorkoutTotal> readTotals() throws SQLException {
+        List<WorkoutTotal> totals = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement("SELECT * FROM " + WorkoutTotalTable.NAME + " WHERE periodType = ? ORDER BY period DESC, workoutType")) {
+            statement.setInt(1, WorkoutTotalTable.PERIOD_MONTH);
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    WorkoutTotal total = new WorkoutTotal();
+                    total.periodType = result.getInt("periodType");
+                    total.period = result.getString("period");
+                    total.workoutTypeId = result.getString("workoutType");
+                    total.count = result.getInt("count");
+                    total.duration = result.getLong("duration");
+                    total.length = result.getLong("length");
+                    total.calorie = result.getLong("calorie");
+                    total.ascent = result.getDouble("ascent");
+                    total.descent = result.getDouble("descent");
+                    totals.add(total);
+                }
+            }
+        }
+        return totals;
+    }
+}
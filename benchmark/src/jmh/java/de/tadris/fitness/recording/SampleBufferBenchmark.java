@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording;
+
+import org.mapsforge.core.model.LatLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import de.tadris.fitness.benchmark.SyntheticWorkout;
+
+/**
+ * Records 100 000 fixes (about 28 hours at one fix per second) into the sample layout the recorder used before
+ * and into a sample buffer that keeps all samples.
+ * The gc profiler that is enabled in build.gradle reports the allocated bytes per recording as gc.alloc.rate.norm.
+ * In the recording package because the sample buffer is package private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SampleBufferBenchmark {
+
+    private static final int FIXES = 100_000;
+
+    /**
+     * List of sample objects with the temporary fields of the diagrams and a LatLong for each distance
+     */
+    @Benchmark
+    public List<BaselineSample> recordSampleList(Blackhole blackhole) {
+        List<BaselineSample> samples = new ArrayList<>();
+        double distance = 0;
+        for (int i = 0; i < FIXES; i++) {
+            double lat = SyntheticWorkout.getLat(i);
+            double lon = SyntheticWorkout.getLon(i);
+            if (!samples.isEmpty()) {
+                BaselineSample lastSample = samples.get(samples.size() - 1);
+                distance += new LatLong(lat, lon).sphericalDistance(new LatLong(lastSample.lat, lastSample.lon));
+            }
+            BaselineSample sample = new BaselineSample();
+            sample.absoluteTime = SyntheticWorkout.START + i * 1000L;
+            sample.relativeTime = i * 1000L;
+            sample.lat = lat;
+            sample.lon = lon;
+            sample.elevation = SyntheticWorkout.getElevation(i);
+            sample.speed = SyntheticWorkout.getSpeed(i);
+            samples.add(sample);
+        }
+        blackhole.consume(distance);
+        return samples;
+    }
+
+    /**
+     * Sample buffer that keeps all samples, distances without LatLong objects
+     */
+    @Benchmark
+    public SampleBuffer recordSampleBuffer(Blackhole blackhole) {
+        SampleBuffer samples = new SampleBuffer();
+        double distance = 0;
+        for (int i = 0; i < FIXES; i++) {
+            double lat = SyntheticWorkout.getLat(i);
+            double lon = SyntheticWorkout.getLon(i);
+            if (i > 0) {
+                distance += samples.getDistance(i - 1, lat, lon);
+            }
+            samples.add(SyntheticWorkout.START + i * 1000L, i * 1000L, lat, lon, SyntheticWorkout.getElevation(i),
+                    SyntheticWorkout.getSpeed(i), -1);
+        }
+        blackhole.consume(distance);
+        return samples;
+    }
+
+    /**
+     * Field layout of the WorkoutSample the recorder kept for every fix, the Entry fields of the diagrams are Objects
+     */
+    static class BaselineSample {
+        long id;
+        long workoutId;
+        long absoluteTime;
+        long relativeTime;
+        double lat;
+        double lon;
+        double elevation;
+        double speed;
+        Object tmpHeightEntry;
+        Object tmpSpeedEntry;
+        double tmpRoundedSpeed;
+        double tmpElevation;
+        float tmpPressure;
+        float tmpInclination;
+    }
+}
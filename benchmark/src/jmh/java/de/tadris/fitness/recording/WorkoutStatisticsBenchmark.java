@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness.recording;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import de.tadris.fitness.benchmark.SyntheticWorkout;
+import de.tadris.fitness.data.Workout;
+import de.tadris.fitness.util.CalorieCalculator;
+import de.tadris.fitness.util.GeoidGrid;
+import de.tadris.fitness.util.elevation.MovingAverageFilter;
+
+/**
+ * Statistics the WorkoutSaver stores for a workout: length, top speed, smoothed ascent and descent with
+ * the geoid correction of every sample (formerly done by AltitudeCorrection) and the calories.
+ * In the benchmark package of the recorder because the statistics are package private.
+ * Needs the system property geoids.csv with the path of the CSV file, it's set in build.gradle.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WorkoutStatisticsBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int sampleCount;
+
+    private SampleBuffer samples;
+    private GeoidGrid geoidGrid;
+    private Workout workout;
+
+    @Setup
+    public void createSamples() throws IOException {
+        samples = new SampleBuffer(sampleCount);
+        for (int i = 0; i < sampleCount; i++) {
+            samples.add(SyntheticWorkout.START + i * 1000L, i * 1000L, SyntheticWorkout.getLat(i), SyntheticWorkout.getLon(i),
+                    SyntheticWorkout.getElevation(i), SyntheticWorkout.getSpeed(i), -1);
+        }
+        try (InputStream input = new FileInputStream(System.getProperty("geoids.csv"))) {
+            geoidGrid = GeoidGrid.parseCsv(input);
+        }
+        workout = SyntheticWorkout.createWorkout(sampleCount);
+    }
+
+    @Benchmark
+    public int saveStatistics() {
+        WorkoutStatistics statistics = new WorkoutStatistics(samples, new MovingAverageFilter(WorkoutStatistics.ELEVATION_RANGE),
+                geoidGrid, index -> { });
+        for (int i = 0; i < sampleCount; i++) {
+            statistics.add(i);
+        }
+        statistics.finish();
+        workout.length = (int) statistics.getLength();
+        workout.topSpeed = statistics.getTopSpeed();
+        workout.ascent = (float) statistics.getAscent();
+        workout.descent = (float) statistics.getDescent();
+        return CalorieCalculator.calculateCalories(workout, 75);
+    }
+
+    /**
+     * Only the geoid correction of every sample
+     */
+    @Benchmark
+    public double geoidCorrection() {
+        double sum = 0;
+        for (int i = 0; i < sampleCount; i++) {
+            sum += geoidGrid.getHeight(samples.getLat(i), samples.getLon(i));
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.tadris.fitness;
+
+/**
+ * Stand-in for the resource ids the Android build generates for the app. The benchmarked
+ * classes only pass them around, so their values don't matter.
+ */
+public final class R {
+
+    private R() {
+        throw new UnsupportedOperationException();
+    }
+
+    public static final class string {
+        public static final int workoutTypeRunning = 0;
+        public static final int workoutTypeHiking = 0;
+        public static final int workoutTypeCycling = 0;
+        public static final int workoutTypeOther = 0;
+    }
+
+    public static final class style {
+        public static final int Running = 0;
+        public static final int RunningDark = 0;
+        public static final int Hiking = 0;
+        public static final int HikingDark = 0;
+        public static final int Bicycling = 0;
+        public static final int BicyclingDark = 0;
+        public static final int AppTheme = 0;
+        public static final int AppThemeDark = 0;
+    }
+}